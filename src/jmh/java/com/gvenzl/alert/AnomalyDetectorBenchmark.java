@@ -0,0 +1,82 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: AnomalyDetectorBenchmark.java
+ * Description: Per-sample cost of the anomaly detection.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.alert;
+
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.VMStat;
+import com.gvenzl.system.VMStatFixture;
+import com.gvenzl.system.VMStatParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * Measures {@link AnomalyDetector#update(DataPoint)}, one detector per system, the systems sampled round-robin.
+ * With many systems, the detector state no longer stays in the L1 cache.
+ */
+@State(Scope.Thread)
+public class AnomalyDetectorBenchmark {
+
+    @Param({"1", "5000"})
+    public int systems;
+
+    private DataPoint[] samples;
+    private AnomalyDetector[] detectors;
+    private int nextSample = 0;
+    private int nextSystem = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        VMStatFixture vmstat = VMStatFixture.load(VMStatFixture.PROCPS3);
+        VMStatParser parser = new VMStatParser(new VMStat(vmstat.getHeaders()));
+        String[] lines = vmstat.getLines();
+        samples = new DataPoint[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            samples[i] = parser.parse(lines[i]);
+        }
+
+        detectors = new AnomalyDetector[systems];
+        for (int i = 0; i < systems; i++) {
+            detectors[i] = new AnomalyDetector(4, 60);
+            // Past the warm-up, so that every sample is evaluated
+            for (int j = 0; j < 100; j++) {
+                detectors[i].update(samples[(i + j) % samples.length]);
+            }
+        }
+    }
+
+    @Benchmark
+    public int update() {
+        int anomalies = detectors[nextSystem].update(samples[nextSample]);
+        if (++nextSample == samples.length) {
+            nextSample = 0;
+        }
+        if (++nextSystem == systems) {
+            nextSystem = 0;
+        }
+        return anomalies;
+    }
+}
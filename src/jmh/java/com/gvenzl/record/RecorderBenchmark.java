@@ -0,0 +1,92 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: RecorderBenchmark.java
+ * Description: JMH benchmark of recording vmstat lines.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.connect.Connection;
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.VMStat;
+import com.gvenzl.system.VMStatFixture;
+import com.gvenzl.system.VMStatParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmarks writing the samples of a system in the different {@link RecordFormat}s,
+ * i.e. the work done per sample by the writer thread of the {@link RecordingService}.
+ */
+@State(Scope.Thread)
+public class RecorderBenchmark {
+
+    @Param({ "text", "binary" })
+    private String format;
+
+    private String[] lines;
+    private DataPoint[] dataPoints;
+    private int next = 0;
+    private Collector collector;
+    private Recorder recorder;
+    private Path recording;
+
+    @Setup
+    public void setup() throws IOException {
+        VMStatFixture vmstat = VMStatFixture.load(VMStatFixture.PROCPS4);
+        VMStatParser parser = new VMStatParser(new VMStat(vmstat.getHeaders()));
+        lines = vmstat.getLines();
+        Connection conn = new Connection();
+        conn.setName("benchmark");
+        collector = new Collector(conn, lines.length);
+        dataPoints = new DataPoint[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            dataPoints[i] = parser.parse(lines[i]);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startRecording() throws IOException {
+        RecordFormat recordFormat = RecordFormat.fromName(format);
+        recording = Files.createTempFile("sysmonitor-bench", recordFormat.getExtension());
+        Files.delete(recording);
+        recorder = Recorder.open(recording, recordFormat);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopRecording() throws IOException {
+        recorder.closeFile(false);
+        Files.deleteIfExists(recording);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        recorder.write(collector, lines[next], dataPoints[next]);
+        next = (next + 1) % lines.length;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: RecordingReadBenchmark.java
+ * Description: JMH benchmark of reading text and binary recordings.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.VMStat;
+import com.gvenzl.system.VMStatFixture;
+import com.gvenzl.system.VMStatParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmarks reading an entire recording sequentially, the text recording via the {@link VMStatParser},
+ * the binary recording via the {@link BinaryRecordingReader}.
+ */
+@State(Scope.Benchmark)
+public class RecordingReadBenchmark {
+
+    private Path text;
+    private Path binary;
+
+    @Setup
+    public void setup() throws IOException {
+        VMStatFixture vmstat = VMStatFixture.load(VMStatFixture.PROCPS4);
+        text = Files.createTempFile("sysmonitor-bench", RecordFormat.TEXT.getExtension());
+        binary = Files.createTempFile("sysmonitor-bench", RecordFormat.BINARY.getExtension());
+        Files.delete(binary);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(text)) {
+            writer.write(vmstat.getHeaders());
+            writer.write("\n");
+            for (String line : vmstat.getLines()) {
+                writer.write(line);
+                writer.write("\n");
+            }
+        }
+        new RecordingConverter().convert(text, binary);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(text);
+        Files.deleteIfExists(binary);
+    }
+
+    @Benchmark
+    public void readText(Blackhole bh) throws IOException {
+        DataPoint dp = new DataPoint();
+        try (BufferedReader reader = Files.newBufferedReader(text)) {
+            VMStatParser parser =
+                    new VMStatParser(new VMStat(reader.readLine() + "\n" + reader.readLine()));
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (parser.parse(line, dp)) {
+                    bh.consume(dp.getFreeMemoryKB());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void readBinary(Blackhole bh) throws IOException {
+        DataPoint dp = new DataPoint();
+        try (BinaryRecordingReader reader = new BinaryRecordingReader(binary)) {
+            while (reader.next(dp)) {
+                bh.consume(dp.getFreeMemoryKB());
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: DataPointBenchmark.java
+ * Description: Benchmarks the DataPoint timestamp handling.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+@State(Scope.Thread)
+public class DataPointBenchmark {
+
+    private String[] timestamps;
+    private int next = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        String[] lines = VMStatFixture.load(VMStatFixture.PROCPS3).getLines();
+        timestamps = new String[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            timestamps[i] = lines[i].substring(lines[i].length() - 19);
+        }
+    }
+
+    @Benchmark
+    public DataPoint setDateTime() {
+        DataPoint dp = new DataPoint();
+        dp.setDateTime(timestamps[next]);
+        next = (next + 1) % timestamps.length;
+        return dp;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: ParseBenchmark.java
+ * Description: Benchmarks the parsing of vmstat sample lines.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the {@link VMStatParser} with the named-group regular expression it replaced.
+ */
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+    @Param({VMStatFixture.PROCPS3, VMStatFixture.PROCPS4})
+    public String fixture;
+
+    private String[] lines;
+    private int next = 0;
+    private Pattern pattern;
+    private VMStatParser parser;
+    private final DataPoint reused = new DataPoint();
+
+    @Setup
+    public void setup() throws IOException {
+        VMStatFixture vmstat = VMStatFixture.load(fixture);
+        VMStat vmStat = new VMStat(vmstat.getHeaders());
+        lines = vmstat.getLines();
+        pattern = Pattern.compile(vmStat.getPattern());
+        parser = new VMStatParser(vmStat);
+    }
+
+    private String nextLine() {
+        String line = lines[next];
+        next = (next + 1) % lines.length;
+        return line;
+    }
+
+    @Benchmark
+    public DataPoint regex() {
+        DataPoint dp = new DataPoint();
+        Matcher matcher = pattern.matcher(nextLine());
+
+        if (matcher.matches()) {
+            dp.setRunnableProcesses(Integer.valueOf(matcher.group("runQueue")));
+            dp.setBlockedProcesses(Integer.valueOf(matcher.group("blockedQueue")));
+            dp.setSwapMemoryKB(Long.valueOf(matcher.group("swapMemory")));
+            dp.setFreeMemoryKB(Long.valueOf(matcher.group("freeMemory")));
+            dp.setBufferMemoryKB(Long.valueOf(matcher.group("buffersMemory")));
+            dp.setCacheMemoryKB(Long.valueOf(matcher.group("cacheMemory")));
+            dp.setSwapFromDiskKB(Long.valueOf(matcher.group("swappedFromDisk")));
+            dp.setSwapToDiskKB(Long.valueOf(matcher.group("swappedToDisk")));
+            dp.setReadDiskKB(Long.valueOf(matcher.group("kbFromDisk")));
+            dp.setWriteDiskKB(Long.valueOf(matcher.group("kbToDisk")));
+            dp.setInterrupts(Long.valueOf(matcher.group("interruptsPerSec")));
+            dp.setContextSwitches(Long.valueOf(matcher.group("contextSwitchesPerSec")));
+            dp.setUserCPUPercent(Integer.valueOf(matcher.group("userCPU")));
+            dp.setSystemCPUPercent(Integer.valueOf(matcher.group("systemCPU")));
+            dp.setIdleCPUPercent(Integer.valueOf(matcher.group("idleCPU")));
+            dp.setWaitCPUPercent(Integer.valueOf(matcher.group("waitCPU")));
+            dp.setStealCPUPercent(Integer.valueOf(matcher.group("stealCPU")));
+            dp.setDateTime(matcher.group("tms"));
+        }
+
+        return dp;
+    }
+
+    /**
+     * The column parser used by Collector.readSamples, see {@link VMStatParser#parse(CharSequence, DataPoint)}.
+     * Allocates a new {@link DataPoint} per line, the same as {@link #regex()}.
+     */
+    @Benchmark
+    public DataPoint columns() {
+        return parser.parse(nextLine());
+    }
+
+    @Benchmark
+    public DataPoint columnsReused() {
+        parser.parse(nextLine(), reused);
+        return reused;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: QuantileSketchBenchmark.java
+ * Description: Benchmarks adding to and merging quantile sketches.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * Measures adding a sample to the {@link SystemQuantiles} of a system,
+ * and merging the last hour of many systems into fleet-wide percentiles.
+ */
+@State(Scope.Thread)
+public class QuantileSketchBenchmark {
+
+    @Param({"300", "5000"})
+    public int systems;
+
+    private DataPoint[] samples;
+    private SystemQuantiles[] quantiles;
+    private final QuantileSketch fleet = new QuantileSketch(FleetMetric.RUN_QUEUE.getHighestValue());
+    private final long[] values = new long[3];
+    private final double[] percentiles = { 0.5, 0.95, 0.99 };
+    private int next = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        VMStatFixture vmstat = VMStatFixture.load(VMStatFixture.PROCPS3);
+        VMStatParser parser = new VMStatParser(new VMStat(vmstat.getHeaders()));
+        String[] lines = vmstat.getLines();
+        samples = new DataPoint[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            samples[i] = parser.parse(lines[i]);
+        }
+
+        // An hour of samples at 1 second per system, the fixture shifted in time and value
+        quantiles = new SystemQuantiles[systems];
+        DataPoint dp = new DataPoint();
+        for (int s = 0; s < systems; s++) {
+            quantiles[s] = new SystemQuantiles();
+            for (int i = 0; i < 3600; i++) {
+                DataPoint sample = samples[(s + i) % samples.length];
+                dp.setDateTime(i * 1000L);
+                dp.setWaitCPUPercent(sample.getWaitCPUPercent() + s % 10);
+                dp.setRunnableProcesses(sample.getRunnableProcesses() + s % 50);
+                quantiles[s].add(dp);
+            }
+        }
+    }
+
+    @Benchmark
+    public SystemQuantiles add() {
+        SystemQuantiles system = quantiles[next];
+        system.add(samples[next % samples.length]);
+        if (++next == systems) {
+            next = 0;
+        }
+        return system;
+    }
+
+    @Benchmark
+    public long[] mergeFleet() {
+        fleet.clear();
+        for (SystemQuantiles system : quantiles) {
+            system.mergeInto(FleetMetric.RUN_QUEUE, fleet);
+        }
+        fleet.getQuantiles(percentiles, values);
+        return values;
+    }
+}
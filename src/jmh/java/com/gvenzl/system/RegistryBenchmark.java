@@ -0,0 +1,107 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: RegistryBenchmark.java
+ * Description: Concurrent reads and writes of the system registry.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Broadcasts to and looks up systems in a {@link Registry} while another thread adds and removes systems,
+ * the way the FX thread adds and removes systems while collectors and the fleet panel read them.
+ * Measures the throughput only, the consistency of the snapshots is checked by {@code RegistryTest}.
+ */
+@State(Scope.Group)
+public class RegistryBenchmark {
+
+    @Param({"300", "5000"})
+    public int systems;
+
+    private final Registry<String> registry = new Registry<>();
+    private String[] names;
+
+    @Setup
+    public void setup() {
+        names = new String[systems * 2];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "system-%05d".formatted(i);
+        }
+        for (int i = 0; i < systems; i++) {
+            registry.put(names[i * 2], names[i * 2]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+    }
+
+    /**
+     * Adds or removes one of the odd systems, the even ones are always registered.
+     */
+    @Benchmark
+    @Group("stress")
+    @GroupThreads(1)
+    public Object write(Cursor cursor) {
+        String name = names[cursor.next * 2 + 1];
+        if (++cursor.next == systems) {
+            cursor.next = 0;
+        }
+        return null == registry.remove(name) ? registry.put(name, name) : name;
+    }
+
+    /**
+     * Iterates over all systems and their names.
+     */
+    @Benchmark
+    @Group("stress")
+    @GroupThreads(2)
+    public int broadcast() {
+        return iterate(registry.values()) + iterate(registry.names());
+    }
+
+    private static int iterate(Iterable<String> snapshot) {
+        int length = 0;
+        for (String value : snapshot) {
+            length += value.length();
+        }
+        return length;
+    }
+
+    /**
+     * Looks up one of the systems that are always registered.
+     */
+    @Benchmark
+    @Group("stress")
+    @GroupThreads(1)
+    public String lookup(Cursor cursor) {
+        String name = names[cursor.next * 2];
+        if (++cursor.next == systems) {
+            cursor.next = 0;
+        }
+        return registry.get(name);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: VMStatBenchmark.java
+ * Description: Benchmarks the vmstat header detection.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+@State(Scope.Thread)
+public class VMStatBenchmark {
+
+    @Param({VMStatFixture.PROCPS3, VMStatFixture.PROCPS4})
+    public String fixture;
+
+    private String headers;
+
+    @Setup
+    public void setup() throws IOException {
+        headers = VMStatFixture.load(fixture).getHeaders();
+    }
+
+    @Benchmark
+    public VMStat detectHeaders() {
+        return new VMStat(headers);
+    }
+}
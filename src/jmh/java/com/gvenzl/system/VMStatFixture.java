@@ -0,0 +1,74 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: VMStatFixture.java
+ * Description: Recorded vmstat output used by the benchmarks.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * A recorded `vmstat -tn` output, split into the two header lines and the sample lines.
+ */
+public class VMStatFixture {
+
+    /** vmstat from procps-ng 3.x, without the `gu` column. */
+    public static final String PROCPS3 = "vmstat-procps3.txt";
+    /** vmstat from procps-ng 4.x, with the `gu` column. */
+    public static final String PROCPS4 = "vmstat-procps4.txt";
+
+    private final String headers;
+    private final String[] lines;
+
+    private VMStatFixture(String headers, String[] lines) {
+        this.headers = headers;
+        this.lines = lines;
+    }
+
+    public static VMStatFixture load(String name) throws IOException {
+        try (InputStream in = Objects.requireNonNull(
+                VMStatFixture.class.getResourceAsStream("/vmstat/" + name), "Fixture not found: " + name);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+
+            List<String> all = reader.lines().collect(Collectors.toList());
+            return new VMStatFixture(
+                    all.get(0) + "\n" + all.get(1),
+                    all.subList(2, all.size()).toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Returns the two header lines as printed by `vmstat`.
+     * @return the header lines
+     */
+    public String getHeaders() {
+        return headers;
+    }
+
+    public String[] getLines() {
+        return lines;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: ChartRenderBenchmark.java
+ * Description: Benchmarks the per frame work of the StackedAreaChart and the TimeSeriesChart.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system.ui;
+
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks the work per new sample and frame of a 4 series CPU chart holding a full window of samples,
+ * once with the {@link javafx.scene.chart.StackedAreaChart} series that were used before and once with the {@link TimeSeriesData}
+ * of the {@link TimeSeriesChart}, up to the point of handing the coordinates to the {@link javafx.scene.canvas.GraphicsContext}.
+ * <p>
+ * Does not require the JavaFX toolkit to be running. The StackedAreaChart is therefore only charged for adding the points
+ * and for reading their values to lay them out, not for the layout and CSS passes over its nodes,
+ * so its numbers are a lower bound.
+ * The decimated variant reduces the samples to the {@link #WIDTH} of the chart first.
+ */
+@State(Scope.Thread)
+public class ChartRenderBenchmark {
+
+    private static final int SERIES = 4;
+    private static final double WIDTH = 500;
+    private static final double HEIGHT = 100;
+
+    @Param({ "30", "3600" })
+    public int points;
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss");
+    private long time;
+
+    private List<XYChart.Series<String, Number>> chartSeries;
+    private double[] chartX;
+    private double[] chartY;
+
+    private TimeSeriesData data;
+    private TimeSeriesDecimator decimator;
+    private double[] xs;
+    private double[][] ys;
+    private double[] polygonX;
+    private double[] polygonY;
+    private final double[] sample = new double[SERIES];
+
+    @Setup
+    public void setup() {
+        time = 1_742_202_000_000L;
+        chartSeries = new ArrayList<>();
+        for (int series = 0; series < SERIES; series++) {
+            chartSeries.add(new XYChart.Series<>());
+        }
+        chartX = new double[points + 1];
+        chartY = new double[points + 1];
+
+        data = new TimeSeriesData(SERIES, points + 1);
+        decimator = new TimeSeriesDecimator(data);
+        decimator.setTargetBuckets((int) WIDTH);
+        xs = new double[(points + 1) * 2];
+        ys = new double[SERIES][(points + 1) * 2];
+        polygonX = new double[(points + 1) * 4];
+        polygonY = new double[(points + 1) * 4];
+
+        for (int i = 0; i <= points; i++) {
+            stackedAreaChart(null);
+            timeSeriesChartDecimated(null);
+        }
+    }
+
+    private int value(int series) {
+        return (int) ((time / 1000 * (series + 7)) % 25);
+    }
+
+    @Benchmark
+    public void stackedAreaChart(Blackhole bh) {
+        time += 1000;
+        String timeSlice = dateFormat.format(time);
+        for (int series = 0; series < SERIES; series++) {
+            ObservableList<XYChart.Data<String, Number>> seriesData = chartSeries.get(series).getData();
+            seriesData.add(new XYChart.Data<>(timeSlice, value(series)));
+            while (seriesData.size() > points + 1) {
+                seriesData.removeFirst();
+            }
+        }
+
+        // Stack the values and map them onto the plot area, as the chart does in its layout
+        int size = chartSeries.getFirst().getData().size();
+        double xScale = WIDTH / Math.max(size - 1, 1);
+        for (int i = 0; i < size; i++) {
+            chartY[i] = 0;
+        }
+        for (XYChart.Series<String, Number> series : chartSeries) {
+            ObservableList<XYChart.Data<String, Number>> seriesData = series.getData();
+            for (int i = 0; i < size; i++) {
+                chartX[i] = i * xScale;
+                chartY[i] += seriesData.get(i).getYValue().doubleValue();
+            }
+        }
+        if (null != bh) {
+            bh.consume(chartX);
+            bh.consume(chartY);
+        }
+    }
+
+    @Benchmark
+    public void timeSeriesChart(Blackhole bh) {
+        time += 1000;
+        for (int series = 0; series < SERIES; series++) {
+            sample[series] = value(series);
+        }
+        data.add(time, sample);
+        stack(data);
+        if (null != bh) {
+            bh.consume(polygonX);
+            bh.consume(polygonY);
+        }
+    }
+
+    @Benchmark
+    public void timeSeriesChartDecimated(Blackhole bh) {
+        time += 1000;
+        for (int series = 0; series < SERIES; series++) {
+            sample[series] = value(series);
+        }
+        data.add(time, sample);
+        decimator.add(time, sample);
+        stack(decimator.getPoints());
+        if (null != bh) {
+            bh.consume(polygonX);
+            bh.consume(polygonY);
+        }
+    }
+
+    private void stack(TimeSeriesData points) {
+        int size = points.size();
+        double upperBound = TimeSeriesChart.getTickUnit(points.getMaxStacked() / 4) * 4;
+        points.stack(0, WIDTH, HEIGHT, HEIGHT, upperBound, xs, ys);
+        for (int series = 0; series < SERIES; series++) {
+            for (int i = 0; i < size; i++) {
+                polygonX[i] = xs[i];
+                polygonY[i] = ys[series][i];
+                int j = size * 2 - 1 - i;
+                polygonX[j] = xs[i];
+                polygonY[j] = series > 0 ? ys[series - 1][i] : HEIGHT;
+            }
+        }
+    }
+}
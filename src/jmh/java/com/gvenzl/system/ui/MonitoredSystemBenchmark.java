@@ -0,0 +1,75 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: MonitoredSystemBenchmark.java
+ * Description: Benchmarks the per sample work of the MonitoredSystem.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system.ui;
+
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.VMStat;
+import com.gvenzl.system.VMStatFixture;
+import com.gvenzl.system.VMStatParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+/**
+ * Benchmarks the chart data preparation up to the point of handing the values to the {@link TimeSeriesChart}s.
+ * Does not require the JavaFX toolkit to be running.
+ */
+@State(Scope.Thread)
+public class MonitoredSystemBenchmark {
+
+    private static final long TOTAL_MEMORY_KB = 16_384_000;
+
+    private String[] lines;
+    private DataPoint[] dataPoints;
+    private int next = 0;
+    private final double[] cpu = new double[4];
+    private final double[] memory = new double[3];
+    private final double[] disk = new double[2];
+
+    @Setup
+    public void setup() throws IOException {
+        VMStatFixture vmstat = VMStatFixture.load(VMStatFixture.PROCPS4);
+        VMStatParser parser = new VMStatParser(new VMStat(vmstat.getHeaders()));
+        lines = vmstat.getLines();
+        dataPoints = new DataPoint[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            dataPoints[i] = parser.parse(lines[i]);
+        }
+    }
+
+    @Benchmark
+    public void chartData(Blackhole bh) {
+        DataPoint dp = dataPoints[next];
+        next = (next + 1) % dataPoints.length;
+
+        MonitoredSystem.cpuChartData(dp, cpu);
+        MonitoredSystem.memoryChartData(dp, TOTAL_MEMORY_KB, memory);
+        MonitoredSystem.diskChartData(dp, disk);
+        bh.consume(cpu);
+        bh.consume(memory);
+        bh.consume(disk);
+    }
+}
@@ -21,8 +21,21 @@
 
 package com.gvenzl;
 
+import com.gvenzl.record.RecordingConverter;
+
+import java.util.Arrays;
+
 public class AppLauncher {
     public static void main (String[] args) {
-        SysMonitor.main(args);
+        // Dispatch before touching SysMonitor so that headless mode never loads JavaFX
+        if (args.length > 0 && args[0].equals("--headless")) {
+            Headless.main(Arrays.copyOfRange(args, 1, args.length));
+        }
+        else if (args.length > 0 && args[0].equals("--convert")) {
+            RecordingConverter.main(Arrays.copyOfRange(args, 1, args.length));
+        }
+        else {
+            SysMonitor.main(args);
+        }
     }
 }
@@ -0,0 +1,213 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: Headless.java
+ * Description: Runs the collectors without the graphical user interface
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.collect.CollectorEngine;
+import com.gvenzl.config.Config;
+import com.gvenzl.config.OSInfoCache;
+import com.gvenzl.connect.Connection;
+import com.gvenzl.log.SysLogger;
+import com.gvenzl.metrics.MetricsExporter;
+import com.gvenzl.record.RecordFormat;
+import com.gvenzl.record.Recorder;
+import com.gvenzl.record.RecordingService;
+import com.gvenzl.system.Registry;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless mode of SysMonitor.
+ * Starts a collector for every configured system and records the vmstat output into log files,
+ * without starting JavaFX. Runs until the JVM is shut down, e.g. via Ctrl+C or SIGTERM.
+ * <p>
+ * This class must not reference any {@code javafx.*} class, directly or via the UI classes,
+ * so that the JavaFX toolkit is never loaded.
+ */
+public class Headless {
+
+    private final List<Recorder> recorders = new ArrayList<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private String recordDirPath;
+    private String prefix = "";
+    private RecordFormat format;
+    private Integer flushInterval;
+    private boolean fsync = false;
+    private boolean record = true;
+    private Integer metricsPort;
+    private MetricsExporter metricsExporter;
+
+    public static void main(String[] args) {
+        Headless headless = new Headless();
+        try {
+            headless.parseArgs(args);
+            headless.run();
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(1);
+        }
+        catch (IOException e) {
+            System.err.printf("Cannot start headless mode: %s%n", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("""
+                Usage: sysmonitor --headless [options]
+                  --record-dir <path>  directory to write the recordings into (default: configured record directory)
+                  --prefix <prefix>    prefix of the recording file names
+                  --format <format>    format of the recordings, text or binary (default: configured record format)
+                  --flush-interval <s> seconds between flushes of the recordings, 0 to flush immediately
+                  --fsync              force the recordings to disk on every flush
+                  --no-record          do not record, only collect
+                  --metrics-port <p>   serve the metrics in the OpenMetrics format at http://<host>:<p>/metrics
+                                       and the live samples to other SysMonitors at http://<host>:<p>/stream""");
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--record-dir" -> recordDirPath = nextArg(args, ++i);
+                case "--prefix" -> prefix = nextArg(args, ++i);
+                case "--format" -> format = RecordFormat.fromName(nextArg(args, ++i));
+                case "--flush-interval" -> flushInterval = Integer.parseInt(nextArg(args, ++i));
+                case "--fsync" -> fsync = true;
+                case "--no-record" -> record = false;
+                case "--metrics-port" -> metricsPort = Integer.parseInt(nextArg(args, ++i));
+                default -> throw new IllegalArgumentException("Unknown option: %s".formatted(args[i]));
+            }
+        }
+    }
+
+    private static String nextArg(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for option: %s".formatted(args[i - 1]));
+        }
+        return args[i];
+    }
+
+    /**
+     * Starts all collectors and blocks until the JVM is shut down.
+     * @throws IOException if the configuration cannot be read
+     */
+    private void run() throws IOException {
+        Registry<Connection> systems = Config.getInstance().getSystems();
+        if (systems.isEmpty()) {
+            throw new IOException("No systems configured, add systems via the graphical user interface first.");
+        }
+
+        if (null == recordDirPath) {
+            recordDirPath = Recorder.getRecordPath();
+        }
+        if (null == format) {
+            format = Recorder.getRecordFormat();
+        }
+        if (null != flushInterval || fsync) {
+            Config config = Config.getInstance();
+            RecordingService.getInstance().updateSettings(
+                    null != flushInterval ? flushInterval : config.getRecordFlushInterval(),
+                    fsync || config.isRecordFsync());
+        }
+
+        if (null != metricsPort) {
+            // The server writes the headers and the body separately, without TCP_NODELAY the body waits
+            // for the delayed ACK of the headers on kept-alive connections, adding 40 ms to every scrape.
+            // Only read when the first server is created, an explicit setting takes precedence.
+            if (null == System.getProperty("sun.net.httpserver.nodelay")) {
+                System.setProperty("sun.net.httpserver.nodelay", "true");
+            }
+            metricsExporter = new MetricsExporter(new InetSocketAddress(metricsPort),
+                    Duration.ofSeconds(Config.getInstance().getRefreshCycle()));
+            metricsExporter.start();
+            System.out.printf("Serving metrics at http://localhost:%d%s%n",
+                    metricsExporter.getAddress().getPort(), MetricsExporter.PATH);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "Headless shutdown"));
+
+        for (Connection conn : systems) {
+            Recorder recorder = null;
+            if (record) {
+                recorder = Recorder.open(Recorder.getRecordFile(recordDirPath, prefix, conn.getName(), format), format);
+                synchronized (recorders) {
+                    recorders.add(recorder);
+                }
+            }
+            Collector collector = CollectorEngine.getInstance().start(conn, recorder);
+            if (null != metricsExporter) {
+                collector.addListener(metricsExporter.getSampleStream());
+            }
+            SysLogger.getInstance().log("Headless: Started collector for: %s".formatted(conn.getName()));
+            System.out.printf("Collecting from %s%s%n", conn.getName(),
+                    null != recorder ? " into " + recorder.getFile() : "");
+        }
+
+        try {
+            stopped.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops all collectors, closes the recordings and persists the OS information cache.
+     */
+    private void stop() {
+        if (null != metricsExporter) {
+            metricsExporter.stop();
+        }
+        try {
+            CollectorEngine.getInstance().stopAll(Duration.ofSeconds(Config.getInstance().getRefreshCycle() + 2));
+        }
+        catch (IOException e) {
+            System.err.printf("Cannot read configuration: %s%n", e.getMessage());
+        }
+
+        synchronized (recorders) {
+            for (Recorder recorder : recorders) {
+                recorder.close();
+            }
+            recorders.clear();
+        }
+        if (!RecordingService.getInstance().shutdown(Duration.ofSeconds(30))) {
+            System.err.println("Recordings could not be written completely in time");
+        }
+
+        try {
+            OSInfoCache.getInstance().store();
+        }
+        catch (IOException e) {
+            System.err.printf("Cannot store OS information cache: %s%n", e.getMessage());
+        }
+        SysLogger.getInstance().shutdown(Duration.ofSeconds(5));
+        stopped.countDown();
+    }
+}
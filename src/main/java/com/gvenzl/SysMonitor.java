@@ -21,45 +21,72 @@
 
 package com.gvenzl;
 
+import com.gvenzl.collect.CollectorEngine;
 import com.gvenzl.config.Config;
+import com.gvenzl.config.OSInfoCache;
 import com.gvenzl.connect.Connection;
+import com.gvenzl.connect.ReplayConnection;
+import com.gvenzl.connect.SampleSource;
+import com.gvenzl.connect.StreamConnection;
 import com.gvenzl.log.SysLogger;
+import com.gvenzl.record.RecordingService;
 import com.gvenzl.system.Systems;
+import com.gvenzl.system.ui.FleetPanel;
 import com.gvenzl.system.ui.MonitoredSystem;
+import com.gvenzl.system.ui.MonitoredSystemCell;
 import com.gvenzl.system.ui.NewSystem;
 import com.gvenzl.system.ui.Record;
+import com.gvenzl.system.ui.UIUpdateCoordinator;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.ListView;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.RadioMenuItem;
+import javafx.scene.control.TextInputDialog;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
-import javafx.scene.layout.AnchorPane;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 
 public class SysMonitor extends Application {
 
     private static final String VERSION = "1.0.1";
-    public static final double MONITORED_SYSTEM_HEIGHT = 530;
+    private static final double MONITORED_SYSTEM_HEIGHT = 530;
+    private static final int STREAM_TIMEOUT_MS = 5000;
     private static Stage newSystemDialog = null;
     private static Stage preferencesDialog = null;
     private static Stage recordDialog = null;
     private static Alert aboutDialog = null;
     @FXML
     public MenuItem stopRecordMenu;
+    @FXML
+    public RadioMenuItem replaySpeed10x;
+    @FXML
+    public RadioMenuItem replaySpeedMax;
+    @FXML
+    public CheckMenuItem replayPause;
+    // Looked up in the scene, the FXML controller is a different instance than the application
+    private FleetPanel fleetPanel = null;
 
     public static void main(String[] args) {
         Application.launch(args);
@@ -88,6 +115,16 @@ public class SysMonitor extends Application {
         stage.setScene(scene);
         stage.show();
 
+        // Draw the samples of all systems once per pulse
+        UIUpdateCoordinator.getInstance().start();
+        fleetPanel = (FleetPanel) scene.lookup("#fleetPanel");
+        fleetPanel.start();
+
+        // Only the visible systems get a cell with charts, all cells have the height of a system
+        ListView<MonitoredSystem> systemList = getSystemList();
+        systemList.setFixedCellSize(MONITORED_SYSTEM_HEIGHT);
+        systemList.setCellFactory(list -> new MonitoredSystemCell());
+
         // If no systems are found in the config yet (brand-new invocation), open "Add system" window)
         if (Objects.requireNonNull(Config.getInstance()).getSystems().isEmpty()) {
             openAddSystemWindow();
@@ -95,34 +132,32 @@ public class SysMonitor extends Application {
         // Systems are present, open them
         else {
             // Add previously stored systems to the scene
-            for (Map.Entry<String, Connection> system : Objects.requireNonNull(Config.getInstance()).getSystems().entrySet()) {
-                addMonitoredSystemNode(system.getValue());
+            for (Connection system : Objects.requireNonNull(Config.getInstance()).getSystems()) {
+                addMonitoredSystemNode(system);
             }
         }
     }
 
     /**
      * Adds a new {@link MonitoredSystem} to the window.
-     * @param conn the {@link Connection} to the system.
+     * @param source the {@link SampleSource} of the system.
      * @throws IOException any IO error that may occur
      */
-    private void addMonitoredSystemNode(Connection conn) throws IOException {
-        FXMLLoader loader = new FXMLLoader(Objects.requireNonNull(
-                                    getClass().getClassLoader().getResource("MonitoredSystem.fxml")));
-        Node monitoredSystem = loader.load();
-        monitoredSystem.setId(conn.getName());
-        MonitoredSystem monitoredSystemController = loader.getController();
-        monitoredSystemController.setConnection(conn);
-        monitoredSystemController.start();
-        Systems.getInstance().addSystem(monitoredSystemController);
-
-        // Get mainPane from parent
-        AnchorPane mainPane = (AnchorPane) Stage.getWindows().getFirst().getScene().lookup("#mainPane");
-
-        AnchorPane.setTopAnchor(monitoredSystem, ((mainPane.getChildren().size()) * MONITORED_SYSTEM_HEIGHT)); // for each system add its height
-        AnchorPane.setLeftAnchor(monitoredSystem, 0.0);
-        AnchorPane.setRightAnchor(monitoredSystem, 0.0);
-        mainPane.getChildren().add(monitoredSystem);
+    private void addMonitoredSystemNode(SampleSource source) throws IOException {
+        MonitoredSystem monitoredSystem = new MonitoredSystem(source);
+        monitoredSystem.start();
+        Systems.getInstance().addSystem(monitoredSystem);
+
+        // The list creates the charts once the system scrolls into view
+        getSystemList().getItems().add(monitoredSystem);
+    }
+
+    /**
+     * Returns the list of the systems in the window.
+     */
+    @SuppressWarnings("unchecked")
+    private ListView<MonitoredSystem> getSystemList() {
+        return (ListView<MonitoredSystem>) Stage.getWindows().getFirst().getScene().lookup("#systemList");
     }
 
     @FXML
@@ -176,12 +211,19 @@ public class SysMonitor extends Application {
     @Override
     public void stop() {
         try {
-            for (Map.Entry<String, MonitoredSystem> sys : Systems.getInstance().getSystems().entrySet()) {
-                SysLogger.getInstance().log("SysMonitor: Sending stop signal to: %s".formatted(sys.getKey()));
-                sys.getValue().terminate();
-                sys.getValue().join(Config.getInstance().getRefreshCycle()+2);
+            UIUpdateCoordinator.getInstance().stop();
+            if (null != fleetPanel) {
+                fleetPanel.stop();
+            }
+            for (MonitoredSystem system : Systems.getInstance().getSystems()) {
+                SysLogger.getInstance().log("SysMonitor: Sending stop signal to: %s".formatted(system.getName()));
+                system.terminate();
             }
-            Config.getInstance().store();
+            CollectorEngine.getInstance().stopAll(Duration.ofSeconds(Config.getInstance().getRefreshCycle() + 2));
+            RecordingService.getInstance().shutdown(Duration.ofSeconds(30));
+            Config.getInstance().flush();
+            OSInfoCache.getInstance().store();
+            SysLogger.getInstance().shutdown(Duration.ofSeconds(5));
             super.stop();
         }
         catch (Exception e) {
@@ -251,8 +293,8 @@ public class SysMonitor extends Application {
 
     public void record() {
         try {
-            for (Map.Entry<String, MonitoredSystem> system : Systems.getInstance().getSystems().entrySet()) {
-                system.getValue().startRecording();
+            for (MonitoredSystem system : Systems.getInstance().getSystems()) {
+                system.startRecording();
             }
             stopRecordMenu.setDisable(false);
         }
@@ -292,8 +334,8 @@ public class SysMonitor extends Application {
             if (null != record && !record.isAbort()) {
                 // Tell threads to start recording
                 try {
-                    for (Map.Entry<String, MonitoredSystem> system : Systems.getInstance().getSystems().entrySet()) {
-                        system.getValue().startRecording(record.path.getText(), record.prefix.getText());
+                    for (MonitoredSystem system : Systems.getInstance().getSystems()) {
+                        system.startRecording(record.path.getText(), record.prefix.getText(), record.getFormat());
                     }
                     stopRecordMenu.setDisable(false);
                 }
@@ -310,14 +352,130 @@ public class SysMonitor extends Application {
     }
 
     public void stopRecord() {
-        try {
-            for (Map.Entry<String, MonitoredSystem> system : Systems.getInstance().getSystems().entrySet()) {
-                system.getValue().stopRecording();
+        for (MonitoredSystem system : Systems.getInstance().getSystems()) {
+            system.stopRecording();
+        }
+        stopRecordMenu.setDisable(true);
+    }
+
+    public void connectToStream() {
+        TextInputDialog dialog = new TextInputDialog("http://localhost:9300");
+        dialog.setTitle("Connect to Stream");
+        dialog.setHeaderText("Show the systems streamed by another SysMonitor,\nstarted with --headless --metrics-port <port>");
+        dialog.setContentText("Address:");
+        dialog.showAndWait().ifPresent(text -> {
+            try {
+                URI server = new URI(text.trim());
+                if (!"http".equals(server.getScheme()) || null == server.getHost()) {
+                    throw new URISyntaxException(text, "Expected http://<host>:<port>");
+                }
+                List<String> names = StreamConnection.listSystems(server, STREAM_TIMEOUT_MS);
+                List<String> skipped = new ArrayList<>();
+                for (String name : names) {
+                    if (Systems.getInstance().getSystems().contains(name)) {
+                        skipped.add(name);
+                    }
+                    else {
+                        addMonitoredSystemNode(new StreamConnection(server, name));
+                    }
+                }
+                if (names.isEmpty()) {
+                    new Alert(Alert.AlertType.INFORMATION, "%s does not stream any systems.".formatted(server), ButtonType.OK).show();
+                }
+                else if (!skipped.isEmpty()) {
+                    new Alert(Alert.AlertType.INFORMATION, "Already monitored: %s".formatted(String.join(", ", skipped)), ButtonType.OK).show();
+                }
             }
-            stopRecordMenu.setDisable(true);
+            catch (URISyntaxException e) {
+                new Alert(Alert.AlertType.ERROR, "Invalid address: '%s'".formatted(text), ButtonType.OK).show();
+            }
+            catch (IOException e) {
+                new Alert(Alert.AlertType.ERROR, "Cannot connect to stream: %s".formatted(e.getMessage()), ButtonType.OK).show();
+            }
+        });
+    }
+
+    public void openRecording() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open Recording");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Recordings", "*.log"));
+        File file = fileChooser.showOpenDialog(Stage.getWindows().getFirst());
+        if (null == file) {
+            return;
+        }
+
+        ReplayConnection conn = new ReplayConnection(file.toPath());
+        if (Systems.getInstance().getSystems().contains(conn.getName())) {
+            new Alert(Alert.AlertType.ERROR, "Recording '%s' is already open.".formatted(file.getName()), ButtonType.OK).show();
+            return;
+        }
+        conn.setSpeed(getReplaySpeed());
+        conn.setPaused(replayPause.isSelected());
+
+        try {
+            addMonitoredSystemNode(conn);
         }
         catch (IOException e) {
-            new Alert(Alert.AlertType.ERROR, "Cannot stop recording due to: %s".formatted(e.getMessage()), ButtonType.OK).show();
+            new Alert(Alert.AlertType.ERROR, "Cannot open recording: %s".formatted(e.getMessage()), ButtonType.OK).show();
+        }
+    }
+
+    public void setReplaySpeed() {
+        double speed = getReplaySpeed();
+        for (ReplayConnection conn : getReplayConnections()) {
+            conn.setSpeed(speed);
+        }
+    }
+
+    public void pauseReplay() {
+        for (ReplayConnection conn : getReplayConnections()) {
+            conn.setPaused(replayPause.isSelected());
+        }
+    }
+
+    public void seekReplay() {
+        List<ReplayConnection> connections = getReplayConnections();
+        if (connections.isEmpty()) {
+            return;
+        }
+
+        // Start from the position of the first replay
+        long current = connections.getFirst().getCurrentTime();
+        TextInputDialog dialog = new TextInputDialog(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss")
+                .format(current != Long.MIN_VALUE ? new Date(current) : new Date()));
+        dialog.setTitle("Seek");
+        dialog.setHeaderText("Continue all replays at:");
+        dialog.setContentText("Time (yyyy-MM-dd HH:mm:ss):");
+        dialog.showAndWait().ifPresent(text -> {
+            try {
+                long time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(text.trim()).getTime();
+                for (ReplayConnection conn : connections) {
+                    conn.seek(time);
+                }
+            }
+            catch (ParseException e) {
+                new Alert(Alert.AlertType.ERROR, "Invalid time: '%s'".formatted(text), ButtonType.OK).show();
+            }
+        });
+    }
+
+    private double getReplaySpeed() {
+        if (replaySpeedMax.isSelected()) {
+            return ReplayConnection.MAX_SPEED;
+        }
+        else if (replaySpeed10x.isSelected()) {
+            return 10;
+        }
+        return 1;
+    }
+
+    private List<ReplayConnection> getReplayConnections() {
+        List<ReplayConnection> connections = new ArrayList<>();
+        for (MonitoredSystem system : Systems.getInstance().getSystems()) {
+            if (system.getSource() instanceof ReplayConnection replay) {
+                connections.add(replay);
+            }
         }
+        return connections;
     }
 }
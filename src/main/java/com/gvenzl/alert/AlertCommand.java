@@ -0,0 +1,95 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: AlertCommand.java
+ * Description: Runs a command for every raised and cleared alert.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.alert;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.log.LogLevel;
+import com.gvenzl.log.SysLogger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a command for every raised and cleared alert, e.g. to send a notification.
+ * The command is run by the system shell with the alert in the environment variables
+ * {@code SYSMONITOR_SYSTEM}, {@code SYSMONITOR_ALERT}, {@code SYSMONITOR_STATE} ({@code raised} or {@code cleared}),
+ * {@code SYSMONITOR_METRIC} and {@code SYSMONITOR_VALUE}.
+ * <p>
+ * The command runs on its own virtual thread and is destroyed if it does not finish within {@value #TIMEOUT_SECONDS} seconds,
+ * so that a hanging command never delays the collector.
+ */
+public class AlertCommand implements AlertListener {
+
+    static final int TIMEOUT_SECONDS = 30;
+
+    private final String command;
+
+    public AlertCommand(String command) {
+        this.command = command;
+    }
+
+    @Override
+    public void raised(Collector collector, AlertRule rule, long value) {
+        run(collector.getName(), rule, "raised", value);
+    }
+
+    @Override
+    public void cleared(Collector collector, AlertRule rule, long value) {
+        run(collector.getName(), rule, "cleared", value);
+    }
+
+    private void run(String system, AlertRule rule, String state, long value) {
+        Thread.ofVirtual().name("Alert command: " + system).start(() -> {
+            boolean windows = System.getProperty("os.name").toLowerCase().startsWith("windows");
+            ProcessBuilder pb = new ProcessBuilder(windows ? List.of("cmd", "/c", command) : List.of("sh", "-c", command));
+            Map<String, String> env = pb.environment();
+            env.put("SYSMONITOR_SYSTEM", system);
+            env.put("SYSMONITOR_ALERT", rule.getName());
+            env.put("SYSMONITOR_STATE", state);
+            env.put("SYSMONITOR_METRIC", rule.getMetric().getKey());
+            env.put("SYSMONITOR_VALUE", String.valueOf(value));
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            try {
+                Process process = pb.start();
+                if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    SysLogger.getInstance().log(LogLevel.ERROR, "alert command",
+                            system + ": Alert command did not finish within %d seconds".formatted(TIMEOUT_SECONDS));
+                }
+                else if (process.exitValue() != 0) {
+                    SysLogger.getInstance().log(LogLevel.ERROR, "alert command",
+                            system + ": Alert command failed with exit code %d".formatted(process.exitValue()));
+                }
+            }
+            catch (IOException e) {
+                SysLogger.getInstance().log(LogLevel.ERROR, "alert command",
+                        system + ": Cannot run alert command: %s".formatted(e.getMessage()));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+}
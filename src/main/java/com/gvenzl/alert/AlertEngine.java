@@ -0,0 +1,222 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: AlertEngine.java
+ * Description: Evaluates the alert rules on every sample of a collector.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.alert;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.collect.SampleListener;
+import com.gvenzl.log.SysLogger;
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.Metric;
+import com.gvenzl.system.OSInfo;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Evaluates the {@link AlertRule}s on every sample of a {@link Collector}, on the collector's thread.
+ * <p>
+ * The rules are compiled once per connect into a single comparison {@code sign * value > bound},
+ * with the CPU multiples resolved for the system, so that a sample costs one history read
+ * and one comparison per rule, without allocations.
+ * Raised and cleared alerts are logged and passed on to the {@link AlertListener}s.
+ */
+public class AlertEngine implements SampleListener {
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final String name;
+    private final CompiledRule[] rules;
+    private final List<AlertListener> listeners = new CopyOnWriteArrayList<>();
+    // Only used by the collector thread
+    private final DataPoint dp = new DataPoint();
+
+    /**
+     * Creates an engine for the rules.
+     * @param collector the {@link Collector} to evaluate the samples of
+     * @param rules the rules
+     */
+    public AlertEngine(Collector collector, List<AlertRule> rules) {
+        this.name = collector.getName();
+        this.rules = new CompiledRule[rules.size()];
+        for (int i = 0; i < this.rules.length; i++) {
+            this.rules[i] = new CompiledRule(rules.get(i));
+        }
+        OSInfo osInfo = collector.getSource().getOsInfo();
+        compile(null != osInfo ? osInfo.getCpus() : 1);
+    }
+
+    public void addListener(AlertListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AlertListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void compile(int cpus) {
+        for (CompiledRule rule : rules) {
+            rule.compile(cpus);
+        }
+    }
+
+    @Override
+    public void connected(Collector collector, OSInfo osInfo) {
+        // The system may have been resized while it was unreachable
+        compile(osInfo.getCpus());
+    }
+
+    @Override
+    public void sample(Collector collector, long sequence, String line) {
+        if (!collector.getHistory().get(sequence, dp)) {
+            return;
+        }
+        evaluate(collector, dp);
+    }
+
+    /**
+     * Evaluates all rules on a sample.
+     * @param collector the {@link Collector} of the sample
+     * @param sample the sample
+     */
+    void evaluate(Collector collector, DataPoint sample) {
+        long time = sample.getDateTimeMillis();
+        for (CompiledRule rule : rules) {
+            long value = rule.metric.get(sample);
+            if (rule.evaluate(value, time)) {
+                notify(collector, rule, value);
+            }
+        }
+    }
+
+    private void notify(Collector collector, CompiledRule rule, long value) {
+        AlertRule alert = rule.rule;
+        if (rule.active) {
+            SysLogger.getInstance().warn(name + ": Alert raised: %s (%s = %d)".formatted(alert, alert.getMetric().getKey(), value));
+        }
+        else {
+            SysLogger.getInstance().log(name + ": Alert cleared: %s (%s = %d)".formatted(alert.getName(), alert.getMetric().getKey(), value));
+        }
+        for (AlertListener listener : listeners) {
+            try {
+                if (rule.active) {
+                    listener.raised(collector, alert, value);
+                }
+                else {
+                    listener.cleared(collector, alert, value);
+                }
+            }
+            catch (RuntimeException e) {
+                SysLogger.getInstance().error(name + ": Alert listener failed: %s".formatted(e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Returns whether the alert of a rule is currently raised.
+     * @param rule the name of the rule
+     * @return true if the alert is raised
+     */
+    public boolean isActive(String rule) {
+        for (CompiledRule compiled : rules) {
+            if (compiled.rule.getName().equals(rule)) {
+                return compiled.active;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A rule and its state, with all comparisons normalized to {@code sign * value > bound}.
+     */
+    private static class CompiledRule {
+
+        private final AlertRule rule;
+        private final Metric metric;
+        private final long sign;
+        private long raiseBound;
+        private long clearBound;
+        private final int raiseSamples;
+        private final long raiseMillis;
+        private final int clearSamples;
+        private final long clearMillis;
+
+        private volatile boolean active = false;
+        private int count = 0;
+        private long since = NO_TIME;
+
+        CompiledRule(AlertRule rule) {
+            this.rule = rule;
+            this.metric = rule.getMetric();
+            this.sign = switch (rule.getOperator()) {
+                case GT, GE -> 1;
+                case LT, LE -> -1;
+            };
+            this.raiseSamples = rule.getRaiseSamples();
+            this.raiseMillis = rule.getRaiseMillis();
+            this.clearSamples = rule.getClearSamples();
+            this.clearMillis = rule.getClearMillis();
+        }
+
+        void compile(int cpus) {
+            raiseBound = bound(rule.getThresholdValue(cpus));
+            clearBound = bound(rule.getClearValue(cpus));
+        }
+
+        /**
+         * v > t, v >= t as v > t - 1, v < t as -v > -t, v <= t as -v > -t - 1
+         */
+        private long bound(long threshold) {
+            return switch (rule.getOperator()) {
+                case GT -> threshold;
+                case GE -> threshold - 1;
+                case LT -> -threshold;
+                case LE -> -threshold - 1;
+            };
+        }
+
+        /**
+         * Evaluates a sample.
+         * @return true if the alert was raised or cleared by the sample
+         */
+        boolean evaluate(long value, long time) {
+            long signed = sign * value;
+            // While raised, count the samples that no longer meet the clear threshold
+            boolean counts = active ? signed <= clearBound : signed > raiseBound;
+            if (!counts) {
+                count = 0;
+                since = NO_TIME;
+                return false;
+            }
+            if (count++ == 0) {
+                since = time;
+            }
+            if (count >= (active ? clearSamples : raiseSamples)
+                    && time - since >= (active ? clearMillis : raiseMillis)) {
+                active = !active;
+                count = 0;
+                since = NO_TIME;
+                return true;
+            }
+            return false;
+        }
+    }
+}
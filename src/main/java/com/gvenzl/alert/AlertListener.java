@@ -0,0 +1,47 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: AlertListener.java
+ * Description: Receives the alerts raised and cleared by an AlertEngine.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.alert;
+
+import com.gvenzl.collect.Collector;
+
+/**
+ * Receives the alerts of an {@link AlertEngine}.
+ * All methods are called on the collector's thread and must not block for long.
+ */
+public interface AlertListener {
+
+    /**
+     * Called when the condition of a rule held for its window.
+     * @param collector the {@link Collector} of the system
+     * @param rule the {@link AlertRule}
+     * @param value the value of the metric of the sample that raised the alert
+     */
+    void raised(Collector collector, AlertRule rule, long value);
+
+    /**
+     * Called when a raised alert is cleared.
+     * @param collector the {@link Collector} of the system
+     * @param rule the {@link AlertRule}
+     * @param value the value of the metric of the sample that cleared the alert
+     */
+    void cleared(Collector collector, AlertRule rule, long value);
+}
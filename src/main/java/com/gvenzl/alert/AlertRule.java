@@ -0,0 +1,233 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: AlertRule.java
+ * Description: A threshold alert rule on one metric.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.alert;
+
+import com.gvenzl.system.Metric;
+
+/**
+ * A threshold rule on one {@link Metric}, e.g. "wait CPU &gt; 30% for 60s, clear below 20%".
+ * <p>
+ * Thresholds are either a number or a multiple of the CPUs of the system, e.g. {@code cpus} or {@code 2*cpus}.
+ * Windows are either a number of consecutive samples, e.g. {@code 10}, or a duration in seconds, e.g. {@code 60s}.
+ * The alert is raised once the condition held for the {@code for} window and cleared once the condition
+ * against the {@code clear} threshold did not hold for the {@code clearFor} window.
+ * A clear threshold below a raise threshold of {@code >} avoids flapping around the threshold.
+ */
+public class AlertRule {
+
+    /**
+     * The comparison of the metric value against the threshold.
+     */
+    public enum Operator {
+        GT(">"), GE(">="), LT("<"), LE("<=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        /**
+         * Returns the operator with the given symbol or name, e.g. {@code >} or {@code gt}.
+         * @param text the symbol or name of the operator
+         * @return the operator
+         * @throws IllegalArgumentException if there is no such operator
+         */
+        public static Operator fromText(String text) {
+            for (Operator op : values()) {
+                if (op.symbol.equals(text) || op.name().equalsIgnoreCase(text)) {
+                    return op;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operator: '%s'".formatted(text));
+        }
+    }
+
+    private static final String CPUS = "cpus";
+
+    private final String name;
+    private final Metric metric;
+    private final Operator operator;
+    private final String threshold;
+    private final String clear;
+    private final String raiseWindow;
+    private final String clearWindow;
+
+    // Parsed form of the thresholds and windows
+    private final long thresholdValue;
+    private final boolean thresholdPerCpu;
+    private final long clearValue;
+    private final boolean clearPerCpu;
+    private final int raiseSamples;
+    private final long raiseMillis;
+    private final int clearSamples;
+    private final long clearMillis;
+
+    /**
+     * Creates a rule.
+     * @param name the name of the rule, shown in the alerts
+     * @param metric the metric to check
+     * @param operator the comparison of the metric against the threshold
+     * @param threshold the threshold, a number or a multiple of {@code cpus}
+     * @param clear the threshold to clear the alert at, null for the raise threshold
+     * @param raiseWindow the window the condition has to hold for, null for one sample
+     * @param clearWindow the window the condition must not hold for to clear the alert, null for one sample
+     * @throws IllegalArgumentException if a threshold or window is invalid
+     */
+    public AlertRule(String name, Metric metric, Operator operator, String threshold, String clear,
+                     String raiseWindow, String clearWindow) {
+        this.name = name;
+        this.metric = metric;
+        this.operator = operator;
+        this.threshold = threshold.trim();
+        this.clear = null == clear || clear.isBlank() ? this.threshold : clear.trim();
+        this.raiseWindow = null == raiseWindow || raiseWindow.isBlank() ? "1" : raiseWindow.trim();
+        this.clearWindow = null == clearWindow || clearWindow.isBlank() ? "1" : clearWindow.trim();
+
+        thresholdPerCpu = this.threshold.endsWith(CPUS);
+        thresholdValue = parseThreshold(this.threshold);
+        clearPerCpu = this.clear.endsWith(CPUS);
+        clearValue = parseThreshold(this.clear);
+        raiseSamples = parseSamples(this.raiseWindow);
+        raiseMillis = parseMillis(this.raiseWindow);
+        clearSamples = parseSamples(this.clearWindow);
+        clearMillis = parseMillis(this.clearWindow);
+    }
+
+    /**
+     * Parses {@code <n>}, {@code cpus} or {@code <n>*cpus}.
+     */
+    private static long parseThreshold(String text) {
+        try {
+            if (text.equals(CPUS)) {
+                return 1;
+            }
+            else if (text.endsWith("*" + CPUS)) {
+                return Long.parseLong(text.substring(0, text.length() - CPUS.length() - 1).trim());
+            }
+            return Long.parseLong(text);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid threshold: '%s', expected a number, 'cpus' or '<n>*cpus'".formatted(text));
+        }
+    }
+
+    private static int parseSamples(String window) {
+        return window.endsWith("s") ? 1 : parseWindow(window, window);
+    }
+
+    private static long parseMillis(String window) {
+        return window.endsWith("s") ? parseWindow(window.substring(0, window.length() - 1), window) * 1000L : 0;
+    }
+
+    private static int parseWindow(String number, String window) {
+        try {
+            int value = Integer.parseInt(number.trim());
+            if (value < 1) {
+                throw new NumberFormatException();
+            }
+            return value;
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid window: '%s', expected samples, e.g. '10', or seconds, e.g. '60s'".formatted(window));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public String getThreshold() {
+        return threshold;
+    }
+
+    public String getClear() {
+        return clear;
+    }
+
+    public String getRaiseWindow() {
+        return raiseWindow;
+    }
+
+    public String getClearWindow() {
+        return clearWindow;
+    }
+
+    /**
+     * Returns the raise threshold for a system.
+     * @param cpus the number of CPUs of the system
+     * @return the threshold
+     */
+    public long getThresholdValue(int cpus) {
+        return thresholdPerCpu ? thresholdValue * Math.max(cpus, 1) : thresholdValue;
+    }
+
+    /**
+     * Returns the clear threshold for a system.
+     * @param cpus the number of CPUs of the system
+     * @return the threshold
+     */
+    public long getClearValue(int cpus) {
+        return clearPerCpu ? clearValue * Math.max(cpus, 1) : clearValue;
+    }
+
+    /**
+     * Returns the number of consecutive samples the condition has to hold for to raise the alert.
+     * @return the number of samples, 1 if the window is given in seconds
+     */
+    public int getRaiseSamples() {
+        return raiseSamples;
+    }
+
+    /**
+     * Returns the time the condition has to hold for to raise the alert.
+     * @return the window in milliseconds, 0 if the window is given in samples
+     */
+    public long getRaiseMillis() {
+        return raiseMillis;
+    }
+
+    public int getClearSamples() {
+        return clearSamples;
+    }
+
+    public long getClearMillis() {
+        return clearMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "%s: %s %s %s for %s".formatted(name, metric.getKey(), operator.getSymbol(), threshold, raiseWindow);
+    }
+}
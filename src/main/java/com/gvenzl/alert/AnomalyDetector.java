@@ -0,0 +1,175 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: AnomalyDetector.java
+ * Description: Flags the samples that leave the usual range of a system, per metric.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.alert;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.collect.SampleListener;
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.Metric;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Flags the samples of a system whose metrics leave their usual range.
+ * <p>
+ * For every {@link Metric}, an exponentially weighted moving mean and variance is kept, so that "usual"
+ * is learned per system and follows slow changes. A value is anomalous if it is more than the z-score threshold
+ * standard deviations away from the mean, compared as {@code diff * diff > z * z * variance} without a square root.
+ * The state is two doubles per metric, a sample is evaluated without allocations.
+ * <p>
+ * An instance is not thread-safe, it is used by the thread of one collector.
+ */
+public class AnomalyDetector implements SampleListener {
+
+    // Integer metrics, a change of less than z units is never anomalous, e.g. on a metric that used to be constant
+    private static final double MIN_VARIANCE = 1;
+
+    private final double zSquared;
+    private final double alpha;
+    private final int warmup;
+    private final double[] mean = new double[Metric.all().length];
+    private final double[] variance = new double[Metric.all().length];
+    private final double[] values = new double[Metric.all().length];
+    private long samples = 0;
+
+    private final List<AnomalyListener> listeners = new CopyOnWriteArrayList<>();
+    // Only used by the collector thread
+    private final DataPoint dp = new DataPoint();
+
+    /**
+     * Creates a detector.
+     * @param zScore the number of standard deviations from the mean beyond which a value is anomalous
+     * @param halfLife the number of samples after which a sample only weighs half in the baseline,
+     *                 also the number of samples learned before anything is flagged
+     */
+    public AnomalyDetector(double zScore, int halfLife) {
+        if (!(zScore > 0) || halfLife < 1) {
+            throw new IllegalArgumentException(
+                    "z-score and half-life must be positive, were %s and %d".formatted(zScore, halfLife));
+        }
+        this.zSquared = zScore * zScore;
+        this.alpha = 1 - Math.pow(0.5, 1d / halfLife);
+        this.warmup = halfLife;
+    }
+
+    public void addListener(AnomalyListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AnomalyListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void sample(Collector collector, long sequence, String line) {
+        if (!collector.getHistory().get(sequence, dp)) {
+            return;
+        }
+        int metrics = update(dp);
+        if (metrics != 0) {
+            for (AnomalyListener listener : listeners) {
+                listener.anomaly(collector, sequence, metrics);
+            }
+        }
+    }
+
+    /**
+     * Evaluates a sample and adds it to the baseline.
+     * @param sample the sample
+     * @return the anomalous metrics, bit {@link Metric#ordinal()} set for each, 0 if none
+     */
+    public int update(DataPoint sample) {
+        read(sample);
+        if (samples++ == 0) {
+            System.arraycopy(values, 0, mean, 0, values.length);
+            return 0;
+        }
+
+        boolean learned = samples > warmup;
+        int anomalies = 0;
+        for (int i = 0; i < values.length; i++) {
+            double diff = values[i] - mean[i];
+            double var = variance[i];
+            if (learned && diff * diff > zSquared * Math.max(var, MIN_VARIANCE)) {
+                anomalies |= 1 << i;
+            }
+            // Incremental EWMA of mean and variance, see Finch, "Incremental calculation of weighted mean and variance"
+            double increment = alpha * diff;
+            mean[i] += increment;
+            variance[i] = (1 - alpha) * (var + diff * increment);
+        }
+        return anomalies;
+    }
+
+    /**
+     * Copies the metrics of a sample in {@link Metric} order.
+     * Unrolled instead of {@link Metric#get(DataPoint)}, so that the loop over the metrics has no switch.
+     */
+    private void read(DataPoint sample) {
+        values[0] = sample.getRunnableProcesses();
+        values[1] = sample.getBlockedProcesses();
+        values[2] = sample.getSwapMemoryKB();
+        values[3] = sample.getFreeMemoryKB();
+        values[4] = sample.getBufferMemoryKB();
+        values[5] = sample.getCacheMemoryKB();
+        values[6] = sample.getSwapFromDiskKB();
+        values[7] = sample.getSwapToDiskKB();
+        values[8] = sample.getReadDiskKB();
+        values[9] = sample.getWriteDiskKB();
+        values[10] = sample.getInterrupts();
+        values[11] = sample.getContextSwitches();
+        values[12] = sample.getUserCPUPercent();
+        values[13] = sample.getSystemCPUPercent();
+        values[14] = sample.getIdleCPUPercent();
+        values[15] = sample.getWaitCPUPercent();
+        values[16] = sample.getStealCPUPercent();
+    }
+
+    /**
+     * Returns the current baseline of a metric.
+     * @param metric the metric
+     * @return the weighted mean
+     */
+    public double getMean(Metric metric) {
+        return mean[metric.ordinal()];
+    }
+
+    /**
+     * Returns the current spread of a metric.
+     * @param metric the metric
+     * @return the weighted standard deviation
+     */
+    public double getStandardDeviation(Metric metric) {
+        return Math.sqrt(variance[metric.ordinal()]);
+    }
+
+    /**
+     * Returns whether a metric is set in the anomalies of a sample.
+     * @param metrics the anomalous metrics as passed to {@link AnomalyListener#anomaly(Collector, long, int)}
+     * @param metric the metric
+     * @return true if the metric is anomalous
+     */
+    public static boolean isSet(int metrics, Metric metric) {
+        return (metrics & (1 << metric.ordinal())) != 0;
+    }
+}
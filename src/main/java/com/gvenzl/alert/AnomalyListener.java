@@ -0,0 +1,40 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: AnomalyListener.java
+ * Description: Receives the anomalous samples found by an AnomalyDetector.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.alert;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.system.Metric;
+
+/**
+ * Receives the anomalous samples found by an {@link AnomalyDetector}.
+ * Called on the collector's thread before the other listeners receive the sample, must not block for long.
+ */
+public interface AnomalyListener {
+
+    /**
+     * Called for a sample with at least one anomalous metric.
+     * @param collector the {@link Collector} of the system
+     * @param sequence the sequence number of the sample in the history
+     * @param metrics the anomalous metrics, bit {@link Metric#ordinal()} set for each, see {@link AnomalyDetector#isSet(int, Metric)}
+     */
+    void anomaly(Collector collector, long sequence, int metrics);
+}
@@ -0,0 +1,72 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: Backoff.java
+ * Description: Exponential backoff with full jitter.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.collect;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter: the n-th delay is a random value between 0 and
+ * min(max, base * 2^n), so that systems that lost their connections at the same time,
+ * e.g. because a network segment flapped, do not all reconnect at the same time.
+ * An instance is not thread-safe, it is used by a single collector.
+ */
+public class Backoff {
+
+    // 2^30 times the base is beyond any sensible maximum, and does not overflow
+    private static final int MAX_SHIFT = 30;
+
+    private final long baseMillis;
+    private final long maxMillis;
+    private int attempts = 0;
+
+    /**
+     * Creates a new backoff.
+     * @param base the upper bound of the first delay
+     * @param max the upper bound of all delays
+     */
+    public Backoff(Duration base, Duration max) {
+        this.baseMillis = base.toMillis();
+        this.maxMillis = max.toMillis();
+    }
+
+    /**
+     * Returns the next delay and increases the upper bound for the following one.
+     * @return the delay in milliseconds
+     */
+    public long nextDelayMillis() {
+        long ceiling = Math.min(maxMillis, baseMillis << Math.min(attempts, MAX_SHIFT));
+        attempts++;
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Starts over with the first delay, e.g. once the connection has been reestablished.
+     */
+    public void reset() {
+        attempts = 0;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: Collector.java
+ * Description: Collects the vmstat samples of a system.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.collect;
+
+import com.gvenzl.connect.SampleSource;
+import com.gvenzl.log.LogLevel;
+import com.gvenzl.log.SysLogger;
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.OSInfo;
+import com.gvenzl.system.SampleHistory;
+import com.gvenzl.system.VMStatParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects the `vmstat` samples of a single system on its own virtual thread,
+ * adds them to the {@link SampleHistory} and hands them to the {@link SampleListener}s.
+ * The collector is independent of the UI and reconnects to the system if the connection gets lost,
+ * with an exponential {@link Backoff} between the attempts, until it is stopped.
+ */
+public class Collector {
+
+    private static final String COMMAND = "vmstat -tn "; // Space at the end is needed
+    private static final Duration BACKOFF_BASE = Duration.ofSeconds(1);
+    // Unreachable systems are still tried at least every 5 minutes
+    private static final Duration BACKOFF_MAX = Duration.ofMinutes(5);
+
+    private final SampleSource source;
+    private final String name;
+    private final SampleHistory history;
+    private final List<SampleListener> listeners = new CopyOnWriteArrayList<>();
+    // Only used by the collector thread
+    private final DataPoint sample = new DataPoint();
+    private VMStatParser parser;
+    private final Backoff backoff = new Backoff(BACKOFF_BASE, BACKOFF_MAX);
+    private boolean receivedSamples = false;
+
+    private volatile boolean run = false;
+    private volatile boolean restartReader = false;
+    private volatile int refreshCycle = 1;
+    private volatile int maxRetries = 0;
+    private volatile int connectTimeoutMs = 5000;
+    private volatile String vmstatHeaders = "";
+    // Only updated by the collector thread, volatile for monitoring, e.g. by the metrics exporter
+    private volatile boolean connected = false;
+    private volatile long parseErrors = 0;
+    private volatile long failedConnects = 0;
+    private Thread thread;
+
+    /**
+     * Creates a new collector.
+     * @param source the {@link SampleSource} of the system
+     * @param historySize the number of samples to keep in the {@link SampleHistory}
+     */
+    public Collector(SampleSource source, int historySize) {
+        this.source = source;
+        this.name = source.getName();
+        this.history = new SampleHistory(historySize);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SampleSource getSource() {
+        return source;
+    }
+
+    public SampleHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Returns the first two lines of the `vmstat` output, i.e. the headers.
+     * @return the vmstat headers of the current connection
+     */
+    public String getVMStatHeaders() {
+        return vmstatHeaders;
+    }
+
+    public void addListener(SampleListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SampleListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets the refresh cycle, i.e. the `vmstat` interval in seconds.
+     * A running `vmstat` is restarted with the new interval.
+     * @param seconds the refresh cycle in seconds
+     */
+    public void setRefreshCycle(int seconds) {
+        if (this.refreshCycle != seconds) {
+            this.refreshCycle = seconds;
+            restartReader = true;
+        }
+    }
+
+    public int getRefreshCycle() {
+        return refreshCycle;
+    }
+
+    /**
+     * Sets the number of consecutive failed connection attempts after which the listeners are told
+     * via {@link SampleListener#failed(Collector, String)}. The collector keeps trying afterward.
+     * @param retries the number of failed attempts
+     */
+    public void setReconnectRetries(int retries) {
+        this.maxRetries = retries;
+    }
+
+    public void setConnectTimeoutMilliSeconds(int timeoutMs) {
+        this.connectTimeoutMs = timeoutMs;
+    }
+
+    public boolean isRunning() {
+        return run;
+    }
+
+    /**
+     * Returns whether the collector is currently connected and reading samples.
+     * @return true if the collector is connected
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getParseErrors() {
+        return parseErrors;
+    }
+
+    public long getFailedConnects() {
+        return failedConnects;
+    }
+
+    /**
+     * Starts collecting on a new virtual thread.
+     * @throws IllegalStateException if the collector has already been started
+     */
+    public synchronized void start() {
+        if (null != thread) {
+            throw new IllegalStateException("Collector '%s' has already been started".formatted(name));
+        }
+        run = true;
+        thread = Thread.ofVirtual().name("Collector: " + name).start(this::collect);
+    }
+
+    /**
+     * Tells the collector to stop.
+     * The connection is closed so that a blocked read returns right away,
+     * and the collector thread is interrupted so that it stops waiting to connect.
+     */
+    public void stop() {
+        run = false;
+        source.close();
+        // Wake up the collector if it waits for its next reconnect or for its turn to connect
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (null != t) {
+            t.interrupt();
+        }
+    }
+
+    /**
+     * Waits for the collector thread to terminate.
+     * @param timeout the maximum time to wait
+     * @return true if the collector thread has terminated
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean join(Duration timeout) throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        return null == t || t.join(timeout);
+    }
+
+    /**
+     * Drops the current connection, the collector reconnects right away.
+     */
+    public void reconnect() {
+        source.close();
+    }
+
+    private void collect() {
+
+        int failures = 0;
+        boolean firstAttempt = true;
+        String lastError = "";
+
+        // If for whatever reason the connection is lost, except when demanded, reestablish it until stopped.
+        // Reconnects are spread out by the backoff, so that not all systems of a flapping network reconnect at once.
+        while (run) {
+            if (!firstAttempt) {
+                long delay = backoff.nextDelayMillis();
+                SysLogger.getInstance().log(this.name + ": Connection lost, reconnecting in %d ms...".formatted(delay));
+                sleep(delay);
+                if (!run) {
+                    break;
+                }
+            }
+
+            firstAttempt = false;
+
+            try {
+                source.connect(connectTimeoutMs);
+
+                OSInfo osInfo = source.getOsInfo();
+                if (null == osInfo) {
+                    throw new IOException("Unsupported operating system");
+                }
+                parser = new VMStatParser(osInfo.getVMStat());
+
+                for (SampleListener listener : listeners) {
+                    try {
+                        listener.connected(this, osInfo);
+                    }
+                    catch (RuntimeException e) {
+                        SysLogger.getInstance().error(this.name + ": Listener failed: %s".formatted(e.getMessage()));
+                    }
+                }
+
+                try {
+                    connected = true;
+                    readSamples();
+                    SysLogger.getInstance().log(this.name + ": Stop request, stopping collector.");
+                }
+                finally {
+                    connected = false;
+                    source.close();
+                }
+            }
+            // Cannot communicate with the server, try again later.
+            catch (IOException e) {
+                // A stop closes the connection, which is not an error
+                if (run) {
+                    if (!receivedSamples) {
+                        failedConnects++;
+                    }
+                    lastError = e.getMessage();
+                    SysLogger.getInstance().error(this.name + ": " + lastError);
+                }
+            }
+
+            // The connection worked and got lost afterward, start over with short delays
+            if (receivedSamples) {
+                receivedSamples = false;
+                failures = 0;
+                backoff.reset();
+                continue;
+            }
+
+            // Tell the listeners once, then keep trying in the background
+            if (run && ++failures == Math.max(maxRetries, 1)) {
+                for (SampleListener listener : listeners) {
+                    try {
+                        listener.failed(this, lastError);
+                    }
+                    catch (RuntimeException e) {
+                        SysLogger.getInstance().error(this.name + ": Listener failed: %s".formatted(e.getMessage()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sleeps for the given time or until the collector is stopped.
+     */
+    private void sleep(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while (run && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private void readSamples() throws IOException {
+        BufferedReader reader = null;
+        try {
+            while (run) {
+
+                // Get a new reader on first read or when the refresh cycle changed
+                if (null == reader || restartReader) {
+                    restartReader = false;
+                    closeQuietly(reader);
+                    reader = getNewReader();
+                }
+
+                String line;
+                // Reader might have been closed due to SSH disconnect, a stall, etc.
+                // Reconnect through the backoff of the collect loop, which rediscovers the system.
+                try {
+                    line = reader.readLine();
+                }
+                catch (IOException e) {
+                    if (!run) {
+                        break;
+                    }
+                    throw e;
+                }
+
+                // Remote side closed the output stream
+                if (null == line) {
+                    if (!run) {
+                        break;
+                    }
+                    throw new IOException("vmstat output stream closed");
+                }
+
+                if (!parser.parse(line, sample)) {
+                    parseErrors++;
+                    SysLogger.getInstance().log(LogLevel.ERROR, this.name + ": parse",
+                            this.name + ": Cannot parse line: '%s'".formatted(line));
+                    continue;
+                }
+
+                receivedSamples = true;
+                long sequence = history.add(sample);
+                for (SampleListener listener : listeners) {
+                    try {
+                        listener.sample(this, sequence, line);
+                    }
+                    catch (RuntimeException e) {
+                        SysLogger.getInstance().log(LogLevel.ERROR, this.name + ": listener",
+                                this.name + ": Listener failed: %s".formatted(e.getMessage()));
+                    }
+                }
+            }
+        }
+        finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private BufferedReader getNewReader() throws IOException {
+        // vmstat prints a line every refresh cycle, a host that stays silent for two cycles is considered gone
+        source.setReadTimeoutMilliSeconds((2 * refreshCycle + 1) * 1000);
+        BufferedReader newReader = source.executeCommandAndRead(COMMAND + this.refreshCycle);
+        // Preserve first two lines for recording file.
+        vmstatHeaders = newReader.readLine() + "\n" + newReader.readLine();
+        return newReader;
+    }
+
+    private void closeQuietly(BufferedReader reader) {
+        if (null != reader) {
+            try {
+                reader.close();
+            }
+            catch (IOException e) {
+                // Ignore, the stream is not used anymore
+            }
+        }
+    }
+}
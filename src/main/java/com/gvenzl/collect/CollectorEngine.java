@@ -0,0 +1,173 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: CollectorEngine.java
+ * Description: Singleton managing the collectors of all systems
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.collect;
+
+import com.gvenzl.alert.AlertCommand;
+import com.gvenzl.alert.AlertEngine;
+import com.gvenzl.alert.AlertListener;
+import com.gvenzl.alert.AnomalyDetector;
+import com.gvenzl.alert.AnomalyListener;
+import com.gvenzl.config.Config;
+import com.gvenzl.connect.SampleSource;
+import com.gvenzl.log.SysLogger;
+import com.gvenzl.system.FleetAggregate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Manages the {@link Collector}s of all systems.
+ * Every collector runs on its own virtual thread, so thousands of systems only need a handful of carrier threads.
+ */
+public class CollectorEngine {
+
+    private static CollectorEngine instance = null;
+    private final Map<String, Collector> collectors = new ConcurrentHashMap<>();
+
+    private CollectorEngine() {
+        // Prevent instantiation
+    }
+
+    public static synchronized CollectorEngine getInstance() {
+        if (instance == null) {
+            instance = new CollectorEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Creates and starts a new {@link Collector} with the settings of the {@link Config}.
+     * If alert rules are configured, an {@link AlertEngine} evaluates them on every sample.
+     * The samples are also added to the {@link FleetAggregate}.
+     * @param source the {@link SampleSource} of the system
+     * @param listener the {@link SampleListener} to receive the samples, may be null,
+     *                 also receives the alerts if it is an {@link AlertListener}
+     *                 and the anomalies found by an {@link AnomalyDetector} if it is an {@link AnomalyListener}
+     * @return the started {@link Collector}
+     * @throws IOException if the configuration cannot be read
+     * @throws IllegalStateException if a collector for the system is already running
+     */
+    public Collector start(SampleSource source, SampleListener listener) throws IOException {
+        Config config = Config.getInstance();
+        Collector collector = new Collector(source, Math.max(config.getHistorySize(), config.getDataPoints() + 1));
+        collector.setRefreshCycle(config.getRefreshCycle());
+        collector.setReconnectRetries(config.getReconnectRetries());
+        collector.setConnectTimeoutMilliSeconds(config.getConnectTimeoutMilliSeconds());
+        // Ahead of the listener, so that the anomalies of a sample are known when the listener receives it
+        if (config.getAnomalyZScore() > 0 && listener instanceof AnomalyListener anomalyListener) {
+            AnomalyDetector detector = new AnomalyDetector(config.getAnomalyZScore(), Math.max(config.getAnomalyHalfLife(), 1));
+            detector.addListener(anomalyListener);
+            collector.addListener(detector);
+        }
+        if (null != listener) {
+            collector.addListener(listener);
+        }
+        FleetAggregate.getInstance().setBucketMillis(config.getRefreshCycle() * 1000L);
+        collector.addListener(FleetAggregate.getInstance().newFeed());
+        if (!config.getAlertRules().isEmpty()) {
+            AlertEngine alerts = new AlertEngine(collector, config.getAlertRules());
+            if (listener instanceof AlertListener alertListener) {
+                alerts.addListener(alertListener);
+            }
+            if (!config.getAlertCommand().isBlank()) {
+                alerts.addListener(new AlertCommand(config.getAlertCommand()));
+            }
+            collector.addListener(alerts);
+        }
+        return start(collector);
+    }
+
+    /**
+     * Starts the given {@link Collector}.
+     * @param collector the {@link Collector} to start
+     * @return the started {@link Collector}
+     * @throws IllegalStateException if a collector for the system is already running
+     */
+    public Collector start(Collector collector) {
+        if (null != collectors.putIfAbsent(collector.getName(), collector)) {
+            throw new IllegalStateException("A collector for '%s' is already running".formatted(collector.getName()));
+        }
+        collector.start();
+        return collector;
+    }
+
+    public Collector getCollector(String name) {
+        return collectors.get(name);
+    }
+
+    public Collection<Collector> getCollectors() {
+        return collectors.values();
+    }
+
+    /**
+     * Stops and removes the {@link Collector} of a system.
+     * @param name the name of the system
+     */
+    public void stop(String name) {
+        Collector collector = collectors.remove(name);
+        if (null != collector) {
+            collector.stop();
+        }
+    }
+
+    /**
+     * Stops all collectors and waits for them to terminate.
+     * @param timeout the maximum time to wait for all collectors together
+     */
+    public void stopAll(Duration timeout) {
+        for (Collector collector : collectors.values()) {
+            collector.stop();
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Collector collector : collectors.values()) {
+            try {
+                if (!collector.join(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))) {
+                    SysLogger.getInstance().log("CollectorEngine: '%s' did not stop in time".formatted(collector.getName()));
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        collectors.clear();
+    }
+
+    /**
+     * Applies new settings to all running collectors.
+     * @param refreshCycle the refresh cycle in seconds
+     * @param reconnectRetries the number of reconnect retries
+     * @param connectTimeoutSec the connect timeout in seconds
+     */
+    public void updateSettings(int refreshCycle, int reconnectRetries, int connectTimeoutSec) {
+        FleetAggregate.getInstance().setBucketMillis(refreshCycle * 1000L);
+        for (Collector collector : collectors.values()) {
+            collector.setRefreshCycle(refreshCycle);
+            collector.setReconnectRetries(reconnectRetries);
+            collector.setConnectTimeoutMilliSeconds(connectTimeoutSec * 1000);
+        }
+    }
+}
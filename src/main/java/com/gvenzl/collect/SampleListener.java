@@ -0,0 +1,56 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: SampleListener.java
+ * Description: Receives the samples of a collector.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.collect;
+
+import com.gvenzl.system.OSInfo;
+
+/**
+ * Receives the lifecycle events and samples of a {@link Collector}.
+ * All methods are called on the collector's thread and must not block for long.
+ */
+public interface SampleListener {
+
+    /**
+     * Called once the connection to the system has been (re)established.
+     * @param collector the {@link Collector}
+     * @param osInfo the {@link OSInfo} of the system
+     */
+    default void connected(Collector collector, OSInfo osInfo) {
+    }
+
+    /**
+     * Called for every sample after it has been added to the {@link Collector#getHistory()}.
+     * @param collector the {@link Collector}
+     * @param sequence the sequence number of the sample in the history
+     * @param line the raw `vmstat` line of the sample
+     */
+    void sample(Collector collector, long sequence, String line);
+
+    /**
+     * Called once the system could not be reached for the configured number of reconnect retries in a row.
+     * The collector keeps trying to reconnect in the background and calls {@link #connected(Collector, OSInfo)} once it succeeds.
+     * @param collector the {@link Collector}
+     * @param reason the last error that occurred
+     */
+    default void failed(Collector collector, String reason) {
+    }
+}
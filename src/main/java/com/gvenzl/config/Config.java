@@ -21,32 +21,56 @@
 
 package com.gvenzl.config;
 
+import com.gvenzl.alert.AlertRule;
 import com.gvenzl.connect.Connection;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import com.gvenzl.log.LogLevel;
+import com.gvenzl.log.SysLogger;
+import com.gvenzl.system.Metric;
+import com.gvenzl.system.Registry;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
-
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The configuration, read from and written to {@code ~/.sysmonitor/config.xml}.
+ * <p>
+ * The file is read and written with StAX, one element at a time, so that thousands of systems
+ * do not build a document tree. {@link #store()} writes in the background: the changes of a burst, e.g. removing
+ * many systems, are written once, a short delay after the first change. Every write goes to a temporary file
+ * that then replaces the configuration file, so the file is never left half written.
+ */
 public class Config {
 
-    private static final String CONFIG_DIR = System.getProperty("user.home") + File.separator + ".sysmonitor";
+    static final String CONFIG_DIR = System.getProperty("user.home") + File.separator + ".sysmonitor";
     private static final File   CONFIG_FILE = new File (CONFIG_DIR + File.separator + "config.xml");
+    private static final File   TEMP_FILE = new File (CONFIG_DIR + File.separator + "config.xml.tmp");
+    // How long changes are collected before they are written
+    private static final long WRITE_DELAY_MS = 500;
+    private static final String INDENT = "    ";
     // Statics for XML file tags and attributes
     private static final String ROOT = "configuration";
     private static final String PREFERENCES = "preferences";
@@ -54,6 +78,7 @@ public class Config {
     private static final String RECONNECT = "reconnectRetries";
     private static final String CONNECT_TIMEOUT = "connectTimeout";
     private static final String DATA_POINTS = "dataPoints";
+    private static final String HISTORY_SIZE = "historySize";
     private static final String SYSTEMS_ROOT = "systems";
     private static final String SYSTEM = "system";
     private static final String NAME = "name";
@@ -63,18 +88,56 @@ public class Config {
     private static final String PASSWORD = "password";
     private static final String PRIVATE_KEY = "privateKey";
     private static final String RECORD_DIR_PATH = "recordDir";
+    private static final String RECORD_FORMAT = "recordFormat";
+    private static final String RECORD_FLUSH_INTERVAL = "recordFlushInterval";
+    private static final String RECORD_FSYNC = "recordFsync";
     private static final String LOG_DIR_PATH = "logDir";
-
-    private final TreeMap<String, Connection> systems = new TreeMap<>();
+    private static final String ANOMALY_Z_SCORE = "anomalyZScore";
+    private static final String ANOMALY_HALF_LIFE = "anomalyHalfLife";
+    private static final String ALERTS = "alerts";
+    private static final String ALERT_COMMAND = "command";
+    private static final String RULE = "rule";
+    private static final String RULE_METRIC = "metric";
+    private static final String RULE_OPERATOR = "operator";
+    private static final String RULE_THRESHOLD = "threshold";
+    private static final String RULE_CLEAR = "clear";
+    private static final String RULE_FOR = "for";
+    private static final String RULE_CLEAR_FOR = "clearFor";
+
+    private final Registry<Connection> systems = new Registry<>();
     private int refreshCycle = 1;
     private int reconnectRetries = 3;
     private int connectTimeout = 5;
     private int dataPoints = 30;
+    private int historySize = 3600;
     private String recordDirPath = null;
+    private String recordFormat = "text";
+    private int recordFlushInterval = 1;
+    private boolean recordFsync = false;
     private String logDirPath = null;
+    private double anomalyZScore = 4;
+    private int anomalyHalfLife = 300;
+    private final List<AlertRule> alertRules = new ArrayList<>();
+    private String alertCommand = "";
 
     private static Config instance = null;
 
+    // Guards pending and generation, signalled when a write is requested
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Condition writeRequested = writeLock.newCondition();
+    private Snapshot pending = null;
+    private long generation = 0;
+    private Thread writer = null;
+    // Serializes the writes of the writer thread and flush()
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private long writtenGeneration = 0;
+
+    /**
+     * The configuration at the time of a store(), to be written by another thread.
+     */
+    private record Snapshot(long generation, Map<String, String> preferences, String alertCommand,
+                            List<AlertRule> alertRules, List<Connection> systems) {}
+
     private Config() throws IOException {
         makeConfigFile();
         readConfig();
@@ -118,6 +181,18 @@ public class Config {
         this.dataPoints = points;
     }
 
+    /**
+     * Returns the number of samples kept in memory per system.
+     * @return the number of samples kept per system
+     */
+    public int getHistorySize() {
+        return this.historySize;
+    }
+
+    public void setHistorySize(int size) {
+        this.historySize = size;
+    }
+
     public void setRecordDirPath(String path) {
         recordDirPath = path;
     }
@@ -126,6 +201,42 @@ public class Config {
         return recordDirPath;
     }
 
+    /**
+     * Returns the name of the format new recordings are written in, "text" or "binary".
+     * @return the record format
+     */
+    public String getRecordFormat() {
+        return recordFormat;
+    }
+
+    public void setRecordFormat(String format) {
+        recordFormat = format;
+    }
+
+    /**
+     * Returns the seconds between flushes of the recording files, 0 to flush as soon as possible.
+     * @return the record flush interval in seconds
+     */
+    public int getRecordFlushInterval() {
+        return recordFlushInterval;
+    }
+
+    public void setRecordFlushInterval(int seconds) {
+        recordFlushInterval = seconds;
+    }
+
+    /**
+     * Returns whether the recording files are forced to disk on every flush.
+     * @return true if recordings are fsync'ed on flush
+     */
+    public boolean isRecordFsync() {
+        return recordFsync;
+    }
+
+    public void setRecordFsync(boolean fsync) {
+        recordFsync = fsync;
+    }
+
     public void setLogDirPath(String path) {
         logDirPath = path;
     }
@@ -134,50 +245,182 @@ public class Config {
         return logDirPath;
     }
 
+    /**
+     * Returns the number of standard deviations from its usual value beyond which a metric is marked as anomalous.
+     * @return the anomaly z-score, 0 if anomalies are not marked
+     */
+    public double getAnomalyZScore() {
+        return anomalyZScore;
+    }
+
+    public void setAnomalyZScore(double zScore) {
+        anomalyZScore = zScore;
+    }
+
+    /**
+     * Returns the number of samples after which a sample only weighs half in the usual value of a metric.
+     * @return the anomaly half-life in samples
+     */
+    public int getAnomalyHalfLife() {
+        return anomalyHalfLife;
+    }
+
+    public void setAnomalyHalfLife(int samples) {
+        anomalyHalfLife = samples;
+    }
+
+    /**
+     * Returns the alert rules evaluated on the samples of every system.
+     * @return the alert rules
+     */
+    public List<AlertRule> getAlertRules() {
+        return alertRules;
+    }
+
+    /**
+     * Returns the command run for every raised and cleared alert, see {@link com.gvenzl.alert.AlertCommand}.
+     * @return the alert command, empty for none
+     */
+    public String getAlertCommand() {
+        return alertCommand;
+    }
+
+    public void setAlertCommand(String command) {
+        alertCommand = command;
+    }
+
     private void readConfig() throws IOException {
 
         // File is not empty/new
         if (CONFIG_FILE.length() > 0) {
 
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-
-            try {
-                DocumentBuilder db = dbf.newDocumentBuilder();
-                Document doc = db.parse(CONFIG_FILE);
-                doc.getDocumentElement().normalize();
-
-                // Preferences tag
-                Element preferences = (Element) doc.getElementsByTagName(PREFERENCES).item(0);
-                refreshCycle = Integer.parseInt(preferences.getAttribute(REFRESH));
-                reconnectRetries = Integer.parseInt(preferences.getAttribute(RECONNECT));
-                connectTimeout = Integer.parseInt(preferences.getAttribute(CONNECT_TIMEOUT));
-                dataPoints = Integer.parseInt(preferences.getAttribute(DATA_POINTS));
-                recordDirPath = preferences.getAttribute(RECORD_DIR_PATH);
-                logDirPath = preferences.getAttribute(LOG_DIR_PATH);
-
-                // Systems tag
-                Element systemsRoot = (Element) doc.getElementsByTagName(SYSTEMS_ROOT).item(0);
-                NodeList xmlSystems = systemsRoot.getElementsByTagName(SYSTEM);
-
-                for (int i = 0; i < xmlSystems.getLength(); i++) {
-
-                    Element child = (Element) xmlSystems.item(i);
-                    Connection conn = new Connection();
-                    conn.setName(child.getAttribute(NAME));
-                    conn.setHostName(child.getAttribute(HOST));
-                    conn.setPort(child.getAttribute(PORT));
-                    conn.setUserName(child.getAttribute(USER));
-                    conn.setPassWord(deobfuscate(child.getAttribute(PASSWORD)));
-                    conn.setSshKey(deobfuscate(child.getAttribute(PRIVATE_KEY)));
-                    systems.put(conn.getName(), conn);
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+            try (InputStream in = new BufferedInputStream(new FileInputStream(CONFIG_FILE))) {
+                XMLStreamReader xml = factory.createXMLStreamReader(in);
+                try {
+                    boolean inAlerts = false;
+                    boolean inSystems = false;
+                    while (xml.hasNext()) {
+                        int event = xml.next();
+                        if (event == XMLStreamConstants.END_ELEMENT) {
+                            if (ALERTS.equals(xml.getLocalName())) {
+                                inAlerts = false;
+                            }
+                            else if (SYSTEMS_ROOT.equals(xml.getLocalName())) {
+                                inSystems = false;
+                            }
+                            continue;
+                        }
+                        if (event != XMLStreamConstants.START_ELEMENT) {
+                            continue;
+                        }
+
+                        switch (xml.getLocalName()) {
+                            case PREFERENCES -> readPreferences(xml);
+                            // Alerts tag, not present in configuration files written by older versions
+                            case ALERTS -> {
+                                inAlerts = true;
+                                alertCommand = getAttribute(xml, ALERT_COMMAND);
+                            }
+                            case RULE -> {
+                                if (inAlerts) {
+                                    readRule(xml);
+                                }
+                            }
+                            case SYSTEMS_ROOT -> inSystems = true;
+                            case SYSTEM -> {
+                                if (inSystems) {
+                                    readSystem(xml);
+                                }
+                            }
+                            default -> { }
+                        }
+                    }
                 }
-
-            } catch (IOException | ParserConfigurationException | SAXException e) {
+                finally {
+                    xml.close();
+                }
+            }
+            catch (IOException | XMLStreamException e) {
                 throw new IOException(String.format("Cannot open config: %s", e.getMessage()));
             }
         }
     }
 
+    private void readPreferences(XMLStreamReader xml) {
+        refreshCycle = Integer.parseInt(getAttribute(xml, REFRESH));
+        reconnectRetries = Integer.parseInt(getAttribute(xml, RECONNECT));
+        connectTimeout = Integer.parseInt(getAttribute(xml, CONNECT_TIMEOUT));
+        dataPoints = Integer.parseInt(getAttribute(xml, DATA_POINTS));
+        historySize = getIntAttribute(xml, HISTORY_SIZE, historySize);
+        recordDirPath = getAttribute(xml, RECORD_DIR_PATH);
+        if (hasAttribute(xml, RECORD_FORMAT)) {
+            recordFormat = getAttribute(xml, RECORD_FORMAT);
+        }
+        recordFlushInterval = getIntAttribute(xml, RECORD_FLUSH_INTERVAL, recordFlushInterval);
+        if (hasAttribute(xml, RECORD_FSYNC)) {
+            recordFsync = Boolean.parseBoolean(getAttribute(xml, RECORD_FSYNC));
+        }
+        logDirPath = getAttribute(xml, LOG_DIR_PATH);
+        if (hasAttribute(xml, ANOMALY_Z_SCORE)) {
+            anomalyZScore = Double.parseDouble(getAttribute(xml, ANOMALY_Z_SCORE));
+        }
+        anomalyHalfLife = getIntAttribute(xml, ANOMALY_HALF_LIFE, anomalyHalfLife);
+    }
+
+    private void readRule(XMLStreamReader xml) throws IOException {
+        try {
+            alertRules.add(new AlertRule(getAttribute(xml, NAME),
+                    Metric.fromKey(getAttribute(xml, RULE_METRIC)),
+                    AlertRule.Operator.fromText(getAttribute(xml, RULE_OPERATOR)),
+                    getAttribute(xml, RULE_THRESHOLD),
+                    getAttribute(xml, RULE_CLEAR),
+                    getAttribute(xml, RULE_FOR),
+                    getAttribute(xml, RULE_CLEAR_FOR)));
+        }
+        catch (IllegalArgumentException e) {
+            throw new IOException("Invalid alert rule '%s': %s".formatted(getAttribute(xml, NAME), e.getMessage()));
+        }
+    }
+
+    private void readSystem(XMLStreamReader xml) {
+        Connection conn = new Connection();
+        conn.setName(getAttribute(xml, NAME));
+        conn.setHostName(getAttribute(xml, HOST));
+        conn.setPort(getAttribute(xml, PORT));
+        conn.setUserName(getAttribute(xml, USER));
+        conn.setPassWord(deobfuscate(getAttribute(xml, PASSWORD)));
+        conn.setSshKey(deobfuscate(getAttribute(xml, PRIVATE_KEY)));
+        systems.put(conn.getName(), conn);
+    }
+
+    private static boolean hasAttribute(XMLStreamReader xml, String attribute) {
+        return null != xml.getAttributeValue(null, attribute);
+    }
+
+    /**
+     * Returns an attribute of the current element, an empty String if the element does not have it.
+     */
+    private static String getAttribute(XMLStreamReader xml, String attribute) {
+        String value = xml.getAttributeValue(null, attribute);
+        return null == value ? "" : value;
+    }
+
+    /**
+     * Returns an integer attribute that may not be present in configuration files written by older versions.
+     * @param xml the reader positioned at the element holding the attribute
+     * @param attribute the name of the attribute
+     * @param defaultValue the value to return if the attribute is not present
+     * @return the value of the attribute or the default value
+     */
+    private static int getIntAttribute(XMLStreamReader xml, String attribute, int defaultValue) {
+        String value = getAttribute(xml, attribute);
+        return value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
     private void makeConfigFile() throws IOException {
 
         if (!new File(CONFIG_DIR).exists()) {
@@ -201,59 +444,217 @@ public class Config {
         return systems.get(name);
     }
 
-    public TreeMap<String, Connection> getSystems() {
+    /**
+     * Returns the configured systems, safe to read and iterate from any thread.
+     * @return the systems by name
+     */
+    public Registry<Connection> getSystems() {
         return systems;
     }
 
     public void removeSystem(String name) { systems.remove(name); }
 
-    public void store() throws ParserConfigurationException, TransformerException, IOException {
-        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-
-        Element root = doc.createElement(ROOT);
-
-        Element preferences = doc.createElement(PREFERENCES);
-        preferences.setAttribute(REFRESH, String.valueOf(refreshCycle));
-        preferences.setAttribute(RECONNECT, String.valueOf(reconnectRetries));
-        preferences.setAttribute(CONNECT_TIMEOUT, String.valueOf(connectTimeout));
-        preferences.setAttribute(DATA_POINTS, String.valueOf(dataPoints));
-        preferences.setAttribute(RECORD_DIR_PATH, recordDirPath);
-        preferences.setAttribute(LOG_DIR_PATH, logDirPath);
-        root.appendChild(preferences);
-
-        Element systemRoot = doc.createElement(SYSTEMS_ROOT);
-        for (Map.Entry<String, Connection> entry : systems.entrySet()) {
-            Element sys = doc.createElement(SYSTEM);
-            sys.setAttribute(NAME, entry.getKey());
-            sys.setAttribute(HOST, entry.getValue().getHostName());
-            sys.setAttribute(PORT, entry.getValue().getPort());
-            sys.setAttribute(USER, entry.getValue().getUserName());
-            if (!entry.getValue().getPassWord().isEmpty()) {
-                sys.setAttribute(PASSWORD, obfuscate(entry.getValue().getPassWord()));
+    /**
+     * Writes the configuration in the background.
+     * Changes made until the write starts, a short moment later, are written with it.
+     * Errors are logged, see {@link #flush()} to learn about them.
+     */
+    public void store() {
+        writeLock.lock();
+        try {
+            if (null == writer) {
+                writer = Thread.ofPlatform().name("Config writer").daemon(true).start(this::writeLoop);
             }
-            if (!entry.getValue().getSshKey().isEmpty()) {
-                sys.setAttribute(PRIVATE_KEY, obfuscate(entry.getValue().getSshKey()));
+            boolean requested = null != pending;
+            pending = snapshot();
+            if (!requested) {
+                writeRequested.signal();
             }
-            systemRoot.appendChild(sys);
         }
+        finally {
+            writeLock.unlock();
+        }
+    }
 
-        root.appendChild(systemRoot);
-        doc.appendChild(root);
+    /**
+     * Writes the configuration now, including any changes not yet written by {@link #store()}.
+     * @throws IOException if the configuration file cannot be written
+     */
+    public void flush() throws IOException {
+        Snapshot snapshot;
+        writeLock.lock();
+        try {
+            pending = null;
+            snapshot = snapshot();
+        }
+        finally {
+            writeLock.unlock();
+        }
+        write(snapshot);
+    }
 
-        // save the xml file
-        // Transformer is for process XML from a variety of sources and write the
-        // transformation
-        // output to a variety of sinks
-        Transformer tr = TransformerFactory.newInstance().newTransformer();
+    /**
+     * Copies the configuration. Called with the write lock held.
+     */
+    private Snapshot snapshot() {
+        Map<String, String> preferences = new LinkedHashMap<>();
+        preferences.put(REFRESH, String.valueOf(refreshCycle));
+        preferences.put(RECONNECT, String.valueOf(reconnectRetries));
+        preferences.put(CONNECT_TIMEOUT, String.valueOf(connectTimeout));
+        preferences.put(DATA_POINTS, String.valueOf(dataPoints));
+        preferences.put(HISTORY_SIZE, String.valueOf(historySize));
+        preferences.put(RECORD_DIR_PATH, null == recordDirPath ? "" : recordDirPath);
+        preferences.put(RECORD_FORMAT, recordFormat);
+        preferences.put(RECORD_FLUSH_INTERVAL, String.valueOf(recordFlushInterval));
+        preferences.put(RECORD_FSYNC, String.valueOf(recordFsync));
+        preferences.put(LOG_DIR_PATH, null == logDirPath ? "" : logDirPath);
+        preferences.put(ANOMALY_Z_SCORE, String.valueOf(anomalyZScore));
+        preferences.put(ANOMALY_HALF_LIFE, String.valueOf(anomalyHalfLife));
+        return new Snapshot(++generation, preferences, alertCommand, List.copyOf(alertRules), systems.values());
+    }
 
-        tr.setOutputProperty(OutputKeys.INDENT, "yes");
-        tr.setOutputProperty(OutputKeys.METHOD, "xml");
-        tr.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-        tr.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
+    private void writeLoop() {
+        while (true) {
+            Snapshot snapshot;
+            writeLock.lock();
+            try {
+                while (null == pending) {
+                    writeRequested.await();
+                }
+                // Let a burst of changes settle, every store() replaces the pending snapshot
+                long left = TimeUnit.MILLISECONDS.toNanos(WRITE_DELAY_MS);
+                while (left > 0) {
+                    left = writeRequested.awaitNanos(left);
+                }
+                snapshot = pending;
+                pending = null;
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            finally {
+                writeLock.unlock();
+            }
+
+            // flush() may have taken the pending snapshot meanwhile
+            if (null != snapshot) {
+                try {
+                    write(snapshot);
+                }
+                catch (IOException e) {
+                    SysLogger.getInstance().log(LogLevel.ERROR, "Config: Cannot store config: %s".formatted(e.getMessage()));
+                }
+            }
+        }
+    }
 
-        DOMSource source = new DOMSource(doc);
+    /**
+     * Writes a snapshot to a temporary file and renames it to the configuration file.
+     * Snapshots older than the last one written are skipped.
+     */
+    private void write(Snapshot snapshot) throws IOException {
+        fileLock.lock();
+        try {
+            if (snapshot.generation() <= writtenGeneration) {
+                return;
+            }
+
+            try (FileOutputStream file = new FileOutputStream(TEMP_FILE)) {
+                OutputStream out = new BufferedOutputStream(file);
+                XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+                writeXML(xml, snapshot);
+                xml.close();
+                out.flush();
+                // On disk before the rename, so that a crash leaves either the old or the new file
+                file.getChannel().force(true);
+            }
+            catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+
+            replace(TEMP_FILE.toPath(), CONFIG_FILE.toPath());
+            writtenGeneration = snapshot.generation();
+        }
+        finally {
+            fileLock.unlock();
+        }
+    }
+
+    /**
+     * Moves a fully written and fsync'ed temporary file over the target file,
+     * atomically if the filesystem supports it, so that readers see either the old or the new file.
+     * @param temp the temporary file
+     * @param target the file to replace
+     * @throws IOException if the file cannot be moved
+     */
+    static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void writeXML(XMLStreamWriter xml, Snapshot snapshot) throws XMLStreamException {
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeCharacters("\n");
+        xml.writeStartElement(ROOT);
+
+        indent(xml, 1);
+        xml.writeEmptyElement(PREFERENCES);
+        for (Map.Entry<String, String> preference : snapshot.preferences().entrySet()) {
+            xml.writeAttribute(preference.getKey(), preference.getValue());
+        }
+
+        if (!snapshot.alertRules().isEmpty() || !snapshot.alertCommand().isEmpty()) {
+            indent(xml, 1);
+            xml.writeStartElement(ALERTS);
+            if (!snapshot.alertCommand().isEmpty()) {
+                xml.writeAttribute(ALERT_COMMAND, snapshot.alertCommand());
+            }
+            for (AlertRule alertRule : snapshot.alertRules()) {
+                indent(xml, 2);
+                xml.writeEmptyElement(RULE);
+                xml.writeAttribute(NAME, alertRule.getName());
+                xml.writeAttribute(RULE_METRIC, alertRule.getMetric().getKey());
+                xml.writeAttribute(RULE_OPERATOR, alertRule.getOperator().getSymbol());
+                xml.writeAttribute(RULE_THRESHOLD, alertRule.getThreshold());
+                xml.writeAttribute(RULE_CLEAR, alertRule.getClear());
+                xml.writeAttribute(RULE_FOR, alertRule.getRaiseWindow());
+                xml.writeAttribute(RULE_CLEAR_FOR, alertRule.getClearWindow());
+            }
+            indent(xml, 1);
+            xml.writeEndElement();
+        }
+
+        indent(xml, 1);
+        xml.writeStartElement(SYSTEMS_ROOT);
+        for (Connection system : snapshot.systems()) {
+            indent(xml, 2);
+            xml.writeEmptyElement(SYSTEM);
+            xml.writeAttribute(NAME, system.getName());
+            xml.writeAttribute(HOST, system.getHostName());
+            xml.writeAttribute(PORT, system.getPort());
+            xml.writeAttribute(USER, system.getUserName());
+            if (!system.getPassWord().isEmpty()) {
+                xml.writeAttribute(PASSWORD, obfuscate(system.getPassWord()));
+            }
+            if (!system.getSshKey().isEmpty()) {
+                xml.writeAttribute(PRIVATE_KEY, obfuscate(system.getSshKey()));
+            }
+        }
+        indent(xml, 1);
+        xml.writeEndElement();
+
+        xml.writeCharacters("\n");
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+        xml.writeEndDocument();
+    }
 
-        tr.transform(source, new StreamResult(new FileOutputStream(CONFIG_FILE)));
+    private static void indent(XMLStreamWriter xml, int level) throws XMLStreamException {
+        xml.writeCharacters("\n" + INDENT.repeat(level));
     }
 
     private String obfuscate(String input) {
@@ -0,0 +1,202 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: OSInfoCache.java
+ * Description: Persistent cache of the OS information of the systems
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.config;
+
+import com.gvenzl.system.OSInfo;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the {@link OSInfo} of the systems, keyed by host and port, so that a reconnect
+ * does not have to rediscover facts that do not change while a system is up.
+ * The cache is stored next to the configuration file.
+ */
+public class OSInfoCache {
+
+    private static final File CACHE_FILE = new File(Config.CONFIG_DIR + File.separator + "osinfo.xml");
+    private static final File TEMP_FILE = new File(Config.CONFIG_DIR + File.separator + "osinfo.xml.tmp");
+    // Statics for XML file tags and attributes
+    private static final String ROOT = "osInfoCache";
+    private static final String SYSTEM = "system";
+    private static final String KEY = "key";
+    private static final String BOOT_ID = "bootId";
+    private static final String OS = "os";
+    private static final String HOST = "hostname";
+    private static final String ARCHITECTURE = "architecture";
+    private static final String KERNEL = "kernel";
+    private static final String CPUS = "cpus";
+    private static final String CPU_TYPE = "cpuType";
+    private static final String MEMORY = "memoryKB";
+    private static final String VMSTAT = "vmstat";
+
+    private final Map<String, OSInfo> entries = new HashMap<>();
+    private boolean dirty = false;
+
+    private static OSInfoCache instance = null;
+
+    private OSInfoCache() {
+        try {
+            read();
+        }
+        catch (IOException e) {
+            // It's only a cache, start empty
+            entries.clear();
+        }
+    }
+
+    public static synchronized OSInfoCache getInstance() {
+        if (instance == null) {
+            instance = new OSInfoCache();
+        }
+        return instance;
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Returns the cached {@link OSInfo} if it is still valid for the system.
+     * @param key the host identity, e.g. host name and port
+     * @param bootId the current boot id of the system
+     * @param kernelVersion the current kernel version of the system
+     * @return the cached {@link OSInfo} or null if there is none or the system has changed
+     */
+    public synchronized OSInfo get(String key, String bootId, String kernelVersion) {
+        OSInfo info = entries.get(key);
+        if (null != info && !bootId.isEmpty()
+                && info.getBootId().equals(bootId) && info.getKernelVersion().equals(kernelVersion)) {
+            return info;
+        }
+        return null;
+    }
+
+    public synchronized void put(String key, OSInfo info) {
+        entries.put(key, info);
+        dirty = true;
+    }
+
+    public synchronized void remove(String key) {
+        if (null != entries.remove(key)) {
+            dirty = true;
+        }
+    }
+
+    private void read() throws IOException {
+        if (!CACHE_FILE.exists() || CACHE_FILE.length() == 0) {
+            return;
+        }
+
+        try {
+            Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(CACHE_FILE);
+            NodeList systems = doc.getElementsByTagName(SYSTEM);
+
+            for (int i = 0; i < systems.getLength(); i++) {
+                Element sys = (Element) systems.item(i);
+                OSInfo info = new OSInfo();
+                info.setBootId(sys.getAttribute(BOOT_ID));
+                info.setOs(sys.getAttribute(OS));
+                info.setHostName(sys.getAttribute(HOST));
+                info.setArchitecture(sys.getAttribute(ARCHITECTURE));
+                info.setKernelVersion(sys.getAttribute(KERNEL));
+                info.setCpus(Integer.parseInt(sys.getAttribute(CPUS)));
+                info.setCpuType(sys.getAttribute(CPU_TYPE));
+                info.setMemoryKB(Long.parseLong(sys.getAttribute(MEMORY)));
+                info.createVMStatPattern(sys.getElementsByTagName(VMSTAT).item(0).getTextContent());
+                entries.put(sys.getAttribute(KEY), info);
+            }
+        }
+        catch (IOException | ParserConfigurationException | SAXException | RuntimeException e) {
+            throw new IOException("Cannot read OS info cache: %s".formatted(e.getMessage()));
+        }
+    }
+
+    /**
+     * Writes the cache to disk if it has changed.
+     * @throws IOException if the cache file cannot be written
+     */
+    public synchronized void store() throws IOException {
+        if (!dirty) {
+            return;
+        }
+
+        try {
+            Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            Element root = doc.createElement(ROOT);
+
+            for (Map.Entry<String, OSInfo> entry : entries.entrySet()) {
+                OSInfo info = entry.getValue();
+                Element sys = doc.createElement(SYSTEM);
+                sys.setAttribute(KEY, entry.getKey());
+                sys.setAttribute(BOOT_ID, info.getBootId());
+                sys.setAttribute(OS, info.getOs());
+                sys.setAttribute(HOST, info.getHostName());
+                sys.setAttribute(ARCHITECTURE, info.getArchitecture());
+                sys.setAttribute(KERNEL, info.getKernelVersion());
+                sys.setAttribute(CPUS, String.valueOf(info.getCpus()));
+                sys.setAttribute(CPU_TYPE, info.getCpuType());
+                sys.setAttribute(MEMORY, String.valueOf(info.getMemoryKB()));
+                // Multi-line output, attributes would lose the line breaks
+                Element vmstat = doc.createElement(VMSTAT);
+                vmstat.setTextContent(info.getVMStatOutput());
+                sys.appendChild(vmstat);
+                root.appendChild(sys);
+            }
+            doc.appendChild(root);
+
+            Transformer tr = TransformerFactory.newInstance().newTransformer();
+            tr.setOutputProperty(OutputKeys.INDENT, "yes");
+            tr.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+
+            // Same as config.xml, a crash while writing leaves either the old or the new cache
+            try (FileOutputStream file = new FileOutputStream(TEMP_FILE)) {
+                OutputStream out = new BufferedOutputStream(file);
+                tr.transform(new DOMSource(doc), new StreamResult(out));
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Config.replace(TEMP_FILE.toPath(), CACHE_FILE.toPath());
+            dirty = false;
+        }
+        catch (ParserConfigurationException | TransformerException e) {
+            throw new IOException("Cannot store OS info cache: %s".formatted(e.getMessage()));
+        }
+    }
+}
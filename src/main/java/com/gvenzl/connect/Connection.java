@@ -21,8 +21,14 @@
 
 package com.gvenzl.connect;
 
-import com.gvenzl.config.Config;
+import com.gvenzl.config.OSInfoCache;
+import com.gvenzl.log.LogLevel;
+import com.gvenzl.log.SysLogger;
 import com.gvenzl.system.OSInfo;
+import net.schmizz.keepalive.KeepAlive;
+import net.schmizz.keepalive.KeepAliveProvider;
+import net.schmizz.keepalive.KeepAliveRunner;
+import net.schmizz.sshj.DefaultConfig;
 import net.schmizz.sshj.SSHClient;
 import net.schmizz.sshj.connection.ConnectionException;
 import net.schmizz.sshj.connection.channel.direct.Session;
@@ -34,10 +40,53 @@ import net.schmizz.sshj.userauth.password.PasswordUtils;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-public class Connection {
+/**
+ * An SSH connection to a system, the {@link SampleSource} of the configured systems.
+ */
+public class Connection implements SampleSource {
+
+    // Keepalive requests are sent every KEEP_ALIVE_INTERVAL_SECONDS, the connection is dropped after KEEP_ALIVE_MAX_MISSED unanswered ones
+    private static final int KEEP_ALIVE_INTERVAL_SECONDS = 5;
+    private static final int KEEP_ALIVE_MAX_MISSED = 3;
+    // Caps the concurrent SSH handshakes of all connections, e.g. when all systems of a network segment reconnect at once
+    public static final int MAX_CONCURRENT_HANDSHAKES = 8;
+    private static final Semaphore HANDSHAKES = new Semaphore(MAX_CONCURRENT_HANDSHAKES, true);
+    // Creating the config is expensive (algorithm negotiation lists), all connections share one
+    private static final DefaultConfig SSH_CONFIG = createSSHConfig();
+
+    // Marks the start of a section in the output of the DISCOVERY_COMMAND
+    private static final String SECTION_MARKER = "#sysmonitor:";
+    private static final String HOST_NAME = "hostname";
+    private static final String ARCHITECTURE = "architecture";
+    private static final String OS = "os";
+    private static final String KERNEL = "kernel";
+    private static final String CPUS = "cpus";
+    private static final String CPU_TYPE = "cpuType";
+    private static final String MEMORY = "memory";
+    private static final String VMSTAT = "vmstat";
+    private static final String BOOT_ID = "bootId";
+    private static final String BOOT_ID_FILE = "/proc/sys/kernel/random/boot_id";
+    // Cheap check whether the cached OSInfo is still valid
+    private static final String VALIDATION_COMMAND = String.join("; ",
+            section(BOOT_ID), "cat " + BOOT_ID_FILE,
+            section(KERNEL), "uname -r");
+    private static final String DISCOVERY_COMMAND = String.join("; ",
+            section(OS), "uname -s",
+            section(HOST_NAME), "hostname",
+            section(ARCHITECTURE), "uname -m",
+            section(KERNEL), "uname -r",
+            section(CPUS), "grep processor /proc/cpuinfo | wc -l",
+            section(CPU_TYPE), "grep 'model name' /proc/cpuinfo | head -n 1 | awk '{ split($0, array, \":\"); print array[2] }'",
+            section(MEMORY), "awk '/MemTotal/ {print $2}' /proc/meminfo",
+            section(VMSTAT), "vmstat",
+            section(BOOT_ID), "cat " + BOOT_ID_FILE);
 
     private String name = "";
     private OSInfo osInfo;
@@ -46,8 +95,22 @@ public class Connection {
     private String userName = "";
     private String passWord = "";
     private String sshKey = "";
-    private SSHClient client;
+    private volatile SSHClient client;
+    private volatile int readTimeoutMs = 0;
+    private final LatencyStats connectLatency = new LatencyStats();
+    private final LatencyStats sessionOpenLatency = new LatencyStats();
+
+    private static DefaultConfig createSSHConfig() {
+        DefaultConfig config = new DefaultConfig();
+        config.setKeepAliveProvider(KeepAliveProvider.KEEP_ALIVE);
+        return config;
+    }
+
+    private static String section(String name) {
+        return "echo '" + SECTION_MARKER + name + "'";
+    }
 
+    @Override
     public String getHostName() {
         return hostName;
     }
@@ -88,6 +151,7 @@ public class Connection {
         this.sshKey = sshKey;
     }
 
+    @Override
     public String getName() {
         return name;
     }
@@ -96,6 +160,15 @@ public class Connection {
         this.name = name;
     }
 
+    /**
+     * Returns the identity of the host, used to cache its {@link OSInfo}.
+     * @return host name and port
+     */
+    public String getHostIdentity() {
+        return hostName + ":" + port;
+    }
+
+    @Override
     public OSInfo getOsInfo() {
         return osInfo;
     }
@@ -104,10 +177,52 @@ public class Connection {
         connect(0);
     }
 
+    @Override
     public void connect(int timeoutMilliSeconds) throws IOException {
-        client = new SSHClient();
+        // Don't leave the previous connection and its keepalive thread behind
+        close();
+
+        try {
+            HANDSHAKES.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to connect");
+        }
+        try {
+            handshake(timeoutMilliSeconds);
+        }
+        catch (IOException e) {
+            close();
+            throw e;
+        }
+        finally {
+            HANDSHAKES.release();
+        }
+
+        // Stopped during the handshake, skip the discovery and don't leave the new connection behind
+        if (Thread.currentThread().isInterrupted()) {
+            close();
+            throw new InterruptedIOException("Interrupted while connecting");
+        }
+        retrieveOsInfo();
+    }
+
+    /**
+     * Establishes and authenticates the SSH connection.
+     */
+    private void handshake(int timeoutMilliSeconds) throws IOException {
+        long start = System.nanoTime();
+        SSHClient client = new SSHClient(SSH_CONFIG);
+        this.client = client;
         client.addHostKeyVerifier(new PromiscuousVerifier());
         client.setConnectTimeout(timeoutMilliSeconds);
+        // Has to be enabled before connecting, the keepalive thread is started on connect
+        KeepAlive keepAlive = client.getConnection().getKeepAlive();
+        keepAlive.setKeepAliveInterval(KEEP_ALIVE_INTERVAL_SECONDS);
+        if (keepAlive instanceof KeepAliveRunner runner) {
+            runner.setMaxAliveCount(KEEP_ALIVE_MAX_MISSED);
+        }
         client.connect(hostName, Integer.parseInt(port));
 
         if (sshKey.isEmpty()) {
@@ -123,57 +238,171 @@ public class Connection {
             }
             client.authPublickey(userName, privateKey);
         }
-
-        retrieveOsInfo();
+        connectLatency.record(System.nanoTime() - start);
     }
 
     private void retrieveOsInfo() throws TransportException, ConnectionException {
-        if (executeCommand("uname -s").equalsIgnoreCase("Linux")) {
-            retrieveOsInfoLinux();
+        OSInfoCache cache = OSInfoCache.getInstance();
+        String cacheKey = getHostIdentity();
+
+        // Only rediscover if the system has been rebooted or the kernel changed
+        if (cache.contains(cacheKey)) {
+            Map<String, String> current = parseSections(executeCommand(VALIDATION_COMMAND));
+            OSInfo cached = cache.get(cacheKey,
+                    current.getOrDefault(BOOT_ID, "").trim(), current.getOrDefault(KERNEL, ""));
+            if (null != cached) {
+                osInfo = cached;
+                return;
+            }
+        }
+
+        // All facts are gathered by a single remote invocation to save round trips
+        osInfo = parseOsInfo(executeCommand(DISCOVERY_COMMAND));
+        if (null != osInfo) {
+            cache.put(cacheKey, osInfo);
         }
     }
 
-    private void retrieveOsInfoLinux() throws TransportException, ConnectionException {
-        osInfo = new OSInfo();
-        osInfo.setHostName(executeCommand("hostname"));
-        osInfo.setArchitecture(executeCommand("uname -m"));
-        osInfo.setOs(executeCommand("uname -s"));
-        osInfo.setKernelVersion(executeCommand("uname -r"));
-        osInfo.setCpus(Integer.valueOf(executeCommand("grep processor /proc/cpuinfo | wc -l")));
-        osInfo.setCpuType(executeCommand("grep 'model name' /proc/cpuinfo | head -n 1 | awk '{ split($0, array, \":\"); print array[2] }'".trim()));
-        osInfo.setMemoryKB(Long.valueOf(executeCommand("awk '/MemTotal/ {print $2}' /proc/meminfo")));
-        osInfo.createVMStatPattern(executeCommand("vmstat"));
+    /**
+     * Splits the output of a command that prints a {@link #SECTION_MARKER} line before each section.
+     * @param output the command output
+     * @return the sections by name
+     */
+    private static Map<String, String> parseSections(String output) {
+        Map<String, String> sections = new HashMap<>();
+        String key = null;
+        StringBuilder value = new StringBuilder();
+
+        for (String line : output.split("\\R", -1)) {
+            if (line.startsWith(SECTION_MARKER)) {
+                if (null != key) {
+                    sections.put(key, value.toString());
+                }
+                key = line.substring(SECTION_MARKER.length());
+                value.setLength(0);
+            }
+            else if (null != key) {
+                // Same as executeCommand, lines are joined without a trailing line separator
+                if (!value.isEmpty()) {
+                    value.append(System.lineSeparator());
+                }
+                value.append(line);
+            }
+        }
+        if (null != key) {
+            sections.put(key, value.toString());
+        }
+        return sections;
     }
 
-    public String executeCommand(String command) throws TransportException, ConnectionException {
-        Session session = client.startSession();
-        Session.Command cmd = session.exec(command);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(cmd.getInputStream()));
-        String output = reader.lines().collect(Collectors.joining(System.lineSeparator()));
-        cmd.join(5, TimeUnit.SECONDS);
-        session.close();
-        return output;
+    /**
+     * Parses the output of the {@link #DISCOVERY_COMMAND}.
+     * @param output the output of the discovery command
+     * @return the {@link OSInfo} or null if the OS is not supported
+     */
+    static OSInfo parseOsInfo(String output) {
+        Map<String, String> sections = parseSections(output);
+
+        if (!sections.getOrDefault(OS, "").equalsIgnoreCase("Linux")) {
+            return null;
+        }
+
+        OSInfo info = new OSInfo();
+        info.setHostName(sections.get(HOST_NAME));
+        info.setArchitecture(sections.get(ARCHITECTURE));
+        info.setOs(sections.get(OS));
+        info.setKernelVersion(sections.get(KERNEL));
+        info.setCpus(Integer.valueOf(sections.get(CPUS).trim()));
+        info.setCpuType(sections.get(CPU_TYPE));
+        info.setMemoryKB(Long.valueOf(sections.get(MEMORY).trim()));
+        info.createVMStatPattern(sections.get(VMSTAT));
+        info.setBootId(sections.getOrDefault(BOOT_ID, "").trim());
+        return info;
     }
 
-    public BufferedReader executeCommandAndRead(String command) throws IOException {
-        if (!client.isConnected()) {
-            connect(Config.getInstance().getConnectTimeoutMilliSeconds());
+    /**
+     * Opens a new session channel on the existing connection.
+     * A session channel can only execute a single command, the connection itself is reused.
+     */
+    private Session openSession(SSHClient client) throws TransportException, ConnectionException {
+        long start = System.nanoTime();
+        Session session = client.startSession();
+        long latency = System.nanoTime() - start;
+        sessionOpenLatency.record(latency);
+        // Opened for every command, don't format the message unless it is written
+        SysLogger logger = SysLogger.getInstance();
+        if (logger.isEnabled(LogLevel.DEBUG)) {
+            logger.debug("%s: Session opened in %.1f ms".formatted(name, latency / 1_000_000d));
         }
+        return session;
+    }
 
-        Session session;
-        try {
-            session = client.startSession();
+    public String executeCommand(String command) throws TransportException, ConnectionException {
+        try (Session session = openSession(client)) {
+            Session.Command cmd = session.exec(command);
+            // Runs on the collector's virtual thread on every (re)connect, must not block inside sshj either
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new PollingInputStream(cmd.getInputStream(), cmd)));
+            String output = reader.lines().collect(Collectors.joining(System.lineSeparator()));
+            cmd.join(5, TimeUnit.SECONDS);
+            return output;
         }
-        catch (TransportException e) {
-            connect();
-            session = client.startSession();
+    }
+
+    /**
+     * Runs a command on the connection established by {@link #connect(int)}.
+     * Does not reconnect: once the connection is gone, e.g. dropped by the keepalive or a stalled read,
+     * the {@link com.gvenzl.collect.Collector} reconnects with its backoff and rediscovers the system.
+     * @param command the command line
+     * @return the reader over the output of the command
+     * @throws IOException if the connection is gone or the command cannot be run
+     */
+    @Override
+    public BufferedReader executeCommandAndRead(String command) throws IOException {
+        SSHClient client = this.client;
+        if (null == client || !client.isConnected() || !client.isAuthenticated()) {
+            throw new IOException("Connection to %s lost".formatted(hostName));
         }
 
+        Session session = openSession(client);
         Session.Command cmd = session.exec(command);
-        return new BufferedReader(new InputStreamReader(cmd.getInputStream()));
+        // Reads are done by virtual threads, which must not block inside sshj.
+        // A stalled read drops the connection, so that the collector reconnects.
+        return new BufferedReader(new InputStreamReader(
+                new PollingInputStream(cmd.getInputStream(), cmd, readTimeoutMs, this::close)));
     }
 
+    /**
+     * Sets the time after which a read of {@link #executeCommandAndRead(String)} fails if the host sends no data.
+     * Applies to the readers returned from then on.
+     * @param readTimeoutMs the read timeout in milliseconds, 0 to wait forever
+     */
+    @Override
+    public void setReadTimeoutMilliSeconds(int readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Returns the latency of establishing and authenticating the connection.
+     * @return the connect latency
+     */
+    public LatencyStats getConnectLatency() {
+        return connectLatency;
+    }
+
+    /**
+     * Returns the latency of opening a session channel on the connection.
+     * @return the session open latency
+     */
+    public LatencyStats getSessionOpenLatency() {
+        return sessionOpenLatency;
+    }
+
+    @Override
     public void close() {
+        SSHClient client = this.client;
+        if (null == client) {
+            return;
+        }
         try {
             client.close();
         } catch (IOException e) {
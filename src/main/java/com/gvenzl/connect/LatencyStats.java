@@ -0,0 +1,74 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: LatencyStats.java
+ * Description: Latency statistics of an operation.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.connect;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the executions of an operation and their latency, e.g. of opening SSH sessions.
+ * Safe to be updated and read by multiple threads.
+ */
+public class LatencyStats {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private volatile long lastNanos = 0;
+
+    /**
+     * Records an execution.
+     * @param nanos the latency of the execution in nanoseconds
+     */
+    public void record(long nanos) {
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        lastNanos = nanos;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public double getLastMillis() {
+        return lastNanos / NANOS_PER_MILLI;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the mean latency.
+     * @return the mean latency in milliseconds, 0 if there were no executions
+     */
+    public double getMeanMillis() {
+        long executions = count.get();
+        return executions == 0 ? 0 : totalNanos.get() / NANOS_PER_MILLI / executions;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: PollingInputStream.java
+ * Description: Channel input stream that does not pin virtual threads.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.connect;
+
+import net.schmizz.sshj.connection.channel.Channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps the input stream of an SSH channel so that reads don't pin virtual threads.
+ * sshj blocks in {@link Object#wait()} inside a synchronized block while waiting for data,
+ * which pins the carrier thread of a virtual thread.
+ * This stream sleeps instead until data is available, backing off up to {@link #MAX_POLL_MS}.
+ * <p>
+ * If no data arrives within the read timeout, the read fails with a {@link SocketTimeoutException}
+ * after running the stall handler, so that a host that went silent is noticed long before the TCP timeout.
+ * Closing the stream closes the channel as well.
+ */
+class PollingInputStream extends InputStream {
+
+    private static final long MIN_POLL_MS = 10;
+    private static final long MAX_POLL_MS = 200;
+
+    private final InputStream in;
+    private final Channel channel;
+    private final long readTimeoutNanos;
+    private final Runnable onStall;
+
+    PollingInputStream(InputStream in, Channel channel) {
+        this(in, channel, 0, null);
+    }
+
+    /**
+     * @param readTimeoutMs the maximum time to wait for data, 0 to wait forever
+     * @param onStall run before the read fails because of the read timeout
+     */
+    PollingInputStream(InputStream in, Channel channel, int readTimeoutMs, Runnable onStall) {
+        this.in = in;
+        this.channel = channel;
+        this.readTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(readTimeoutMs);
+        this.onStall = onStall;
+    }
+
+    private void awaitData() throws IOException {
+        long pause = MIN_POLL_MS;
+        long start = System.nanoTime();
+        // Once the channel is closed or at EOF, the read below returns without waiting
+        while (in.available() == 0 && channel.isOpen() && !channel.isEOF()) {
+            if (readTimeoutNanos > 0 && System.nanoTime() - start > readTimeoutNanos) {
+                if (null != onStall) {
+                    onStall.run();
+                }
+                throw new SocketTimeoutException("No data received for %d ms"
+                        .formatted(TimeUnit.NANOSECONDS.toMillis(readTimeoutNanos)));
+            }
+            try {
+                Thread.sleep(pause);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+            pause = Math.min(pause * 2, MAX_POLL_MS);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        awaitData();
+        return in.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        awaitData();
+        return in.read(b, off, len);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return in.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            in.close();
+        }
+        finally {
+            // Ends the remote command, otherwise it keeps running until the connection is closed
+            channel.close();
+        }
+    }
+}
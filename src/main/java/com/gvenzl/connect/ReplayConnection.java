@@ -0,0 +1,245 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: ReplayConnection.java
+ * Description: A connection that replays a text recording.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.connect;
+
+import com.gvenzl.record.RecordingHeader;
+import com.gvenzl.record.RecordingIndex;
+import com.gvenzl.system.OSInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link SampleSource} that replays a `.log` text recording instead of connecting to a system.
+ * The recorded vmstat lines are handed to the collector the same way as the output of a live `vmstat`,
+ * paced by their timestamps at the replay speed, so they go through the same parse, history and chart path.
+ * <p>
+ * The recording is indexed on first connect, see {@link RecordingIndex}, and can be navigated via {@link #seek(long)}.
+ * At the end of the recording the replay waits for a seek, or for the recording to grow if it is still being written.
+ */
+public class ReplayConnection implements SampleSource {
+
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+    static final long NO_SEEK = Long.MIN_VALUE;
+
+    private final Path file;
+    private final String name;
+    private RecordingIndex index;
+    private volatile OSInfo osInfo;
+
+    final ReentrantLock lock = new ReentrantLock();
+    // Signalled on seek, speed change, pause and close
+    final Condition changed = lock.newCondition();
+    private volatile double speed = 1;
+    private volatile boolean paused = false;
+    private long seekTarget = NO_SEEK;
+    private ReplayReader reader;
+
+    // Updated by the reader as lines are replayed
+    private volatile long position = -1;
+    private volatile long currentTime = Long.MIN_VALUE;
+    private volatile boolean atEnd = false;
+
+    /**
+     * Creates a connection that replays the given recording.
+     * @param file the text recording
+     */
+    public ReplayConnection(Path file) {
+        this.file = file;
+        // Names are used as node ids, keep them to characters that are valid in CSS selectors
+        this.name = "replay-" + file.getFileName().toString().replaceAll("[^A-Za-z0-9_-]", "-");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getHostName() {
+        return file.toString();
+    }
+
+    @Override
+    public OSInfo getOsInfo() {
+        return osInfo;
+    }
+
+    @Override
+    public void connect(int timeoutMilliSeconds) throws IOException {
+        if (null == index) {
+            index = RecordingIndex.build(file);
+        }
+
+        RecordingHeader header = index.getHeader();
+        OSInfo recorded = header.getOsInfo();
+        OSInfo info = new OSInfo();
+        info.setHostName(null != recorded.getHostName() ? recorded.getHostName() : header.getName());
+        info.setOs(null != recorded.getOs() ? recorded.getOs() : "Linux");
+        info.setArchitecture(null != recorded.getArchitecture() ? recorded.getArchitecture() : "");
+        info.setKernelVersion(null != recorded.getKernelVersion() ? recorded.getKernelVersion() : "");
+        info.setCpus(null != recorded.getCpus() ? recorded.getCpus() : 0);
+        info.setMemoryKB(null != recorded.getMemoryKB() ? recorded.getMemoryKB() : 0);
+        info.createVMStatPattern(header.getVMStatHeaders());
+        osInfo = info;
+    }
+
+    /**
+     * Returns a reader over the recorded vmstat lines, continuing where the previous reader stopped.
+     * @param command ignored, the refresh cycle of the recording is given by its timestamps
+     * @return the reader
+     * @throws IOException if the recording cannot be opened
+     */
+    @Override
+    public BufferedReader executeCommandAndRead(String command) throws IOException {
+        if (null == index) {
+            connect(0);
+        }
+        lock.lock();
+        try {
+            closeReader();
+            reader = new ReplayReader(this, index, position >= 0 ? position : index.getDataOffset());
+            return reader;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closeReader();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeReader() {
+        if (null != reader) {
+            reader.closeQuietly();
+            reader = null;
+        }
+    }
+
+    /**
+     * Sets the replay speed.
+     * @param speed the factor of the recorded pace, e.g. 1 or 10, or {@link #MAX_SPEED} to replay without delays
+     */
+    public void setSpeed(double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be positive, was %s".formatted(speed));
+        }
+        this.speed = speed;
+        signal();
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        signal();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Continues the replay with the first sample at or after the given time.
+     * @param timeMillis the epoch milliseconds to seek to
+     */
+    public void seek(long timeMillis) {
+        lock.lock();
+        try {
+            seekTarget = timeMillis;
+            changed.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns and clears the pending seek target. Must be called with the lock held.
+     */
+    long takeSeekTarget() {
+        long target = seekTarget;
+        seekTarget = NO_SEEK;
+        return target;
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    void replayed(long nextPosition, long time) {
+        position = nextPosition;
+        currentTime = time;
+        atEnd = false;
+    }
+
+    void reachedEnd() {
+        atEnd = true;
+    }
+
+    /**
+     * Returns the time of the last replayed sample.
+     * @return the epoch milliseconds of the last replayed sample, or {@link Long#MIN_VALUE} if none was replayed yet
+     */
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * Returns whether the replay has reached the end of the recording.
+     * @return true if all samples have been replayed
+     */
+    public boolean isAtEnd() {
+        return atEnd;
+    }
+
+    /**
+     * Returns the index of the recording, built on first connect.
+     * @return the index or null if not connected yet
+     */
+    public RecordingIndex getIndex() {
+        return index;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
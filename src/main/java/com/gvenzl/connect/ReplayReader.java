@@ -0,0 +1,193 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: ReplayReader.java
+ * Description: Reads the vmstat lines of a recording at the replay speed.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.connect;
+
+import com.gvenzl.record.RecordingIndex;
+import com.gvenzl.record.TextRecordingReader;
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.VMStat;
+import com.gvenzl.system.VMStatParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out the lines of a recording like the output of a live `vmstat`:
+ * first the two header lines, then one sample line per recorded refresh cycle, divided by the replay speed.
+ * Only {@link #readLine()} is supported.
+ * <p>
+ * Waits on a {@link java.util.concurrent.locks.Condition} rather than a monitor,
+ * as it is read by a virtual thread.
+ */
+class ReplayReader extends BufferedReader {
+
+    // Gaps in the recording, e.g. between two recording sessions, are not replayed in full
+    private static final long MAX_DELAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final ReplayConnection conn;
+    private final RecordingIndex index;
+    private final TextRecordingReader reader;
+    private final String[] headers;
+    private int nextHeader = 0;
+    private final VMStatParser parser;
+    private final DataPoint dp = new DataPoint();
+    private boolean closed = false;
+    private long lastTime = NO_TIME;
+    private long lastNanos = 0;
+
+    ReplayReader(ReplayConnection conn, RecordingIndex index, long position) throws IOException {
+        super(Reader.nullReader());
+        this.conn = conn;
+        this.index = index;
+        this.headers = index.getHeader().getVMStatHeaders().split("\n", 2);
+        this.parser = new VMStatParser(new VMStat(index.getHeader().getVMStatHeaders()));
+        this.reader = new TextRecordingReader(index.getFile());
+        this.reader.seek(position);
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (nextHeader < headers.length) {
+            return headers[nextHeader++];
+        }
+
+        conn.lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    return null;
+                }
+
+                long target = conn.takeSeekTarget();
+                if (target != ReplayConnection.NO_SEEK) {
+                    seek(target);
+                }
+
+                if (conn.isPaused()) {
+                    awaitChange(POLL_NANOS);
+                    continue;
+                }
+
+                long offset = reader.position();
+                String line = reader.readLine();
+                if (null == line) {
+                    // End of the recording, wait for a seek or for more lines
+                    conn.reachedEnd();
+                    awaitChange(POLL_NANOS);
+                    continue;
+                }
+
+                if (!parser.parse(line, dp)) {
+                    // Let the collector deal with it
+                    conn.replayed(reader.position(), conn.getCurrentTime());
+                    return line;
+                }
+
+                long time = dp.getDateTimeMillis();
+                double speed = conn.getSpeed();
+                if (lastTime != NO_TIME && time > lastTime && speed != ReplayConnection.MAX_SPEED) {
+                    long delay = Math.min((long) ((time - lastTime) * 1_000_000d / speed), MAX_DELAY_NANOS);
+                    long remaining = lastNanos + delay - System.nanoTime();
+                    if (remaining > 0) {
+                        // Woken up early by a seek, speed change, pause or close: start over with this line
+                        if (awaitChange(remaining)) {
+                            reader.seek(offset);
+                            continue;
+                        }
+                    }
+                }
+
+                lastTime = time;
+                lastNanos = System.nanoTime();
+                conn.replayed(reader.position(), time);
+                return line;
+            }
+        }
+        finally {
+            conn.lock.unlock();
+        }
+    }
+
+    /**
+     * Positions the reader at the first sample at or after the given time.
+     */
+    private void seek(long timeMillis) throws IOException {
+        reader.seek(index.offsetOf(timeMillis));
+        while (true) {
+            long offset = reader.position();
+            String line = reader.readLine();
+            if (null == line) {
+                break;
+            }
+            if (parser.parse(line, dp) && dp.getDateTimeMillis() >= timeMillis) {
+                reader.seek(offset);
+                break;
+            }
+        }
+        lastTime = NO_TIME;
+    }
+
+    /**
+     * Waits for a change of the replay state. Must be called with the lock held.
+     * @return true if woken up by a change, false if the time elapsed
+     */
+    private boolean awaitChange(long nanos) throws IOException {
+        try {
+            return conn.changed.awaitNanos(nanos) > 0;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Replay interrupted", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        conn.lock.lock();
+        try {
+            closeQuietly();
+        }
+        finally {
+            conn.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the reader. Must be called with the lock held.
+     */
+    void closeQuietly() {
+        if (!closed) {
+            closed = true;
+            conn.changed.signalAll();
+            try {
+                reader.close();
+            }
+            catch (IOException e) {
+                // Ignore, nothing left to read
+            }
+        }
+    }
+}
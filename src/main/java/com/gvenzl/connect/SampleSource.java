@@ -0,0 +1,82 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: SampleSource.java
+ * Description: Where a collector gets the vmstat output of a system from.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.connect;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.system.OSInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * The source of the `vmstat` output of a system that a {@link Collector} reads from:
+ * an SSH {@link Connection} to the system, a {@link ReplayConnection} of a recording,
+ * or a {@link StreamConnection} to another SysMonitor.
+ * <p>
+ * All methods except {@link #close()} are only called by the collector's virtual thread.
+ * {@link #close()} may be called by any thread and must make a blocked read return.
+ */
+public interface SampleSource {
+
+    String getName();
+
+    /**
+     * Returns where the samples come from, as shown to the user.
+     * @return the host name, address or file
+     */
+    String getHostName();
+
+    /**
+     * (Re)establishes the source and retrieves the {@link OSInfo} of the system.
+     * @param timeoutMilliSeconds the connect timeout, 0 to wait forever
+     * @throws IOException if the source cannot be reached
+     */
+    void connect(int timeoutMilliSeconds) throws IOException;
+
+    /**
+     * Returns the {@link OSInfo} retrieved by the last {@link #connect(int)}.
+     * @return the {@link OSInfo} or null if the operating system is not supported
+     */
+    OSInfo getOsInfo();
+
+    /**
+     * Runs a `vmstat` command and returns a reader over its output, starting with the two header lines.
+     * Sources that do not run commands hand out their samples the same way and ignore the command.
+     * @param command the `vmstat` command line
+     * @return the reader over the output
+     * @throws IOException if the command cannot be run
+     */
+    BufferedReader executeCommandAndRead(String command) throws IOException;
+
+    /**
+     * Sets the time after which a read of {@link #executeCommandAndRead(String)} fails if the system sends no data.
+     * Sources that pace the samples themselves, e.g. a replay, may ignore it.
+     * @param readTimeoutMs the read timeout in milliseconds, 0 to wait forever
+     */
+    default void setReadTimeoutMilliSeconds(int readTimeoutMs) {
+    }
+
+    /**
+     * Closes the source. A blocked read returns, the next {@link #connect(int)} opens it again.
+     */
+    void close();
+}
@@ -0,0 +1,242 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: StreamConnection.java
+ * Description: Connection that consumes the sample stream of another SysMonitor instead of SSH.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.connect;
+
+import com.gvenzl.metrics.SampleStream;
+import com.gvenzl.system.OSInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link SampleSource} that receives the samples of a system from the {@link SampleStream} of another SysMonitor,
+ * e.g. one running in headless mode with {@code --metrics-port}, instead of connecting to the system via SSH.
+ * All viewers of a stream share the one SSH session and `vmstat` of the streaming SysMonitor.
+ * <p>
+ * The samples are handed to the collector the same way as the output of a live `vmstat`,
+ * the refresh cycle is the one of the streaming SysMonitor.
+ */
+public class StreamConnection implements SampleSource {
+
+    // The stream sends a heartbeat while there are no samples, wait for a few before giving up
+    private static final int MIN_READ_TIMEOUT_MS = (int) TimeUnit.NANOSECONDS.toMillis(3 * SampleStream.HEARTBEAT_NANOS);
+
+    private final URI server;
+    private final URI uri;
+    private final String name;
+    private volatile OSInfo osInfo;
+    private final ReentrantLock lock = new ReentrantLock();
+    private StreamReader reader;
+    // Whether the reader opened by connect() has not been handed to the collector yet
+    private boolean fresh = false;
+    // Incremented by close(), so that a stream opened concurrently to a close is not kept
+    private long closes = 0;
+    private int connectTimeoutMs = 0;
+    private volatile int readTimeoutMs = 0;
+
+    /**
+     * Creates a connection to the stream of a system.
+     * @param server the address of the streaming SysMonitor, e.g. {@code http://jumpbox:9300}
+     * @param name the name of the system at the streaming SysMonitor
+     */
+    public StreamConnection(URI server, String name) {
+        this.server = server;
+        this.uri = resolve(server, SampleStream.PATH + "/" + name);
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getHostName() {
+        return server.getHost();
+    }
+
+    @Override
+    public OSInfo getOsInfo() {
+        return osInfo;
+    }
+
+    @Override
+    public void setReadTimeoutMilliSeconds(int readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Opens the stream and waits for the system information.
+     * @param timeoutMilliSeconds the connect timeout, 0 to wait forever
+     * @throws IOException if the stream cannot be opened
+     */
+    @Override
+    public void connect(int timeoutMilliSeconds) throws IOException {
+        close();
+        connectTimeoutMs = timeoutMilliSeconds;
+        StreamReader newReader = open();
+        osInfo = newReader.getOsInfo();
+        lock.lock();
+        try {
+            fresh = true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a reader over the streamed vmstat lines.
+     * The first call after {@link #connect(int)} returns the stream opened by it, later calls reopen the stream.
+     * @param command ignored, the refresh cycle is given by the streaming SysMonitor
+     * @return the reader
+     * @throws IOException if the stream cannot be opened or the vmstat layout of the system changed
+     */
+    @Override
+    public BufferedReader executeCommandAndRead(String command) throws IOException {
+        lock.lock();
+        try {
+            if (fresh && null != reader) {
+                fresh = false;
+                return reader;
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        StreamReader newReader = open();
+        OSInfo osInfo = this.osInfo;
+        if (null != osInfo && !newReader.getOsInfo().getVMStatOutput().equals(osInfo.getVMStatOutput())) {
+            close();
+            throw new IOException("vmstat layout of the streamed system changed");
+        }
+        return newReader;
+    }
+
+    /**
+     * Opens the stream and reads the system information, closing the previous stream.
+     * The stream is registered before it is read, so that {@link #close()} can abort the wait.
+     */
+    private StreamReader open() throws IOException {
+        long closed;
+        lock.lock();
+        try {
+            closed = closes;
+        }
+        finally {
+            lock.unlock();
+        }
+
+        HttpURLConnection http = (HttpURLConnection) uri.toURL().openConnection();
+        http.setConnectTimeout(connectTimeoutMs);
+        http.setReadTimeout(Math.max(readTimeoutMs, MIN_READ_TIMEOUT_MS));
+        http.setRequestProperty("Accept", "text/event-stream");
+        if (http.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            int status = http.getResponseCode();
+            http.disconnect();
+            throw new IOException("Cannot open stream %s: HTTP %d".formatted(uri, status));
+        }
+
+        StreamReader newReader = new StreamReader(http);
+        lock.lock();
+        try {
+            if (closed != closes) {
+                newReader.close();
+                throw new IOException("Stream %s has been closed".formatted(uri));
+            }
+            closeReader();
+            reader = newReader;
+        }
+        finally {
+            lock.unlock();
+        }
+        newReader.readInfo();
+        return newReader;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closes++;
+            closeReader();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeReader() {
+        if (null != reader) {
+            reader.close();
+            reader = null;
+            fresh = false;
+        }
+    }
+
+    public URI getServer() {
+        return server;
+    }
+
+    /**
+     * Returns the names of the systems streamed by a SysMonitor.
+     * @param server the address of the streaming SysMonitor, e.g. {@code http://jumpbox:9300}
+     * @param timeoutMilliSeconds the connect and read timeout
+     * @return the names of the streamed systems
+     * @throws IOException if the list cannot be retrieved
+     */
+    public static List<String> listSystems(URI server, int timeoutMilliSeconds) throws IOException {
+        HttpURLConnection http = (HttpURLConnection) resolve(server, SampleStream.PATH).toURL().openConnection();
+        http.setConnectTimeout(timeoutMilliSeconds);
+        http.setReadTimeout(timeoutMilliSeconds);
+        try {
+            if (http.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Cannot list streamed systems of %s: HTTP %d".formatted(server, http.getResponseCode()));
+            }
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(http.getInputStream(), StandardCharsets.UTF_8))) {
+                return in.lines().filter(name -> !name.isBlank()).toList();
+            }
+        }
+        finally {
+            http.disconnect();
+        }
+    }
+
+    private static URI resolve(URI server, String path) {
+        try {
+            // Encodes the system name, which may contain spaces
+            return new URI(server.getScheme(), server.getAuthority(), path, null, null);
+        }
+        catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid stream address: %s".formatted(server), e);
+        }
+    }
+}
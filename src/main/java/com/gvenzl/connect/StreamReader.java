@@ -0,0 +1,193 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: StreamReader.java
+ * Description: Reads the vmstat lines from a server-sent events stream of another SysMonitor.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.connect;
+
+import com.gvenzl.system.OSInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hands out the events of a {@link com.gvenzl.metrics.SampleStream} like the output of a live `vmstat`:
+ * first the two header lines, then the line of every {@code sample} event.
+ * Only {@link #readLine()} is supported.
+ */
+class StreamReader extends BufferedReader {
+
+    private final HttpURLConnection http;
+    private final BufferedReader in;
+    private OSInfo osInfo;
+    private String headers;
+    private String[] headerLines;
+    private int nextHeader = 0;
+
+    StreamReader(HttpURLConnection http) throws IOException {
+        super(Reader.nullReader());
+        this.http = http;
+        this.in = new BufferedReader(new InputStreamReader(http.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the events until the {@code info} and {@code headers} of the system have been received.
+     * @return the {@link OSInfo} of the system
+     * @throws IOException if the stream ends before
+     */
+    OSInfo readInfo() throws IOException {
+        OSInfo info = null;
+        while (null == info || null == headers) {
+            Event event = nextEvent();
+            if (null == event) {
+                throw new IOException("Stream ended before the system information was received");
+            }
+            switch (event.type()) {
+                case "info" -> info = parseInfo(event.data());
+                case "headers" -> headers = event.data();
+                default -> {
+                    // Samples before the headers cannot be parsed
+                }
+            }
+        }
+        info.createVMStatPattern(headers);
+        headerLines = headers.split("\n", 2);
+        osInfo = info;
+        return info;
+    }
+
+    OSInfo getOsInfo() {
+        return osInfo;
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (nextHeader < headerLines.length) {
+            return headerLines[nextHeader++];
+        }
+        Event event;
+        while (null != (event = nextEvent())) {
+            switch (event.type()) {
+                case "sample" -> {
+                    return event.data();
+                }
+                case "headers" -> {
+                    // A different vmstat layout needs a new parser, end the stream so that the collector reconnects
+                    if (!headers.equals(event.data())) {
+                        return null;
+                    }
+                }
+                default -> {
+                    // info is only read on connect
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next event, skipping comments such as heartbeats.
+     * @return the event or null at the end of the stream
+     */
+    private Event nextEvent() throws IOException {
+        String type = "message";
+        StringBuilder data = null;
+        String line;
+        while (null != (line = in.readLine())) {
+            if (line.isEmpty()) {
+                if (null != data) {
+                    return new Event(type, data.toString());
+                }
+                type = "message";
+            }
+            else if (line.startsWith("event:")) {
+                type = field(line, 6);
+            }
+            else if (line.startsWith("data:")) {
+                if (null == data) {
+                    data = new StringBuilder();
+                }
+                else {
+                    data.append('\n');
+                }
+                data.append(field(line, 5));
+            }
+            // Comments, id and retry fields are not needed
+        }
+        return null;
+    }
+
+    private static String field(String line, int start) {
+        return line.startsWith(" ", start) ? line.substring(start + 1) : line.substring(start);
+    }
+
+    private static OSInfo parseInfo(String data) throws IOException {
+        OSInfo info = new OSInfo();
+        info.setOs("Linux");
+        info.setCpus(0);
+        info.setMemoryKB(0L);
+        for (String line : data.split("\n")) {
+            int eq = line.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            String value = line.substring(eq + 1);
+            switch (line.substring(0, eq)) {
+                case "hostName" -> info.setHostName(value);
+                case "os" -> info.setOs(value);
+                case "architecture" -> info.setArchitecture(value);
+                case "kernelVersion" -> info.setKernelVersion(value);
+                case "cpuType" -> info.setCpuType(value);
+                case "cpus" -> info.setCpus(parseNumber(line, value).intValue());
+                case "memoryKB" -> info.setMemoryKB(parseNumber(line, value));
+                default -> {
+                    // Ignore fields of newer versions
+                }
+            }
+        }
+        return info;
+    }
+
+    private static Long parseNumber(String line, String value) throws IOException {
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Invalid system information: '%s'".formatted(line));
+        }
+    }
+
+    @Override
+    public void close() {
+        http.disconnect();
+        try {
+            in.close();
+        }
+        catch (IOException e) {
+            // Ignore, the stream is not used anymore
+        }
+    }
+
+    private record Event(String type, String data) {
+    }
+}
@@ -2,7 +2,7 @@
  * Since: March 2025
  * Author: gvenzl
  * Name: SysLogger.java
- * Description:
+ * Description: The application log.
  *
  * Copyright 2025 Gerald Venzl
  *
@@ -27,59 +27,270 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * The application log, written to `SysMonitor.log` in the configured log directory.
+ * <p>
+ * Callers never wait for the log file: messages are handed over via a lock-free queue
+ * and written with their time and level by a background writer thread.
+ * If the writer falls behind by more than {@link #MAX_QUEUED} messages, new messages are dropped and counted.
+ * Messages logged with a key are rate limited per key, see {@link #log(LogLevel, String, String)}.
+ */
 public class SysLogger {
 
-    private static SysLogger instance = null;
+    public static final int MAX_QUEUED = 10_000;
+    public static final int RATE_LIMIT = 10;
+    public static final long RATE_LIMIT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() is O(n), keep count separately
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final ConcurrentHashMap<String, RateLimit> rateLimits = new ConcurrentHashMap<>();
+    private volatile LogLevel level = LogLevel.INFO;
+    private volatile boolean run = true;
+    private final Thread writer;
+
+    // Only accessed by the writer thread
     private BufferedWriter logWriter = null;
+    private long reportedDropped = 0;
+
+    /**
+     * A message, or the request to switch to another log file if {@code switchTo} is true.
+     */
+    private record Entry(long timeMillis, LogLevel level, String message, boolean switchTo, BufferedWriter newWriter) {}
 
-    private SysLogger (String logFilePath) throws IOException {
-        setLogFilePath(logFilePath);
+    /**
+     * The messages logged for a key within the current window.
+     */
+    private static class RateLimit {
+        private long windowStart;
+        private int count;
+        private long suppressed;
     }
 
+    private SysLogger (String logFilePath) {
+        writer = Thread.ofPlatform().name("Log writer").daemon(true).start(this::writeLoop);
+        try {
+            setLogFilePath(logFilePath);
+        }
+        catch (IOException e) {
+            System.err.printf("Cannot create log file: %s%n", e.getMessage());
+        }
+    }
+
+    /**
+     * Switches to the log file in the given directory. Messages logged before are still written to the previous file.
+     * @param path the log directory, or an empty path to stop logging
+     * @throws IOException if the new log file cannot be opened
+     */
     public void setLogFilePath(String path) throws IOException {
+        BufferedWriter newWriter = null;
 
         // If empty path is provided, stop logging
-        if (null == path || path.isEmpty()) {
-            if (null != logWriter) {
-                logWriter.flush();
-                logWriter.close();
-                logWriter = null;
-            }
-        }
-        else {
-            if (null != logWriter) {
-                logWriter.flush();
-                logWriter.close();
-            }
+        if (null != path && !path.isEmpty()) {
+            // Open the file on the caller's thread, so that the caller learns about errors
             String logFile = path + File.separator + "SysMonitor.log";
-            logWriter = new BufferedWriter(new FileWriter(logFile, true));
+            newWriter = new BufferedWriter(new FileWriter(logFile, true));
         }
+        queued.incrementAndGet();
+        queue.offer(new Entry(0, null, null, true, newWriter));
+        LockSupport.unpark(writer);
     }
 
-    public static synchronized SysLogger getInstance()
-    {
-        if (instance == null) {
+    /**
+     * Creates the logger on first use. Every log call goes through {@link #getInstance()},
+     * the class initialization makes that a plain field read instead of a lock.
+     */
+    private static class Holder {
+        private static final SysLogger INSTANCE = create();
+
+        private static SysLogger create() {
+            String path = null;
             try {
-                String path = Config.getInstance().getLogDirPath();
-                try {
-                    instance = new SysLogger(path);
-                }
-                catch (IOException e) {
-                    System.err.printf("Cannot create log file: %s%n", e.getMessage());
-                }
+                path = Config.getInstance().getLogDirPath();
             }
             catch (IOException e) {
                 System.err.printf("Cannot get logfile config: %s%n", e.getMessage());
             }
+            return new SysLogger(path);
+        }
+    }
+
+    public static SysLogger getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Sets the lowest level of the messages written.
+     * @param level the lowest level written
+     */
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns whether messages of the given level are written,
+     * so that callers can skip formatting messages that would be discarded.
+     * @param level the level of the message
+     * @return true if messages of the level are written
+     */
+    public boolean isEnabled(LogLevel level) {
+        return level.compareTo(this.level) >= 0;
+    }
+
+    public void log(String output) {
+        log(LogLevel.INFO, output);
+    }
+
+    public void error(String output) {
+        log(LogLevel.ERROR, output);
+    }
+
+    public void warn(String output) {
+        log(LogLevel.WARN, output);
+    }
+
+    public void debug(String output) {
+        log(LogLevel.DEBUG, output);
+    }
+
+    /**
+     * Queues a message for the log file. Never blocks.
+     * @param level the level of the message
+     * @param output the message
+     */
+    public void log(LogLevel level, String output) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        int depth = queued.incrementAndGet();
+        if (depth > MAX_QUEUED) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.offer(new Entry(System.currentTimeMillis(), level, output, false, null));
+        // Only wake up the writer if it may have gone to sleep on an empty queue, it checks again at least once a second
+        if (depth == 1) {
+            LockSupport.unpark(writer);
         }
-        return instance;
     }
 
-    public synchronized void log(String output) {
+    /**
+     * Queues a message that may repeat at a high rate, e.g. for every sample that cannot be parsed.
+     * At most {@link #RATE_LIMIT} messages per key are written per {@link #RATE_LIMIT_WINDOW_MILLIS},
+     * the number of suppressed messages is added to the first message of the next window.
+     * @param level the level of the message
+     * @param key identifies the messages that are limited together, e.g. the system and the kind of error
+     * @param output the message
+     */
+    public void log(LogLevel level, String key, String output) {
+        if (!isEnabled(level)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long previouslySuppressed;
+        RateLimit limit = rateLimits.computeIfAbsent(key, k -> new RateLimit());
+        synchronized (limit) {
+            if (now - limit.windowStart >= RATE_LIMIT_WINDOW_MILLIS) {
+                limit.windowStart = now;
+                limit.count = 0;
+            }
+            if (++limit.count > RATE_LIMIT) {
+                limit.suppressed++;
+                suppressed.incrementAndGet();
+                return;
+            }
+            previouslySuppressed = limit.suppressed;
+            limit.suppressed = 0;
+        }
+
+        log(level, previouslySuppressed > 0
+                ? "%s (%d similar messages suppressed)".formatted(output, previouslySuppressed)
+                : output);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Entry entry;
+            boolean written = false;
+            while (null != (entry = queue.poll())) {
+                queued.decrementAndGet();
+                written |= process(entry);
+            }
+
+            written |= reportDropped();
+            if (written) {
+                flush();
+            }
+
+            if (!run && queue.isEmpty()) {
+                closeWriter();
+                return;
+            }
+            else if (queue.isEmpty()) {
+                LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    /**
+     * @return true if a message was written
+     */
+    private boolean process(Entry entry) {
+        if (entry.switchTo()) {
+            // The messages were dropped while writing to the previous file
+            reportDropped();
+            closeWriter();
+            logWriter = entry.newWriter();
+            return false;
+        }
+        write(entry.timeMillis(), entry.level(), entry.message());
+        return null != logWriter;
+    }
+
+    /**
+     * @return true if messages had been dropped since the last report
+     */
+    private boolean reportDropped() {
+        long droppedNow = dropped.get();
+        if (droppedNow == reportedDropped) {
+            return false;
+        }
+        write(System.currentTimeMillis(), LogLevel.WARN,
+                "SysLogger: %d messages dropped, the log writer fell behind".formatted(droppedNow - reportedDropped));
+        reportedDropped = droppedNow;
+        return null != logWriter;
+    }
+
+    private void write(long timeMillis, LogLevel level, String message) {
         if (null != logWriter) {
             try {
-                logWriter.write(output);
+                TIME_FORMAT.formatTo(Instant.ofEpochMilli(timeMillis), logWriter);
+                logWriter.write(' ');
+                logWriter.write(level.name());
+                logWriter.write(": ");
+                logWriter.write(message);
                 logWriter.newLine();
             } catch (IOException e) {
                 System.err.println(e.getMessage());
@@ -87,15 +298,69 @@ public class SysLogger {
         }
     }
 
-    public synchronized void error(String output) {
+    private void flush() {
         if (null != logWriter) {
             try {
-                logWriter.write("ERROR: ");
-                logWriter.write(output);
-                logWriter.newLine();
-            } catch (IOException e) {
+                logWriter.flush();
+            }
+            catch (IOException e) {
                 System.err.println(e.getMessage());
             }
         }
     }
+
+    private void closeWriter() {
+        if (null != logWriter) {
+            try {
+                logWriter.flush();
+                logWriter.close();
+            }
+            catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+            logWriter = null;
+        }
+    }
+
+    /**
+     * Writes all queued messages, closes the log file and stops the writer thread.
+     * Messages logged afterwards are discarded.
+     * @param timeout the maximum time to wait for the writer thread
+     * @return true if the writer thread finished within the timeout
+     */
+    public boolean shutdown(Duration timeout) {
+        run = false;
+        LockSupport.unpark(writer);
+        try {
+            return writer.join(timeout);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of messages waiting for the writer thread.
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the number of messages dropped because the writer thread fell behind.
+     * @return the messages dropped
+     */
+    public long getDroppedMessages() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of messages suppressed by the per key rate limit.
+     * @return the messages suppressed
+     */
+    public long getSuppressedMessages() {
+        return suppressed.get();
+    }
 }
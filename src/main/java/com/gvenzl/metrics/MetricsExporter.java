@@ -0,0 +1,163 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: MetricsExporter.java
+ * Description: Serves the collector samples via HTTP for Prometheus and other OpenMetrics scrapers.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.metrics;
+
+import com.gvenzl.collect.CollectorEngine;
+import com.gvenzl.log.LogLevel;
+import com.gvenzl.log.SysLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Embedded HTTP endpoint that serves the metrics of all collectors at {@value #PATH} in the OpenMetrics text format.
+ * <p>
+ * The metrics are encoded by a background thread once per interval and published as a byte array,
+ * a scrape only writes the latest array to the socket.
+ * Scrapes therefore take microseconds and never wait for the collectors or the JavaFX application thread.
+ * <p>
+ * The same endpoint streams the live samples at {@value SampleStream#PATH}, see {@link SampleStream}.
+ */
+public class MetricsExporter {
+
+    public static final String PATH = "/metrics";
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private final HttpServer server;
+    private final long intervalNanos;
+    private final OpenMetricsEncoder encoder = new OpenMetricsEncoder();
+    private final SampleStream stream = new SampleStream();
+    private volatile byte[] snapshot = "# EOF\n".getBytes(StandardCharsets.UTF_8);
+    private volatile boolean run = false;
+    private Thread thread;
+
+    /**
+     * Creates a new exporter, the endpoint is not served until {@link #start()} is called.
+     * @param address the address to listen on, port 0 picks a free port
+     * @param interval the interval between two encodings of the metrics, e.g. the refresh cycle
+     * @throws IOException if the address cannot be bound
+     */
+    public MetricsExporter(InetSocketAddress address, Duration interval) throws IOException {
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext(PATH, this::handle);
+        this.server.createContext(SampleStream.PATH, stream);
+        // Streams occupy their request thread for as long as the viewer is connected
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Encodes the first snapshot and starts serving the endpoint.
+     * @throws IllegalStateException if the exporter has already been started
+     */
+    public synchronized void start() {
+        if (null != thread) {
+            throw new IllegalStateException("Metrics exporter has already been started");
+        }
+        run = true;
+        encode();
+        thread = Thread.ofPlatform().daemon().name("Metrics encoder").start(this::encodeLoop);
+        server.start();
+    }
+
+    /**
+     * Stops serving the endpoint, open scrapes are closed right away.
+     */
+    public synchronized void stop() {
+        run = false;
+        if (null != thread) {
+            LockSupport.unpark(thread);
+        }
+        stream.close();
+        server.stop(0);
+    }
+
+    /**
+     * Returns the {@link SampleStream} served by this endpoint, to be added as listener to the collectors.
+     * @return the sample stream
+     */
+    public SampleStream getSampleStream() {
+        return stream;
+    }
+
+    /**
+     * Returns the address the endpoint is served on, e.g. to find the port picked for port 0.
+     * @return the bound address
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void encodeLoop() {
+        long next = System.nanoTime() + intervalNanos;
+        while (run) {
+            long remaining = next - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(this, remaining);
+                continue;
+            }
+            next += intervalNanos;
+            encode();
+        }
+    }
+
+    private void encode() {
+        try {
+            snapshot = encoder.encode(CollectorEngine.getInstance().getCollectors(), stream);
+        }
+        catch (RuntimeException e) {
+            SysLogger.getInstance().log(LogLevel.ERROR, "metrics",
+                    "Metrics: Cannot encode metrics: %s".formatted(e.getMessage()));
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!PATH.equals(exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = snapshot;
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+            }
+            else {
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: OpenMetricsEncoder.java
+ * Description: Encodes the collector samples in the OpenMetrics text format.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.metrics;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.connect.Connection;
+import com.gvenzl.connect.LatencyStats;
+import com.gvenzl.log.SysLogger;
+import com.gvenzl.record.RecordingService;
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.Metric;
+import com.gvenzl.system.SampleHistory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Encodes the latest sample of every {@link Collector} and the self-metrics of SysMonitor
+ * in the <a href="https://openmetrics.io">OpenMetrics</a> text format.
+ * An instance is not thread-safe; it is used by the single encoder thread of the {@link MetricsExporter}.
+ */
+public class OpenMetricsEncoder {
+
+    private static final String PREFIX = "sysmonitor_";
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final StringBuilder out = new StringBuilder(64 * 1024);
+    private final List<Collector> collectors = new ArrayList<>();
+    private final List<DataPoint> latest = new ArrayList<>();
+
+    /**
+     * Encodes the metrics of the given collectors.
+     * @param source the collectors to encode
+     * @param stream the {@link SampleStream} to report the viewers of, may be null
+     * @return the UTF-8 encoded metrics, terminated by {@code # EOF}
+     */
+    public byte[] encode(Collection<Collector> source, SampleStream stream) {
+        out.setLength(0);
+        collectors.clear();
+        collectors.addAll(source);
+        collectors.sort((c1, c2) -> c1.getName().compareTo(c2.getName()));
+
+        // Read the latest sample once per collector, a collector without samples only reports its state
+        for (int i = 0; i < collectors.size(); i++) {
+            if (latest.size() == i) {
+                latest.add(new DataPoint());
+            }
+            SampleHistory history = collectors.get(i).getHistory();
+            if (!history.get(history.getNextSequence() - 1, latest.get(i))) {
+                latest.get(i).setDateTime(0);
+            }
+        }
+
+        family("up", "gauge", "Whether the collector is connected to the system.");
+        for (Collector c : collectors) {
+            sample("up", c, c.isConnected() ? 1 : 0);
+        }
+        family("sample_timestamp_seconds", "gauge", "Time of the latest sample of the system.");
+        for (int i = 0; i < collectors.size(); i++) {
+            if (latest.get(i).getDateTimeMillis() > 0) {
+                sample("sample_timestamp_seconds", collectors.get(i), latest.get(i).getDateTimeMillis() / 1000d);
+            }
+        }
+        for (Metric metric : Metric.all()) {
+            family(metric.getKey(), "gauge", "vmstat column '%s' of the latest sample.".formatted(metric.getColumn()));
+            for (int i = 0; i < collectors.size(); i++) {
+                if (latest.get(i).getDateTimeMillis() > 0) {
+                    sample(metric.getKey(), collectors.get(i), metric.get(latest.get(i)));
+                }
+            }
+        }
+
+        family("collector_samples", "counter", "Samples received by the collector.");
+        for (Collector c : collectors) {
+            sample("collector_samples_total", c, c.getHistory().getNextSequence());
+        }
+        family("collector_parse_errors", "counter", "Lines that the collector could not parse.");
+        for (Collector c : collectors) {
+            sample("collector_parse_errors_total", c, c.getParseErrors());
+        }
+        family("collector_failed_connects", "counter", "Failed connection attempts of the collector.");
+        for (Collector c : collectors) {
+            sample("collector_failed_connects_total", c, c.getFailedConnects());
+        }
+        summary("ssh_connect_seconds", "Time to establish and authenticate SSH connections.",
+                Connection::getConnectLatency);
+        summary("ssh_session_open_seconds", "Time to open SSH sessions.", Connection::getSessionOpenLatency);
+
+        RecordingService recording = RecordingService.getInstance();
+        family("recording_queue_depth", "gauge", "Samples waiting to be written to the recordings.");
+        sample("recording_queue_depth", null, recording.getQueueDepth());
+        family("recording_written_samples", "counter", "Samples written to the recordings.");
+        sample("recording_written_samples_total", null, recording.getWrittenSamples());
+        family("recording_dropped_samples", "counter", "Samples dropped because the recording queue was full.");
+        sample("recording_dropped_samples_total", null, recording.getDroppedSamples());
+
+        SysLogger logger = SysLogger.getInstance();
+        family("log_dropped_messages", "counter", "Log messages dropped because the log queue was full.");
+        sample("log_dropped_messages_total", null, logger.getDroppedMessages());
+        family("log_suppressed_messages", "counter", "Log messages suppressed by the rate limit.");
+        sample("log_suppressed_messages_total", null, logger.getSuppressedMessages());
+
+        if (null != stream) {
+            family("stream_viewers", "gauge", "Viewers connected to the sample stream.");
+            sample("stream_viewers", null, stream.getViewers());
+            family("stream_dropped_events", "counter", "Events dropped because a viewer fell behind.");
+            sample("stream_dropped_events_total", null, stream.getDroppedEvents());
+        }
+
+        out.append("# EOF\n");
+        collectors.clear();
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void summary(String name, String help, Function<Connection, LatencyStats> latency) {
+        family(name, "summary", help);
+        for (Collector c : collectors) {
+            // Replays and streams have no SSH latencies
+            if (c.getSource() instanceof Connection conn) {
+                LatencyStats stats = latency.apply(conn);
+                sample(name + "_count", c, stats.getCount());
+                sample(name + "_sum", c, stats.getTotalNanos() / NANOS_PER_SECOND);
+            }
+        }
+    }
+
+    private void family(String name, String type, String help) {
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+    }
+
+    private void sample(String name, Collector collector, long value) {
+        labels(name, collector);
+        out.append(value).append('\n');
+    }
+
+    private void sample(String name, Collector collector, double value) {
+        labels(name, collector);
+        out.append(value).append('\n');
+    }
+
+    private void labels(String name, Collector collector) {
+        out.append(PREFIX).append(name);
+        if (null != collector) {
+            out.append("{system=\"");
+            escape(collector.getName());
+            out.append("\"}");
+        }
+        out.append(' ');
+    }
+
+    /**
+     * Escapes a label value, as required by the OpenMetrics text format.
+     */
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+}
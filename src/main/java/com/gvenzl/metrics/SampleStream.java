@@ -0,0 +1,384 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: SampleStream.java
+ * Description: Streams the live samples of the collectors to any number of viewers as server-sent events.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.metrics;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.collect.CollectorEngine;
+import com.gvenzl.collect.SampleListener;
+import com.gvenzl.log.LogLevel;
+import com.gvenzl.log.SysLogger;
+import com.gvenzl.system.OSInfo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fans the samples of the collectors out to any number of viewers as
+ * <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html">server-sent events</a>,
+ * so that several SysMonitor instances share one SSH session and `vmstat` per system.
+ * <p>
+ * {@code GET /stream} lists the names of the streamed systems, one per line.
+ * {@code GET /stream/<name>} streams the events of a system:
+ * <ul>
+ *     <li>{@code info}: the {@link OSInfo} of the system as {@code key=value} lines</li>
+ *     <li>{@code headers}: the two `vmstat` header lines</li>
+ *     <li>{@code sample}: a raw `vmstat` line, the event id is the sequence number of the sample</li>
+ * </ul>
+ * A viewer first receives the latest {@code info} and {@code headers} events, then every new sample.
+ * Every event is encoded once and queued for each viewer, a viewer that falls more than {@value #MAX_QUEUED}
+ * events behind misses events instead of slowing down the collector.
+ * The samples of a system without viewers are not encoded at all, its channel only exists while it has viewers.
+ * The streams of a removed collector end with the next heartbeat.
+ * Consumed by {@link com.gvenzl.connect.StreamConnection}.
+ */
+public class SampleStream implements SampleListener, HttpHandler {
+
+    public static final String PATH = "/stream";
+    public static final String CONTENT_TYPE = "text/event-stream; charset=utf-8";
+    public static final int MAX_QUEUED = 1024;
+    // Keeps proxies from closing idle streams and lets the viewers detect dead streams
+    public static final long HEARTBEAT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private volatile boolean closed = false;
+
+    @Override
+    public void connected(Collector collector, OSInfo osInfo) {
+        Channel channel = channels.get(collector.getName());
+        if (null != channel) {
+            channel.publishInfo(encodeInfo(osInfo));
+        }
+    }
+
+    @Override
+    public void sample(Collector collector, long sequence, String line) {
+        Channel channel = channels.get(collector.getName());
+        // A new viewer gets the latest info and headers from the collector, see Channel#add
+        if (null == channel || channel.viewers.isEmpty()) {
+            return;
+        }
+        String headers = collector.getVMStatHeaders();
+        if (!headers.equals(channel.headers)) {
+            channel.publishHeaders(headers, encodeEvent("headers", -1, headers));
+        }
+        if (!channel.publish(encodeEvent("sample", sequence, line))) {
+            droppedEvents.incrementAndGet();
+            SysLogger.getInstance().log(LogLevel.WARN, collector.getName() + ": stream",
+                    collector.getName() + ": Stream viewer is too slow, dropped sample %d".formatted(sequence));
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals(PATH) || path.equals(PATH + "/")) {
+                listSystems(exchange);
+                return;
+            }
+            String name = path.startsWith(PATH + "/") ? path.substring(PATH.length() + 1) : "";
+            Collector collector = CollectorEngine.getInstance().getCollector(name);
+            if (null == collector) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+
+            Viewer viewer = new Viewer();
+            channels.compute(name, (key, channel) -> {
+                Channel joined = null != channel ? channel : new Channel();
+                joined.add(viewer, collector);
+                return joined;
+            });
+            try {
+                stream(collector, viewer, exchange.getResponseBody());
+            }
+            catch (IOException e) {
+                // The viewer went away
+            }
+            finally {
+                // Evict the channel with its last viewer
+                channels.computeIfPresent(name, (key, channel) -> {
+                    channel.remove(viewer);
+                    return channel.viewers.isEmpty() ? null : channel;
+                });
+            }
+        }
+    }
+
+    private void listSystems(HttpExchange exchange) throws IOException {
+        StringBuilder names = new StringBuilder();
+        CollectorEngine.getInstance().getCollectors().stream()
+                .map(Collector::getName).sorted()
+                .forEach(name -> names.append(name).append('\n'));
+        byte[] body = names.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Writes the queued events of a viewer until the stream is closed or the collector removed,
+     * on the thread of the viewer's request.
+     */
+    private void stream(Collector collector, Viewer viewer, OutputStream out) throws IOException {
+        long lastWrite = System.nanoTime();
+        boolean unflushed = false;
+        while (!closed) {
+            byte[] event = viewer.poll();
+            if (null != event) {
+                out.write(event);
+                unflushed = true;
+                continue;
+            }
+            if (unflushed) {
+                out.flush();
+                unflushed = false;
+                lastWrite = System.nanoTime();
+            }
+            long idle = System.nanoTime() - lastWrite;
+            if (idle >= HEARTBEAT_NANOS) {
+                // A removed collector sends no more samples, so this is reached within a heartbeat
+                if (collector != CollectorEngine.getInstance().getCollector(collector.getName())) {
+                    return;
+                }
+                out.write(HEARTBEAT);
+                out.flush();
+                lastWrite = System.nanoTime();
+            }
+            else {
+                LockSupport.parkNanos(this, HEARTBEAT_NANOS - idle);
+            }
+        }
+    }
+
+    /**
+     * Ends all streams.
+     */
+    public void close() {
+        closed = true;
+        for (Channel channel : channels.values()) {
+            for (Viewer viewer : channel.viewers) {
+                LockSupport.unpark(viewer.thread);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of connected viewers over all systems.
+     * @return the number of viewers
+     */
+    public int getViewers() {
+        int viewers = 0;
+        for (Channel channel : channels.values()) {
+            viewers += channel.viewers.size();
+        }
+        return viewers;
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    static byte[] encodeInfo(OSInfo osInfo) {
+        StringBuilder data = new StringBuilder();
+        appendInfo(data, "hostName", osInfo.getHostName());
+        appendInfo(data, "os", osInfo.getOs());
+        appendInfo(data, "architecture", osInfo.getArchitecture());
+        appendInfo(data, "kernelVersion", osInfo.getKernelVersion());
+        appendInfo(data, "cpuType", osInfo.getCpuType());
+        appendInfo(data, "cpus", osInfo.getCpus());
+        appendInfo(data, "memoryKB", osInfo.getMemoryKB());
+        return encodeEvent("info", -1, data.toString());
+    }
+
+    private static void appendInfo(StringBuilder data, String key, Object value) {
+        if (null != value) {
+            if (!data.isEmpty()) {
+                data.append('\n');
+            }
+            data.append(key).append('=').append(value.toString().replace('\n', ' '));
+        }
+    }
+
+    /**
+     * Encodes an event, every line of the data becomes a {@code data:} field.
+     * @param type the event type
+     * @param id the event id, negative for none
+     * @param data the event data
+     * @return the UTF-8 encoded event
+     */
+    static byte[] encodeEvent(String type, long id, String data) {
+        StringBuilder event = new StringBuilder(data.length() + 48);
+        event.append("event: ").append(type).append('\n');
+        if (id >= 0) {
+            event.append("id: ").append(id).append('\n');
+        }
+        for (String line : data.split("\r?\n", -1)) {
+            event.append("data: ").append(line).append('\n');
+        }
+        event.append('\n');
+        return event.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The viewers of a system and its latest info and headers events.
+     * Events are published under the lock, so that a new viewer receives the latest headers before any sample.
+     * Only exists while the system has viewers, it is added and evicted inside {@code channels.compute}.
+     */
+    private static class Channel {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<Viewer> viewers = new CopyOnWriteArrayList<>();
+        private volatile byte[] info;
+        private volatile byte[] headersEvent;
+        private volatile String headers;
+
+        void add(Viewer viewer, Collector collector) {
+            lock.lock();
+            try {
+                // Nothing is published while a system has no viewers, catch up with the collector
+                OSInfo osInfo = collector.getSource().getOsInfo();
+                if (null != osInfo) {
+                    info = encodeInfo(osInfo);
+                }
+                String current = collector.getVMStatHeaders();
+                if (!current.isEmpty() && !current.equals(headers)) {
+                    headers = current;
+                    headersEvent = encodeEvent("headers", -1, current);
+                }
+                viewers.add(viewer);
+                if (null != info) {
+                    viewer.offer(info);
+                }
+                if (null != headersEvent) {
+                    viewer.offer(headersEvent);
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(Viewer viewer) {
+            viewers.remove(viewer);
+        }
+
+        void publishInfo(byte[] event) {
+            lock.lock();
+            try {
+                info = event;
+                broadcast(event);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void publishHeaders(String headers, byte[] event) {
+            lock.lock();
+            try {
+                this.headers = headers;
+                headersEvent = event;
+                broadcast(event);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        boolean publish(byte[] event) {
+            lock.lock();
+            try {
+                return broadcast(event);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Queues the event for all viewers.
+         * @return false if the event had to be dropped for at least one viewer
+         */
+        private boolean broadcast(byte[] event) {
+            boolean queued = true;
+            for (Viewer viewer : viewers) {
+                queued &= viewer.offer(event);
+            }
+            return queued;
+        }
+    }
+
+    /**
+     * The queued events of one viewer, written by the thread of the viewer's request.
+     */
+    private static class Viewer {
+
+        private final Queue<byte[]> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Thread thread = Thread.currentThread();
+
+        boolean offer(byte[] event) {
+            if (queued.incrementAndGet() > MAX_QUEUED) {
+                queued.decrementAndGet();
+                return false;
+            }
+            queue.add(event);
+            LockSupport.unpark(thread);
+            return true;
+        }
+
+        byte[] poll() {
+            byte[] event = queue.poll();
+            if (null != event) {
+                queued.decrementAndGet();
+            }
+            return event;
+        }
+    }
+}
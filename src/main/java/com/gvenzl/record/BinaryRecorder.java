@@ -0,0 +1,125 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: BinaryRecorder.java
+ * Description: Records the samples of a system into a binary recording.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.system.DataPoint;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the samples of a {@link Collector} into a `.smr` binary recording,
+ * see {@link BinaryRecordingWriter} for the format.
+ * Each recorder starts a new segment in the file, an existing recording is appended to.
+ * Samples reach the file once their block is complete, or at the first flush after the oldest sample of the block
+ * has waited for {@link #MAX_BLOCK_AGE_NANOS}, so that a crash loses at most that much more than a text recording.
+ * Flushing every block right away would ruin the compression.
+ * A recording that is corrupt before its end is not appended to, the samples are dropped and the error logged.
+ */
+public class BinaryRecorder extends Recorder {
+
+    public static final long MAX_BLOCK_AGE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private FileOutputStream out;
+    private BufferedOutputStream buffer;
+    private BinaryRecordingWriter writer;
+    private long blockStart;
+    // Set if the file is corrupt before its end, so that it is not scanned again for every sample
+    private IOException corrupt;
+
+    /**
+     * Creates a recorder for the given file.
+     * @param file the recording file
+     * @throws IOException if the directory of the file is not writable
+     */
+    public BinaryRecorder(Path file) throws IOException {
+        super(file);
+    }
+
+    @Override
+    public void sample(Collector collector, long sequence, String line) {
+        // Copy the sample, the history slot may be overwritten before the writer thread gets to it
+        DataPoint dp = new DataPoint();
+        if (collector.getHistory().get(sequence, dp)) {
+            submit(collector, line, dp);
+        }
+    }
+
+    @Override
+    protected synchronized void write(Collector collector, String line, DataPoint dp) throws IOException {
+        if (null == writer) {
+            if (null != corrupt) {
+                throw corrupt;
+            }
+            try {
+                out = BinaryRecordingWriter.openAppending(getFile());
+            }
+            catch (BinaryRecordingReader.CorruptRecordingException e) {
+                corrupt = new IOException("Not appending to '%s': %s".formatted(getFile(), e.getMessage()), e);
+                throw corrupt;
+            }
+            buffer = new BufferedOutputStream(out, 64 * 1024);
+            writer = new BinaryRecordingWriter(buffer, out.getChannel().size() > 0, BinaryRecordingWriter.DEFAULT_BLOCK_SIZE);
+            writer.writeHeader(new RecordingHeader(
+                    collector.getName(), collector.getSource().getOsInfo(), collector.getVMStatHeaders()));
+        }
+        writer.write(dp);
+        if (writer.getPendingSamples() == 1) {
+            blockStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    protected synchronized void flush(boolean sync) throws IOException {
+        if (null != buffer) {
+            if (writer.getPendingSamples() > 0 && System.nanoTime() - blockStart >= MAX_BLOCK_AGE_NANOS) {
+                writer.flush();
+            }
+            buffer.flush();
+            if (sync) {
+                out.getChannel().force(false);
+            }
+        }
+    }
+
+    @Override
+    protected synchronized void closeFile(boolean sync) throws IOException {
+        if (null != writer) {
+            try {
+                writer.flush();
+                if (sync) {
+                    out.getChannel().force(false);
+                }
+                writer.close();
+            }
+            finally {
+                writer = null;
+                buffer = null;
+                out = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: BinaryRecordingReader.java
+ * Description: Reads samples from the compact binary recording format.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.Metric;
+import com.gvenzl.system.OSInfo;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the {@link DataPoint}s of a binary recording sequentially,
+ * see {@link BinaryRecordingWriter} for the file layout.
+ * A recording that was cut off in the middle of a block, e.g. because the recorder was killed,
+ * ends after the last complete block. Writers cut such a recording back to its complete records before
+ * appending to it, see {@link #completeLength(Path)}, but never cut into a recording that is corrupt before its end.
+ * <p>
+ * A reader is not thread-safe.
+ */
+public class BinaryRecordingReader implements Closeable {
+
+    private static final Metric[] METRICS = Metric.all();
+
+    private final CountingInputStream counter;
+    private final DataInputStream in;
+    private RecordingHeader header;
+    // Offset of the end of the last complete header or block
+    private long complete;
+
+    private long[] dateTimes = new long[0];
+    private long[][] columns = new long[METRICS.length][0];
+    private int count = 0;
+    private int next = 0;
+
+    private byte[] raw = new byte[0];
+    private byte[] compressed = new byte[0];
+    private final int[] pos = new int[1];
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Thrown if a record is complete but cannot be decoded, as opposed to failing to read the file.
+     */
+    static class CorruptRecordingException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CorruptRecordingException(String message) {
+            super(message);
+        }
+
+        CorruptRecordingException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Counts the bytes read, so that the end of the last complete record is known.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Opens a binary recording.
+     * @param file the recording file
+     * @throws IOException if the file cannot be read or is not a binary recording
+     */
+    public BinaryRecordingReader(Path file) throws IOException {
+        this(Files.newInputStream(file));
+    }
+
+    /**
+     * Reads a binary recording from the given stream.
+     * @param stream the stream positioned at the start of the recording
+     * @throws IOException if the stream cannot be read or is not a binary recording
+     */
+    public BinaryRecordingReader(InputStream stream) throws IOException {
+        this.counter = new CountingInputStream(new BufferedInputStream(stream, 64 * 1024));
+        this.in = new DataInputStream(counter);
+        byte[] magic = in.readNBytes(BinaryRecordingWriter.MAGIC.length);
+        if (!Arrays.equals(magic, BinaryRecordingWriter.MAGIC)) {
+            in.close();
+            throw new IOException("Not a binary recording");
+        }
+        complete = counter.count;
+    }
+
+    /**
+     * Returns the length of the complete part of a recording, i.e. the offset after its last header or block
+     * that can be read in full. A recording cut off by a crash inside its last record is longer than that.
+     * <p>
+     * Only the headers and the block lengths are read, the block payloads are skipped,
+     * so that opening a large recording does not decompress all of it. Only the last block is decoded,
+     * a torn last block, e.g. one that was not fully on disk when the system crashed, is not part of the complete length.
+     * @param file the recording file
+     * @return the length of the complete records, including the file magic
+     * @throws CorruptRecordingException if a record that is followed by more data cannot be read,
+     *                                   cutting the recording back there would delete everything after it
+     * @throws IOException if the file cannot be read or is not a binary recording
+     */
+    public static long completeLength(Path file) throws IOException {
+        long size = Files.size(file);
+        long lastBlock = -1;
+        long lastBlockEnd = -1;
+        long complete;
+        try (BinaryRecordingReader reader = new BinaryRecordingReader(file)) {
+            try {
+                while (true) {
+                    long start = reader.counter.count;
+                    int tag = reader.in.read();
+                    if (tag == -1) {
+                        break;
+                    }
+                    else if (tag == BinaryRecordingWriter.HEADER) {
+                        reader.readHeader();
+                    }
+                    else if (tag == BinaryRecordingWriter.BLOCK) {
+                        reader.skipBlock(size);
+                        lastBlock = start;
+                        lastBlockEnd = reader.counter.count;
+                    }
+                    else {
+                        throw new CorruptRecordingException("Corrupt recording, unknown record type %d at offset %d"
+                                .formatted(tag, start));
+                    }
+                    reader.complete = reader.counter.count;
+                }
+            }
+            catch (EOFException e) {
+                // Cut off inside the last record, e.g. the recorder was killed while writing
+            }
+            complete = reader.complete;
+        }
+
+        // The last complete record is a block, check that it made it to disk in full
+        if (lastBlockEnd == complete) {
+            try (BinaryRecordingReader reader = new BinaryRecordingReader(file)) {
+                reader.in.skipNBytes(lastBlock + 1 - reader.counter.count);
+                reader.readBlock();
+                return complete;
+            }
+            catch (CorruptRecordingException e) {
+                // Nothing follows the block, only the torn block itself is lost
+            }
+            return lastBlock;
+        }
+        return complete;
+    }
+
+    /**
+     * Returns the header of the segment the last sample was read from,
+     * or of the first segment if no sample has been read yet.
+     * @return the segment header, or null if the recording is empty
+     * @throws IOException if the recording cannot be read
+     */
+    public RecordingHeader getHeader() throws IOException {
+        if (null == header) {
+            readRecord();
+        }
+        return header;
+    }
+
+    /**
+     * Reads the next sample into the given {@link DataPoint}.
+     * @param dp the {@link DataPoint} to fill
+     * @return true if a sample was read, false at the end of the recording
+     * @throws IOException if the recording cannot be read or is corrupt
+     */
+    public boolean next(DataPoint dp) throws IOException {
+        while (next == count) {
+            if (!readRecord()) {
+                return false;
+            }
+        }
+        dp.setDateTime(dateTimes[next]);
+        for (int m = 0; m < METRICS.length; m++) {
+            METRICS[m].set(dp, columns[m][next]);
+        }
+        next++;
+        return true;
+    }
+
+    /**
+     * Reads the next header or block.
+     * @return false at the end of the recording
+     */
+    private boolean readRecord() throws IOException {
+        try {
+            int tag = in.read();
+            if (tag == -1) {
+                return false;
+            }
+            else if (tag == BinaryRecordingWriter.HEADER) {
+                readHeader();
+            }
+            else if (tag == BinaryRecordingWriter.BLOCK) {
+                readBlock();
+            }
+            else {
+                throw new CorruptRecordingException("Corrupt recording, unknown record type: %d".formatted(tag));
+            }
+            complete = counter.count;
+            return true;
+        }
+        catch (EOFException e) {
+            // Recording was cut off, e.g. the recorder was killed while writing
+            return false;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        String name = in.readUTF();
+        OSInfo osInfo = new OSInfo();
+        osInfo.setHostName(in.readUTF());
+        osInfo.setOs(in.readUTF());
+        osInfo.setArchitecture(in.readUTF());
+        osInfo.setKernelVersion(in.readUTF());
+        osInfo.setCpuType(in.readUTF());
+        String vmstatHeaders = in.readUTF();
+        osInfo.setCpus(in.readInt());
+        osInfo.setMemoryKB(in.readLong());
+        header = new RecordingHeader(name, osInfo, vmstatHeaders);
+    }
+
+    /**
+     * Skips the payload of a block, only checking that its lengths are valid.
+     * @param size the size of the file
+     * @throws EOFException if the block extends past the end of the file
+     */
+    private void skipBlock(long size) throws IOException {
+        long start = counter.count - 1;
+        int samples = in.readInt();
+        int rawLength = in.readInt();
+        int compressedLength = in.readInt();
+        in.readInt();
+        if (samples < 0 || rawLength < 0 || compressedLength < 0) {
+            throw new CorruptRecordingException("Corrupt recording, invalid block length at offset %d".formatted(start));
+        }
+        if (counter.count + compressedLength > size) {
+            throw new EOFException("Block at offset %d is cut off".formatted(start));
+        }
+        in.skipNBytes(compressedLength);
+    }
+
+    private void readBlock() throws IOException {
+        int samples = in.readInt();
+        int rawLength = in.readInt();
+        int compressedLength = in.readInt();
+        int checksum = in.readInt();
+        if (samples < 0 || rawLength < 0 || compressedLength < 0) {
+            throw new CorruptRecordingException("Corrupt recording, invalid block length");
+        }
+
+        if (compressed.length < compressedLength) {
+            compressed = new byte[compressedLength];
+        }
+        in.readFully(compressed, 0, compressedLength);
+        if (raw.length < rawLength) {
+            raw = new byte[rawLength];
+        }
+
+        try {
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != rawLength) {
+                throw new CorruptRecordingException("Corrupt recording, block is %d bytes instead of %d".formatted(inflated, rawLength));
+            }
+        }
+        catch (DataFormatException e) {
+            throw new CorruptRecordingException("Corrupt recording: %s".formatted(e.getMessage()), e);
+        }
+
+        crc.reset();
+        crc.update(raw, 0, rawLength);
+        if ((int) crc.getValue() != checksum) {
+            throw new CorruptRecordingException("Corrupt recording, block checksum mismatch");
+        }
+
+        if (dateTimes.length < samples) {
+            dateTimes = new long[samples];
+            columns = new long[METRICS.length][samples];
+        }
+
+        try {
+            pos[0] = 0;
+            long prev = 0;
+            long prevDelta = 0;
+            for (int i = 0; i < samples; i++) {
+                prevDelta += VarInt.get(raw, pos);
+                prev += prevDelta;
+                dateTimes[i] = prev;
+            }
+            for (long[] column : columns) {
+                if (pos[0] >= rawLength) {
+                    throw new IllegalArgumentException("Missing column at %d".formatted(pos[0]));
+                }
+                byte encoding = raw[pos[0]++];
+                if (encoding == BinaryRecordingWriter.DELTA) {
+                    prev = 0;
+                    for (int i = 0; i < samples; i++) {
+                        prev += VarInt.get(raw, pos);
+                        column[i] = prev;
+                    }
+                }
+                else if (encoding == BinaryRecordingWriter.ABSOLUTE) {
+                    for (int i = 0; i < samples; i++) {
+                        column[i] = VarInt.get(raw, pos);
+                    }
+                }
+                else {
+                    throw new IllegalArgumentException("Unknown column encoding: %d".formatted(encoding));
+                }
+            }
+        }
+        catch (IllegalArgumentException e) {
+            throw new CorruptRecordingException("Corrupt recording: %s".formatted(e.getMessage()), e);
+        }
+
+        count = samples;
+        next = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+}
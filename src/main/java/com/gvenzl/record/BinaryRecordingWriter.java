@@ -0,0 +1,292 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: BinaryRecordingWriter.java
+ * Description: Writes samples in the compact binary recording format.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.Metric;
+import com.gvenzl.system.OSInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes {@link DataPoint}s in the binary recording format.
+ * <p>
+ * File layout:
+ * <pre>
+ * file    := MAGIC segment*
+ * segment := 'H' header block*
+ * header  := UTF name, hostName, os, architecture, kernelVersion, cpuType, vmstatHeaders; int cpus; long memoryKB
+ * block   := 'B' int samples, int rawLength, int compressedLength, int crc32(raw), deflate(raw)
+ * raw     := timestamps column*
+ * column  := byte encoding, values
+ * </pre>
+ * Samples are buffered into blocks and stored column by column.
+ * Timestamps are delta-of-delta encoded, metric columns are either delta encoded or stored as is,
+ * whichever is smaller for the block, and all values are written as zigzag varints.
+ * At a regular refresh cycle, most values become a single byte that the final deflate step compresses further.
+ * Every block starts from absolute values, so blocks can be decoded independently.
+ * <p>
+ * A writer is not thread-safe.
+ */
+public class BinaryRecordingWriter implements Closeable {
+
+    static final byte[] MAGIC = { 'S', 'M', 'R', '1' };
+    static final byte HEADER = 'H';
+    static final byte BLOCK = 'B';
+    static final byte ABSOLUTE = 0;
+    static final byte DELTA = 1;
+    public static final int DEFAULT_BLOCK_SIZE = 300;
+
+    private static final Metric[] METRICS = Metric.all();
+
+    private final DataOutputStream out;
+    private final int blockSize;
+    private final long[] dateTimes;
+    private final long[][] columns;
+    private int count = 0;
+    private boolean headerWritten = false;
+
+    private final byte[] raw;
+    private byte[] compressed;
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Creates a writer on the given stream.
+     * @param out the stream to write to
+     * @param append true if the stream continues an existing recording, false to start a new file
+     * @param blockSize the number of samples per block
+     * @throws IOException if the file magic cannot be written
+     */
+    public BinaryRecordingWriter(OutputStream out, boolean append, int blockSize) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1, was %d".formatted(blockSize));
+        }
+        this.out = new DataOutputStream(out);
+        this.blockSize = blockSize;
+        this.dateTimes = new long[blockSize];
+        this.columns = new long[METRICS.length][blockSize];
+        this.raw = new byte[(METRICS.length + 1) * blockSize * VarInt.MAX_BYTES + METRICS.length];
+        this.compressed = new byte[raw.length / 4];
+        if (!append) {
+            this.out.write(MAGIC);
+        }
+    }
+
+    /**
+     * Opens a writer on the given file, appending to the file if it already contains a recording.
+     * @param file the recording file
+     * @return the writer
+     * @throws IOException if the file cannot be opened, is not a binary recording or is corrupt before its end
+     */
+    public static BinaryRecordingWriter open(Path file) throws IOException {
+        FileOutputStream out = openAppending(file);
+        boolean append = out.getChannel().size() > 0;
+        return new BinaryRecordingWriter(new BufferedOutputStream(out, 64 * 1024), append, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Opens a file to append a recording to.
+     * An existing recording is cut back to its last complete header or block first,
+     * otherwise a block that was cut off, e.g. by a crash, would swallow the new segment and make it unreadable.
+     * Only a cut off tail is removed, a recording that is corrupt before its end is left as is and not appended to.
+     * @param file the recording file, created if it does not exist
+     * @return the stream positioned at the end of the file, empty if a new recording is to be started
+     * @throws BinaryRecordingReader.CorruptRecordingException if the recording is corrupt before its end
+     * @throws IOException if the file cannot be opened or is not a binary recording
+     */
+    static FileOutputStream openAppending(Path file) throws IOException {
+        long length = 0;
+        if (Files.exists(file) && Files.size(file) > 0) {
+            checkMagic(file);
+            length = BinaryRecordingReader.completeLength(file);
+        }
+        FileOutputStream out = new FileOutputStream(file.toFile(), true);
+        try {
+            if (out.getChannel().size() > length) {
+                out.getChannel().truncate(length);
+            }
+        }
+        catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        return out;
+    }
+
+    static void checkMagic(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = new DataInputStream(in).readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("'%s' is not a binary recording".formatted(file));
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment with the given header. Pending samples are written first.
+     * @param header the header of the segment
+     * @throws IOException if the header cannot be written
+     */
+    public void writeHeader(RecordingHeader header) throws IOException {
+        writeBlock();
+        OSInfo osInfo = null != header.getOsInfo() ? header.getOsInfo() : new OSInfo();
+        out.writeByte(HEADER);
+        out.writeUTF(nonNull(header.getName()));
+        out.writeUTF(nonNull(osInfo.getHostName()));
+        out.writeUTF(nonNull(osInfo.getOs()));
+        out.writeUTF(nonNull(osInfo.getArchitecture()));
+        out.writeUTF(nonNull(osInfo.getKernelVersion()));
+        out.writeUTF(nonNull(osInfo.getCpuType()));
+        out.writeUTF(nonNull(header.getVMStatHeaders()));
+        out.writeInt(null != osInfo.getCpus() ? osInfo.getCpus() : 0);
+        out.writeLong(null != osInfo.getMemoryKB() ? osInfo.getMemoryKB() : 0);
+        headerWritten = true;
+    }
+
+    private static String nonNull(String value) {
+        return null != value ? value : "";
+    }
+
+    /**
+     * Adds a sample to the current block, writing the block once it is full.
+     * @param dp the sample
+     * @throws IOException if a full block cannot be written
+     * @throws IllegalStateException if no header has been written yet
+     */
+    public void write(DataPoint dp) throws IOException {
+        if (!headerWritten) {
+            throw new IllegalStateException("No header written");
+        }
+        dateTimes[count] = dp.getDateTimeMillis();
+        for (int m = 0; m < METRICS.length; m++) {
+            columns[m][count] = METRICS[m].get(dp);
+        }
+        if (++count == blockSize) {
+            writeBlock();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+
+        int pos = 0;
+        long prev = 0;
+        long prevDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = dateTimes[i] - prev;
+            pos = VarInt.put(raw, pos, delta - prevDelta);
+            prev = dateTimes[i];
+            prevDelta = delta;
+        }
+        for (long[] column : columns) {
+            // Fast changing columns, e.g. the CPU percentages, are often smaller as is than as deltas
+            int absoluteSize = 0;
+            int deltaSize = 0;
+            prev = 0;
+            for (int i = 0; i < count; i++) {
+                absoluteSize += VarInt.size(column[i]);
+                deltaSize += VarInt.size(column[i] - prev);
+                prev = column[i];
+            }
+
+            if (deltaSize < absoluteSize) {
+                raw[pos++] = DELTA;
+                prev = 0;
+                for (int i = 0; i < count; i++) {
+                    pos = VarInt.put(raw, pos, column[i] - prev);
+                    prev = column[i];
+                }
+            }
+            else {
+                raw[pos++] = ABSOLUTE;
+                for (int i = 0; i < count; i++) {
+                    pos = VarInt.put(raw, pos, column[i]);
+                }
+            }
+        }
+
+        crc.reset();
+        crc.update(raw, 0, pos);
+
+        deflater.reset();
+        deflater.setInput(raw, 0, pos);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+
+        out.writeByte(BLOCK);
+        out.writeInt(count);
+        out.writeInt(pos);
+        out.writeInt(compressedLength);
+        out.writeInt((int) crc.getValue());
+        out.write(compressed, 0, compressedLength);
+        count = 0;
+    }
+
+    /**
+     * Returns the number of samples added to the current block that have not been written yet.
+     * @return the samples pending
+     */
+    public int getPendingSamples() {
+        return count;
+    }
+
+    /**
+     * Writes the pending samples as a (partial) block and flushes the stream.
+     * @throws IOException if the samples cannot be written
+     */
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            deflater.end();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: RecordFormat.java
+ * Description: The file formats of a recording.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+/**
+ * The file formats a system can be recorded in.
+ */
+public enum RecordFormat {
+
+    /** The raw `vmstat` lines, as printed by `vmstat -tn`. */
+    TEXT("text", ".log"),
+    /** Delta encoded, compressed samples, see {@link BinaryRecordingWriter}. */
+    BINARY("binary", ".smr");
+
+    private final String name;
+    private final String extension;
+
+    RecordFormat(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the file extension of the format, including the leading dot.
+     * @return the file extension
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Returns the format with the given name.
+     * @param name the name of the format, see {@link #getName()}
+     * @return the format, {@link #TEXT} if the name is null or empty
+     * @throws IllegalArgumentException if no format has the given name
+     */
+    public static RecordFormat fromName(String name) {
+        if (null == name || name.isEmpty()) {
+            return TEXT;
+        }
+        for (RecordFormat format : values()) {
+            if (format.name.equals(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown record format: '%s'".formatted(name));
+    }
+}
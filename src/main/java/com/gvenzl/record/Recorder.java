@@ -0,0 +1,187 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: Recorder.java
+ * Description: Records the samples of a system into a file.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.collect.SampleListener;
+import com.gvenzl.config.Config;
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.OSInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records the samples of a {@link Collector} into a file.
+ * Recorders are added as a {@link SampleListener} to the collector of the system
+ * and hand the samples over to the {@link RecordingService}, which opens, writes, flushes and closes
+ * the file on its writer thread.
+ */
+public abstract class Recorder implements SampleListener {
+
+    private final Path file;
+    private volatile boolean closed = false;
+    // Only accessed by the writer thread of the RecordingService
+    boolean dirty = false;
+    boolean finished = false;
+
+    /**
+     * Creates a recorder, the file itself is opened by the {@link RecordingService} with the first sample.
+     * @param file the recording file
+     * @throws IOException if the directory of the file is not writable
+     */
+    protected Recorder(Path file) throws IOException {
+        this.file = file;
+        Path dir = file.toAbsolutePath().getParent();
+        if (null != dir && !Files.isWritable(dir)) {
+            throw new IOException("Directory '%s' is not writable".formatted(dir));
+        }
+    }
+
+    /**
+     * Opens a recorder for the given file.
+     * @param file the recording file
+     * @param format the format to record in
+     * @return the recorder
+     * @throws IOException if the file cannot be opened
+     */
+    public static Recorder open(Path file, RecordFormat format) throws IOException {
+        return switch (format) {
+            case TEXT -> new TextRecorder(file);
+            case BINARY -> new BinaryRecorder(file);
+        };
+    }
+
+    /**
+     * Returns the recording file of a system.
+     * @param path the directory of the recording
+     * @param prefix the prefix of the file name, may be empty
+     * @param name the name of the system
+     * @param format the format of the recording
+     * @return the path of the recording file
+     */
+    public static Path getRecordFile(String path, String prefix, String name, RecordFormat format) {
+        String fileName = name + format.getExtension();
+
+        if (prefix.trim().isEmpty()) {
+            return Path.of(path + File.separator + fileName);
+        }
+        else {
+            return Path.of(path + File.separator + prefix + fileName);
+        }
+    }
+
+    /**
+     * Returns the configured record directory, or the user's home directory if none is configured.
+     * @return the record directory
+     * @throws IOException if the configuration cannot be read
+     */
+    public static String getRecordPath() throws IOException {
+        String path = Config.getInstance().getRecordDirPath();
+        if (null == path || path.isEmpty()) {
+            path = System.getProperty("user.home");
+        }
+        return path;
+    }
+
+    /**
+     * Returns the configured record format.
+     * @return the record format
+     * @throws IOException if the configuration cannot be read
+     */
+    public static RecordFormat getRecordFormat() throws IOException {
+        return RecordFormat.fromName(Config.getInstance().getRecordFormat());
+    }
+
+    /**
+     * Returns the memory of the system in GBs, rounded to 3 digits.
+     * @param osInfo the {@link OSInfo} of the system
+     * @return the memory in GBs
+     */
+    public static String getMemoryGB(OSInfo osInfo) {
+        return String.valueOf(
+                (float) Math.round(
+                        (osInfo.getMemoryKB() / 1000f / 1000f)
+                    // Rounds to 3 digits automagically
+                    * 1000f) / 1000f);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void sample(Collector collector, long sequence, String line) {
+        submit(collector, line, null);
+    }
+
+    /**
+     * Hands a sample over to the {@link RecordingService}, unless the recorder has been closed.
+     * @param collector the collector of the sample
+     * @param line the vmstat line of the sample
+     * @param dp the parsed sample, may be null if not needed by the recorder
+     */
+    protected void submit(Collector collector, String line, DataPoint dp) {
+        if (!closed) {
+            RecordingService.getInstance().submit(this, collector, line, dp);
+        }
+    }
+
+    /**
+     * Writes a sample, opening the file first if needed.
+     * Only called by the writer thread of the {@link RecordingService}, never after the recorder has been closed.
+     * @param collector the collector of the sample
+     * @param line the vmstat line of the sample
+     * @param dp the parsed sample as passed to {@link #submit(Collector, String, DataPoint)}
+     * @throws IOException if the sample cannot be written
+     */
+    protected abstract void write(Collector collector, String line, DataPoint dp) throws IOException;
+
+    /**
+     * Flushes the written samples to the file.
+     * Only called by the writer thread of the {@link RecordingService}.
+     * @param sync true to force the file to disk
+     * @throws IOException if the file cannot be flushed
+     */
+    protected abstract void flush(boolean sync) throws IOException;
+
+    /**
+     * Flushes and closes the file.
+     * Only called by the writer thread of the {@link RecordingService}.
+     * @param sync true to force the file to disk before closing it
+     * @throws IOException if the file cannot be closed
+     */
+    protected abstract void closeFile(boolean sync) throws IOException;
+
+    /**
+     * Stops recording. Samples submitted so far are still written before the file is closed,
+     * further samples are ignored. Does not wait for the file to be closed.
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+            RecordingService.getInstance().close(this);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: RecordingConverter.java
+ * Description: Converts text recordings into binary recordings.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.VMStat;
+import com.gvenzl.system.VMStatParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts `.log` text recordings, as written by {@link TextRecorder}, into `.smr` binary recordings.
+ */
+public class RecordingConverter {
+
+    private long samples = 0;
+    private long skipped = 0;
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: sysmonitor --convert <recording.log> [<recording.smr>]");
+            System.exit(1);
+        }
+
+        Path text = Path.of(args[0]);
+        Path binary;
+        if (args.length == 2) {
+            binary = Path.of(args[1]);
+        }
+        else {
+            String name = text.getFileName().toString();
+            if (name.endsWith(RecordFormat.TEXT.getExtension())) {
+                name = name.substring(0, name.length() - RecordFormat.TEXT.getExtension().length());
+            }
+            binary = text.resolveSibling(name + RecordFormat.BINARY.getExtension());
+        }
+
+        try {
+            RecordingConverter converter = new RecordingConverter();
+            converter.convert(text, binary);
+            System.out.printf("Converted %d samples from %s (%d bytes) into %s (%d bytes), skipped %d lines%n",
+                    converter.getSamples(), text, Files.size(text), binary, Files.size(binary), converter.getSkipped());
+        }
+        catch (IOException e) {
+            System.err.printf("Cannot convert recording: %s%n", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Converts a text recording into a binary recording.
+     * If the binary recording already exists, the converted samples are appended as a new segment.
+     * @param text the text recording to read
+     * @param binary the binary recording to write
+     * @throws IOException if the recordings cannot be read or written, or the text recording has no vmstat headers
+     */
+    public void convert(Path text, Path binary) throws IOException {
+        try (TextRecordingReader reader = new TextRecordingReader(text);
+             BinaryRecordingWriter writer = BinaryRecordingWriter.open(binary)) {
+
+            RecordingHeader header = RecordingHeader.readText(reader, text.getFileName().toString());
+            VMStatParser parser = new VMStatParser(new VMStat(header.getVMStatHeaders()));
+            writer.writeHeader(header);
+
+            DataPoint dp = new DataPoint();
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (parser.parse(line, dp)) {
+                    writer.write(dp);
+                    samples++;
+                }
+                else {
+                    skipped++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of samples converted.
+     * @return the number of samples converted
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Returns the number of lines that could not be parsed and were skipped.
+     * @return the number of skipped lines
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: RecordingHeader.java
+ * Description: The header of a binary recording segment.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.system.OSInfo;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The system information stored at the start of every segment of a binary recording.
+ * A new segment starts each time a recording is (re)started into an existing file.
+ */
+public class RecordingHeader {
+
+    private static final Pattern SYSTEM_LINE =
+            Pattern.compile("^Name: (.*?)    System: (.*?)    CPUs: (.*?)    Memory\\(GBs\\): (.*)$");
+    private static final Pattern OS_LINE =
+            Pattern.compile("^OS: (.*?)    Architecture: (.*?)    OSVersion: (.*)$");
+
+    private final String name;
+    private final OSInfo osInfo;
+    private final String vmstatHeaders;
+
+    public RecordingHeader(String name, OSInfo osInfo, String vmstatHeaders) {
+        this.name = name;
+        this.osInfo = osInfo;
+        this.vmstatHeaders = vmstatHeaders;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OSInfo getOsInfo() {
+        return osInfo;
+    }
+
+    /**
+     * Returns the two header lines printed by `vmstat -tn` on the recorded system.
+     * @return the vmstat headers
+     */
+    public String getVMStatHeaders() {
+        return vmstatHeaders;
+    }
+
+    /**
+     * Reads the header of a `.log` text recording, as written by {@link TextRecorder}:
+     * the optional system and OS lines, followed by the two vmstat header lines.
+     * The reader is left positioned at the first sample line.
+     * @param reader the reader, positioned at the start of the recording
+     * @param defaultName the name to use if the recording has no system line
+     * @return the header
+     * @throws IOException if the recording cannot be read or has no vmstat headers
+     */
+    public static RecordingHeader readText(TextRecordingReader reader, String defaultName) throws IOException {
+        String name = defaultName;
+        OSInfo osInfo = new OSInfo();
+
+        String line = reader.readLine();
+        Matcher system = null != line ? SYSTEM_LINE.matcher(line) : null;
+        if (null != system && system.matches()) {
+            name = system.group(1);
+            osInfo.setHostName(system.group(2));
+            try {
+                osInfo.setCpus(Integer.parseInt(system.group(3).trim()));
+                osInfo.setMemoryKB(Math.round(Double.parseDouble(system.group(4).trim()) * 1000 * 1000));
+            }
+            catch (NumberFormatException e) {
+                // Keep the defaults, the samples are what matters
+            }
+
+            line = reader.readLine();
+            Matcher os = null != line ? OS_LINE.matcher(line) : null;
+            if (null != os && os.matches()) {
+                osInfo.setOs(os.group(1));
+                osInfo.setArchitecture(os.group(2));
+                osInfo.setKernelVersion(os.group(3));
+                line = reader.readLine();
+            }
+        }
+
+        String columns = reader.readLine();
+        if (null == line || null == columns || !columns.startsWith(" r  b")) {
+            throw new IOException("Recording does not contain the vmstat headers");
+        }
+        return new RecordingHeader(name, osInfo, line + "\n" + columns);
+    }
+}
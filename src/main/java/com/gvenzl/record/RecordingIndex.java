@@ -0,0 +1,180 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: RecordingIndex.java
+ * Description: Sparse time index of a text recording.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.VMStat;
+import com.gvenzl.system.VMStatParser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A sparse index of the sample timestamps of a `.log` text recording to their byte offsets.
+ * Built with a single sequential pass over the file that only decodes every {@link #DEFAULT_INTERVAL}th line,
+ * so that a reader can be positioned near any point in time of a large recording
+ * without reading the recording up to that point.
+ */
+public class RecordingIndex {
+
+    public static final int DEFAULT_INTERVAL = 256;
+
+    private final Path file;
+    private final RecordingHeader header;
+    private final long dataOffset;
+    private long[] times = new long[64];
+    private long[] offsets = new long[64];
+    private int size = 0;
+    private long lines = 0;
+
+    private RecordingIndex(Path file, RecordingHeader header, long dataOffset) {
+        this.file = file;
+        this.header = header;
+        this.dataOffset = dataOffset;
+    }
+
+    /**
+     * Builds the index of a text recording.
+     * @param file the text recording
+     * @return the index
+     * @throws IOException if the recording cannot be read or has no vmstat headers
+     */
+    public static RecordingIndex build(Path file) throws IOException {
+        return build(file, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Builds the index of a text recording.
+     * @param file the text recording
+     * @param interval the number of lines between index entries
+     * @return the index
+     * @throws IOException if the recording cannot be read or has no vmstat headers
+     */
+    public static RecordingIndex build(Path file, int interval) throws IOException {
+        try (TextRecordingReader reader = new TextRecordingReader(file)) {
+            RecordingHeader header = RecordingHeader.readText(reader, file.getFileName().toString());
+            RecordingIndex index = new RecordingIndex(file, header, reader.position());
+            VMStatParser parser = new VMStatParser(new VMStat(header.getVMStatHeaders()));
+            DataPoint dp = new DataPoint();
+
+            boolean indexNext = true;
+            while (true) {
+                long offset = reader.position();
+                if (indexNext || index.lines % interval == 0) {
+                    String line = reader.readLine();
+                    if (null == line) {
+                        break;
+                    }
+                    // Lines that cannot be parsed are not indexed, try the next one
+                    indexNext = !parser.parse(line, dp);
+                    if (!indexNext) {
+                        index.add(dp.getDateTimeMillis(), offset);
+                    }
+                }
+                else if (!reader.skipLine()) {
+                    break;
+                }
+                index.lines++;
+            }
+            return index;
+        }
+    }
+
+    private void add(long time, long offset) {
+        // Timestamps may go backwards, e.g. after a clock change; keep the index sorted
+        if (size > 0 && time < times[size - 1]) {
+            return;
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        times[size] = time;
+        offsets[size] = offset;
+        size++;
+    }
+
+    /**
+     * Returns the byte offset of the last indexed line at or before the given time.
+     * Reading from this offset and skipping lines before the given time reaches the sample in at most
+     * {@link #DEFAULT_INTERVAL} lines.
+     * @param timeMillis the epoch milliseconds to seek to
+     * @return the byte offset to start reading at
+     */
+    public long offsetOf(long timeMillis) {
+        int i = Arrays.binarySearch(times, 0, size, timeMillis);
+        if (i < 0) {
+            // Insertion point - 1 is the last entry before the time
+            i = -i - 2;
+        }
+        return i < 0 ? dataOffset : offsets[i];
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public RecordingHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the byte offset of the first sample line.
+     * @return the offset of the first sample
+     */
+    public long getDataOffset() {
+        return dataOffset;
+    }
+
+    /**
+     * Returns the time of the first indexed sample.
+     * @return the epoch milliseconds of the first sample, or {@link Long#MIN_VALUE} if the recording is empty
+     */
+    public long getStartTime() {
+        return size > 0 ? times[0] : Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the time of the last indexed sample, which is up to {@link #DEFAULT_INTERVAL} samples before the end.
+     * @return the epoch milliseconds of the last indexed sample, or {@link Long#MIN_VALUE} if the recording is empty
+     */
+    public long getLastIndexedTime() {
+        return size > 0 ? times[size - 1] : Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the number of sample lines of the recording when the index was built.
+     * @return the number of lines after the header
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the number of index entries.
+     * @return the index size
+     */
+    public int size() {
+        return size;
+    }
+}
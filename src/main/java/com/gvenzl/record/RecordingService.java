@@ -0,0 +1,308 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: RecordingService.java
+ * Description: Writes the recordings of all systems on a single writer thread.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.config.Config;
+import com.gvenzl.log.LogLevel;
+import com.gvenzl.log.SysLogger;
+import com.gvenzl.system.DataPoint;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the samples of all {@link Recorder}s on a single writer thread.
+ * <p>
+ * Collectors hand their samples over via a lock-free queue and never wait for disk I/O.
+ * The writer thread drains the queue in batches into the buffered recording files
+ * and flushes them once per flush interval, optionally forcing them to disk (fsync).
+ * All file operations of a {@link Recorder}, including opening and closing, happen on the writer thread,
+ * in the order they were submitted.
+ * <p>
+ * If the writer falls behind by more than {@link #MAX_QUEUED} samples, new samples are dropped and counted
+ * rather than blocking the collectors or growing the heap without bound.
+ * Samples submitted while the service is shutting down are dropped as well, see {@link #shutdown(Duration)}.
+ */
+public class RecordingService {
+
+    public static final int MAX_QUEUED = 100_000;
+
+    private static RecordingService instance = null;
+
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() is O(n), keep count separately
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long flushIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+    private volatile boolean fsync = false;
+    private volatile boolean run = false;
+    private volatile boolean shuttingDown = false;
+    private volatile Thread writer;
+
+    // Only accessed by the writer thread, a recorder is in dirty if its dirty flag is set
+    private final Set<Recorder> open = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Recorder> dirty = new ArrayList<>();
+
+    /**
+     * A sample, or the request to close the recorder if {@code close} is true.
+     */
+    private record Entry(Recorder recorder, Collector collector, String line, DataPoint dp, boolean close) {}
+
+    private RecordingService() {
+        try {
+            Config config = Config.getInstance();
+            updateSettings(config.getRecordFlushInterval(), config.isRecordFsync());
+        }
+        catch (IOException e) {
+            SysLogger.getInstance().error("RecordingService: Cannot read recording settings, using defaults: %s".formatted(e.getMessage()));
+        }
+    }
+
+    public static synchronized RecordingService getInstance() {
+        if (instance == null) {
+            instance = new RecordingService();
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the flush policy.
+     * @param flushIntervalSeconds the seconds between flushes of the recording files, 0 to flush after every batch
+     * @param fsync true to force the recording files to disk on every flush
+     */
+    public void updateSettings(int flushIntervalSeconds, boolean fsync) {
+        this.flushIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(0, flushIntervalSeconds));
+        this.fsync = fsync;
+    }
+
+    /**
+     * Queues a sample for the given recorder. Never blocks.
+     */
+    void submit(Recorder recorder, Collector collector, String line, DataPoint dp) {
+        if (shuttingDown) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            queued.decrementAndGet();
+            if (dropped.getAndIncrement() == 0) {
+                SysLogger.getInstance().error("RecordingService: Writer is falling behind, dropping samples");
+            }
+            return;
+        }
+        queue.offer(new Entry(recorder, collector, line, dp, false));
+        ensureRunning();
+        if (flushIntervalNanos == 0) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Closes the recorder on the writer thread, after all of its samples queued so far have been written.
+     */
+    void close(Recorder recorder) {
+        // The writer closes all open recordings when it shuts down
+        if (shuttingDown) {
+            return;
+        }
+        queued.incrementAndGet();
+        queue.offer(new Entry(recorder, null, null, null, true));
+        ensureRunning();
+        LockSupport.unpark(writer);
+    }
+
+    private void ensureRunning() {
+        if (!run) {
+            synchronized (this) {
+                if (!run && !shuttingDown) {
+                    run = true;
+                    // A writer that is still finishing a timed out shutdown sees run again and keeps going
+                    if (null == writer) {
+                        writer = Thread.ofPlatform().name("Recording writer").daemon(true).start(this::writeLoop);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeLoop() {
+        long lastFlush = System.nanoTime();
+        while (true) {
+            Entry entry;
+            while (null != (entry = queue.poll())) {
+                queued.decrementAndGet();
+                process(entry);
+            }
+
+            long now = System.nanoTime();
+            if (now - lastFlush >= flushIntervalNanos) {
+                flushDirty();
+                lastFlush = now;
+            }
+
+            if (!run) {
+                // Shutdown, close all recordings that are still open
+                flushDirty();
+                for (Recorder recorder : open) {
+                    closeRecorder(recorder);
+                }
+                open.clear();
+                synchronized (this) {
+                    if (!run && queue.isEmpty()) {
+                        writer = null;
+                        return;
+                    }
+                }
+            }
+            else if (queue.isEmpty()) {
+                long interval = flushIntervalNanos;
+                LockSupport.parkNanos(this, interval > 0 ? interval - (System.nanoTime() - lastFlush) : TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private void process(Entry entry) {
+        Recorder recorder = entry.recorder();
+        if (entry.close()) {
+            recorder.finished = true;
+            if (recorder.dirty) {
+                recorder.dirty = false;
+                dirty.remove(recorder);
+            }
+            if (open.remove(recorder)) {
+                closeRecorder(recorder);
+            }
+            return;
+        }
+        // A sample that raced with Recorder.close() must not reopen the file
+        if (recorder.finished) {
+            return;
+        }
+
+        try {
+            open.add(recorder);
+            recorder.write(entry.collector(), entry.line(), entry.dp());
+            written.incrementAndGet();
+            if (!recorder.dirty) {
+                recorder.dirty = true;
+                dirty.add(recorder);
+            }
+        }
+        catch (IOException e) {
+            SysLogger.getInstance().log(LogLevel.ERROR, "RecordingService: " + recorder.getFile(), "%s: Cannot record into %s due to: %s"
+                    .formatted(entry.collector().getName(), recorder.getFile(), e.getMessage()));
+        }
+    }
+
+    private void flushDirty() {
+        boolean sync = fsync;
+        for (Recorder recorder : dirty) {
+            recorder.dirty = false;
+            try {
+                recorder.flush(sync);
+            }
+            catch (IOException e) {
+                SysLogger.getInstance().error("RecordingService: Cannot flush %s due to: %s"
+                        .formatted(recorder.getFile(), e.getMessage()));
+            }
+        }
+        dirty.clear();
+    }
+
+    private void closeRecorder(Recorder recorder) {
+        try {
+            recorder.closeFile(fsync);
+        }
+        catch (IOException e) {
+            SysLogger.getInstance().error("RecordingService: Cannot close %s due to: %s"
+                    .formatted(recorder.getFile(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Stops the writer thread after all queued samples have been written and all recordings have been closed.
+     * Samples submitted until this method returns are dropped, so that they cannot keep the writer running.
+     * The service starts again with the next sample submitted afterward.
+     * @param timeout the maximum time to wait for the writer thread
+     * @return true if the writer thread finished within the timeout
+     */
+    public boolean shutdown(Duration timeout) {
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+            run = false;
+            shuttingDown = true;
+        }
+        try {
+            if (null == thread) {
+                return true;
+            }
+            LockSupport.unpark(thread);
+            return thread.join(timeout);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        finally {
+            synchronized (this) {
+                shuttingDown = false;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of samples and close requests waiting for the writer thread.
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the number of samples written since start.
+     * @return the samples written
+     */
+    public long getWrittenSamples() {
+        return written.get();
+    }
+
+    /**
+     * Returns the number of samples dropped because the writer thread fell behind.
+     * @return the samples dropped
+     */
+    public long getDroppedSamples() {
+        return dropped.get();
+    }
+}
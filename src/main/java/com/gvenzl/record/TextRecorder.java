@@ -0,0 +1,110 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: TextRecorder.java
+ * Description: Records the vmstat output of a system into a log file.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.OSInfo;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Path;
+
+/**
+ * Records the raw `vmstat` lines of a {@link Collector} into a `.log` file.
+ * A new recording file starts with the system information and the vmstat headers,
+ * an existing one is appended to.
+ */
+public class TextRecorder extends Recorder {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileOutputStream out;
+    private BufferedWriter writer;
+
+    /**
+     * Creates a recorder for the given file.
+     * @param file the recording file
+     * @throws IOException if the directory of the file is not writable
+     */
+    public TextRecorder(Path file) throws IOException {
+        super(file);
+    }
+
+    @Override
+    protected synchronized void write(Collector collector, String line, DataPoint dp) throws IOException {
+        if (null == writer) {
+            out = new FileOutputStream(getFile().toFile(), true);
+            writer = new BufferedWriter(new OutputStreamWriter(out), BUFFER_SIZE);
+            if (out.getChannel().size() == 0) {
+                writeHeader(collector);
+            }
+        }
+        writer.write(line);
+        writer.write("\n");
+    }
+
+    private void writeHeader(Collector collector) throws IOException {
+        OSInfo osInfo = collector.getSource().getOsInfo();
+        if (null != osInfo) {
+            writer.write("Name: %s    System: %s    CPUs: %s    Memory(GBs): %s\nOS: %s    Architecture: %s    OSVersion: %s\n"
+                    .formatted(
+                            collector.getName(),
+                            osInfo.getHostName(),
+                            osInfo.getCpus(),
+                            getMemoryGB(osInfo),
+                            osInfo.getOs(),
+                            osInfo.getArchitecture(),
+                            osInfo.getKernelVersion()
+                    )
+            );
+        }
+        writer.write(collector.getVMStatHeaders());
+        writer.write("\n");
+    }
+
+    @Override
+    protected synchronized void flush(boolean sync) throws IOException {
+        if (null != writer) {
+            writer.flush();
+            if (sync) {
+                out.getChannel().force(false);
+            }
+        }
+    }
+
+    @Override
+    protected synchronized void closeFile(boolean sync) throws IOException {
+        if (null != writer) {
+            try {
+                flush(sync);
+                writer.close();
+            }
+            finally {
+                writer = null;
+                out = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: TextRecordingReader.java
+ * Description: Reads the lines of a text recording at byte offsets.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a `.log` text recording and keeps track of their byte offsets,
+ * so that a reader can be positioned at any line, see {@link RecordingIndex}.
+ * A trailing line without a line feed, e.g. of a recording that is still being written,
+ * is not returned until it is complete.
+ * <p>
+ * A reader is not thread-safe.
+ */
+public class TextRecordingReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    // File offset of buffer position 0
+    private long bufferOffset = 0;
+    private byte[] line = new byte[256];
+
+    public TextRecordingReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.limit(0);
+    }
+
+    /**
+     * Returns the byte offset of the next line.
+     * @return the offset of the next line
+     */
+    public long position() {
+        return bufferOffset + buffer.position();
+    }
+
+    /**
+     * Positions the reader at the given byte offset, which must be the start of a line.
+     * @param offset the byte offset
+     * @throws IOException if the file cannot be read
+     */
+    public void seek(long offset) throws IOException {
+        if (offset >= bufferOffset && offset <= bufferOffset + buffer.limit()) {
+            buffer.position((int) (offset - bufferOffset));
+        }
+        else {
+            bufferOffset = offset;
+            buffer.clear().limit(0);
+        }
+    }
+
+    /**
+     * Reads the next line.
+     * @return the line without the line terminator, or null if there is no complete line left
+     * @throws IOException if the file cannot be read
+     */
+    public String readLine() throws IOException {
+        int length = 0;
+        long start = position();
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                // Incomplete last line, leave it for later
+                seek(start);
+                return null;
+            }
+            byte b = buffer.get();
+            if (b == '\n') {
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                return new String(line, 0, length, StandardCharsets.UTF_8);
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+    }
+
+    /**
+     * Skips the next line without decoding it.
+     * @return false if there is no complete line left
+     * @throws IOException if the file cannot be read
+     */
+    public boolean skipLine() throws IOException {
+        long start = position();
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                seek(start);
+                return false;
+            }
+            if (buffer.get() == '\n') {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads more data into the buffer, keeping its current position valid.
+     * @return false at the end of the file
+     */
+    private boolean fill() throws IOException {
+        long position = position();
+        bufferOffset = position;
+        buffer.clear();
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(buffer, position);
+        }
+        buffer.flip();
+        return read > 0;
+    }
+
+    /**
+     * Returns the current size of the file.
+     * @return the file size in bytes
+     * @throws IOException if the size cannot be determined
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: VarInt.java
+ * Description: Zigzag variable length integer encoding.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+/**
+ * Zigzag variable length encoding of longs: small positive and negative values take a single byte.
+ */
+final class VarInt {
+
+    // Longest encoding of a 64-bit value, 7 bits per byte
+    static final int MAX_BYTES = 10;
+
+    private VarInt() {}
+
+    /**
+     * Writes a zigzag encoded value into the buffer.
+     * @param buf the buffer to write to, must have at least {@link #MAX_BYTES} left
+     * @param pos the position to write at
+     * @param value the value to write
+     * @return the position after the written value
+     */
+    static int put(byte[] buf, int pos, long value) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return pos;
+    }
+
+    /**
+     * Returns the number of bytes the zigzag encoded value takes.
+     * @param value the value
+     * @return the encoded size in bytes
+     */
+    static int size(long value) {
+        long v = (value << 1) ^ (value >> 63);
+        int bits = 64 - Long.numberOfLeadingZeros(v | 1);
+        return (bits + 6) / 7;
+    }
+
+    /**
+     * Reads a zigzag encoded value from the buffer.
+     * @param buf the buffer to read from
+     * @param pos the position to read at, updated to the position after the value
+     * @return the value
+     * @throws IllegalArgumentException if the value is malformed
+     */
+    static long get(byte[] buf, int[] pos) {
+        long v = 0;
+        int p = pos[0];
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (p >= buf.length) {
+                throw new IllegalArgumentException("Truncated varint at %d".formatted(p));
+            }
+            byte b = buf[p++];
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                pos[0] = p;
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at %d".formatted(pos[0]));
+    }
+}
@@ -21,6 +21,7 @@
 
 package com.gvenzl.system;
 
+import com.gvenzl.log.LogLevel;
 import com.gvenzl.log.SysLogger;
 
 import java.text.ParseException;
@@ -101,158 +102,176 @@ public class DataPoint {
     private int waitCPUPercent = 0;
     private int stealCPUPercent = 0;
 
-    private Date dateTime;
+    // Epoch milliseconds of the sample, NO_DATE_TIME if not set
+    private static final long NO_DATE_TIME = Long.MIN_VALUE;
+    private long dateTime = NO_DATE_TIME;
 
-    private final SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private SimpleDateFormat dateFormatter;
 
-    public Integer getRunnableProcesses() {
+    public int getRunnableProcesses() {
         return runnableProcesses;
     }
 
-    public void setRunnableProcesses(Integer runnableProcesses) {
+    public void setRunnableProcesses(int runnableProcesses) {
         this.runnableProcesses = runnableProcesses;
     }
 
-    public Integer getBlockedProcesses() {
+    public int getBlockedProcesses() {
         return blockedProcesses;
     }
 
-    public void setBlockedProcesses(Integer blockedProcesses) {
+    public void setBlockedProcesses(int blockedProcesses) {
         this.blockedProcesses = blockedProcesses;
     }
 
-    public Long getSwapMemoryKB() {
+    public long getSwapMemoryKB() {
         return swapMemoryKB;
     }
 
-    public void setSwapMemoryKB(Long swapMemoryKB) {
+    public void setSwapMemoryKB(long swapMemoryKB) {
         this.swapMemoryKB = swapMemoryKB;
     }
 
-    public Long getFreeMemoryKB() {
+    public long getFreeMemoryKB() {
         return freeMemoryKB;
     }
 
-    public void setFreeMemoryKB(Long freeMemoryKB) {
+    public void setFreeMemoryKB(long freeMemoryKB) {
         this.freeMemoryKB = freeMemoryKB;
     }
 
-    public Long getBufferMemoryKB() {
+    public long getBufferMemoryKB() {
         return bufferMemoryKB;
     }
 
-    public void setBufferMemoryKB(Long bufferMemoryKB) {
+    public void setBufferMemoryKB(long bufferMemoryKB) {
         this.bufferMemoryKB = bufferMemoryKB;
     }
 
-    public Long getCacheMemoryKB() {
+    public long getCacheMemoryKB() {
         return cacheMemoryKB;
     }
 
-    public void setCacheMemoryKB(Long cacheMemoryKB) {
+    public void setCacheMemoryKB(long cacheMemoryKB) {
         this.cacheMemoryKB = cacheMemoryKB;
     }
 
-    public Long getSwapFromDiskKB() {
+    public long getSwapFromDiskKB() {
         return swapFromDiskKB;
     }
 
-    public void setSwapFromDiskKB(Long swapFromDiskKB) {
+    public void setSwapFromDiskKB(long swapFromDiskKB) {
         this.swapFromDiskKB = swapFromDiskKB;
     }
 
-    public Long getSwapToDiskKB() {
+    public long getSwapToDiskKB() {
         return swapToDiskKB;
     }
 
-    public void setSwapToDiskKB(Long swapToDiskKB) {
+    public void setSwapToDiskKB(long swapToDiskKB) {
         this.swapToDiskKB = swapToDiskKB;
     }
 
-    public Long getReadDiskKB() {
+    public long getReadDiskKB() {
         return readDiskKB;
     }
 
-    public void setReadDiskKB(Long readDiskKB) {
+    public void setReadDiskKB(long readDiskKB) {
         this.readDiskKB = readDiskKB;
     }
 
-    public Long getWriteDiskKB() {
+    public long getWriteDiskKB() {
         return writeDiskKB;
     }
 
-    public void setWriteDiskKB(Long writeDiskKB) {
+    public void setWriteDiskKB(long writeDiskKB) {
         this.writeDiskKB = writeDiskKB;
     }
 
-    public Long getInterrupts() {
+    public long getInterrupts() {
         return interrupts;
     }
 
-    public void setInterrupts(Long interrupts) {
+    public void setInterrupts(long interrupts) {
         this.interrupts = interrupts;
     }
 
-    public Long getContextSwitches() {
+    public long getContextSwitches() {
         return contextSwitches;
     }
 
-    public void setContextSwitches(Long contextSwitches) {
+    public void setContextSwitches(long contextSwitches) {
         this.contextSwitches = contextSwitches;
     }
 
-    public Integer getUserCPUPercent() {
+    public int getUserCPUPercent() {
         return userCPUPercent;
     }
 
-    public void setUserCPUPercent(Integer userCPUPercent) {
+    public void setUserCPUPercent(int userCPUPercent) {
         this.userCPUPercent = userCPUPercent;
     }
 
-    public Integer getSystemCPUPercent() {
+    public int getSystemCPUPercent() {
         return systemCPUPercent;
     }
 
-    public void setSystemCPUPercent(Integer systemCPUPercent) {
+    public void setSystemCPUPercent(int systemCPUPercent) {
         this.systemCPUPercent = systemCPUPercent;
     }
 
-    public Integer getIdleCPUPercent() {
+    public int getIdleCPUPercent() {
         return idleCPUPercent;
     }
 
-    public void setIdleCPUPercent(Integer idleCPUPercent) {
+    public void setIdleCPUPercent(int idleCPUPercent) {
         this.idleCPUPercent = idleCPUPercent;
     }
 
-    public Integer getWaitCPUPercent() {
+    public int getWaitCPUPercent() {
         return waitCPUPercent;
     }
 
-    public void setWaitCPUPercent(Integer waitCPUPercent) {
+    public void setWaitCPUPercent(int waitCPUPercent) {
         this.waitCPUPercent = waitCPUPercent;
     }
 
-    public Integer getStealCPUPercent() {
+    public int getStealCPUPercent() {
         return stealCPUPercent;
     }
 
-    public void setStealCPUPercent(Integer stealCPUPercent) {
+    public void setStealCPUPercent(int stealCPUPercent) {
         this.stealCPUPercent = stealCPUPercent;
     }
 
     public Date getDateTime() {
+        return dateTime == NO_DATE_TIME ? null : new Date(this.dateTime);
+    }
+
+    /**
+     * Returns the date and time of the data point in epoch milliseconds.
+     * @return the epoch milliseconds or {@link Long#MIN_VALUE} if no date has been set
+     */
+    public long getDateTimeMillis() {
         return this.dateTime;
     }
 
+    public void setDateTime(long epochMillis) {
+        this.dateTime = epochMillis;
+    }
+
     public void setDateTime(String date) {
+        // Only needed for String parsing, don't pay for a formatter on every data point
+        if (null == dateFormatter) {
+            dateFormatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        }
         try {
-            dateTime = dateFormatter.parse(date);
+            dateTime = dateFormatter.parse(date).getTime();
         } catch (ParseException | NumberFormatException e) {
-            SysLogger.getInstance().error("Cannot parse string: '%s'".formatted(date));
-            SysLogger.getInstance().error("Date format used: %s".formatted(dateFormatter.getDateFormatSymbols().getLocalPatternChars()));
-            SysLogger.getInstance().error(e.getMessage());
-            dateTime = new Date();
+            SysLogger.getInstance().log(LogLevel.ERROR, "DataPoint.setDateTime",
+                    "Cannot parse string: '%s', date format used: %s, %s".formatted(
+                            date, dateFormatter.getDateFormatSymbols().getLocalPatternChars(), e.getMessage()));
+            dateTime = System.currentTimeMillis();
         }
     }
 }
@@ -0,0 +1,274 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: FleetAggregate.java
+ * Description: Statistics across all systems, updated with every sample.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.collect.SampleListener;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sum, mean, max and 95th percentile of the {@link FleetMetric}s across all systems.
+ * <p>
+ * The samples are put into wall-clock buckets of one refresh cycle by their local arrival time,
+ * so that systems sampling at a different phase, or with clocks out of sync, fall into the same bucket.
+ * Every sample is added to the statistics of its bucket as it arrives, in O(1) and without allocations.
+ * A bucket is published as a {@link FleetSummary} once the wall clock is two buckets past it,
+ * which leaves a whole bucket for late samples. The buckets are published by the next sample,
+ * or by {@link #tick(long)} if no samples arrive.
+ * <p>
+ * Each system feeds the aggregate through its own {@link SampleListener}, see {@link #newFeed()}.
+ * The collectors run on virtual threads, hence the {@link ReentrantLock} instead of synchronized.
+ */
+public class FleetAggregate {
+
+    private static FleetAggregate instance = null;
+
+    // Open buckets: the one late samples are accepted for, the current one and the next one
+    private static final int SLOTS = 4;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Bucket[] buckets = new Bucket[SLOTS];
+    private long bucketMillis = 1000;
+    // The oldest bucket not yet published, -1 before the first sample
+    private long nextPublish = -1;
+    private long lateSamples = 0;
+    private volatile FleetSummary latest = null;
+
+    FleetAggregate() {
+        for (int i = 0; i < SLOTS; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    public static synchronized FleetAggregate getInstance() {
+        if (instance == null) {
+            instance = new FleetAggregate();
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the {@link SampleListener} that feeds the samples of one system into the aggregate.
+     * @return a new listener, to be added to one collector only
+     */
+    public SampleListener newFeed() {
+        return new Feed();
+    }
+
+    /**
+     * Sets the width of the time buckets, discarding the buckets not published yet.
+     * @param millis the bucket width in milliseconds, usually the refresh cycle
+     */
+    public void setBucketMillis(long millis) {
+        lock.lock();
+        try {
+            if (millis != bucketMillis) {
+                bucketMillis = Math.max(millis, 1);
+                nextPublish = -1;
+                for (Bucket bucket : buckets) {
+                    bucket.index = -1;
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the statistics of the latest published bucket.
+     * @return the latest {@link FleetSummary}, null if no bucket has been published yet
+     */
+    public FleetSummary getLatest() {
+        return latest;
+    }
+
+    /**
+     * Returns the number of samples that arrived after their bucket was published and were not counted.
+     * @return the number of late samples
+     */
+    public long getLateSamples() {
+        lock.lock();
+        try {
+            return lateSamples;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the buckets that the clock has passed, also while no samples arrive, e.g. when all systems are unreachable.
+     * Does not wait for the lock, a sample being added publishes them anyway.
+     * @param nowMillis the current time
+     */
+    public void tick(long nowMillis) {
+        if (lock.tryLock()) {
+            try {
+                publish(Math.floorDiv(nowMillis, bucketMillis));
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds a sample of a system.
+     * @param feed the feed of the system
+     * @param nowMillis the arrival time of the sample
+     * @param dp the sample
+     */
+    void add(Feed feed, long nowMillis, DataPoint dp) {
+        lock.lock();
+        try {
+            long now = Math.floorDiv(nowMillis, bucketMillis);
+            publish(now);
+
+            if (feed.bucketMillis != bucketMillis) {
+                feed.bucketMillis = bucketMillis;
+                feed.lastBucket = Long.MIN_VALUE;
+            }
+            // With jitter, a sample close to a bucket boundary can fall into the bucket of the previous sample,
+            // or skip one. Every sample of a system goes into the bucket after its previous one instead,
+            // as long as that is at most one bucket away. A system sampling faster than that only counts once per bucket.
+            long bucket = now;
+            long expected = feed.lastBucket + 1;
+            if (bucket == expected - 1 || (bucket == expected + 1 && expected >= nextPublish)) {
+                bucket = expected;
+            }
+            else if (bucket < expected) {
+                return;
+            }
+            if (bucket < nextPublish) {
+                lateSamples++;
+                return;
+            }
+
+            Bucket slot = buckets[Math.floorMod(bucket, SLOTS)];
+            if (slot.index != bucket) {
+                slot.reset(bucket);
+            }
+            slot.add(dp);
+            feed.lastBucket = bucket;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the buckets that the clock has passed by two buckets. Called with the lock held.
+     */
+    private void publish(long now) {
+        if (nextPublish < 0) {
+            nextPublish = now - 1;
+            return;
+        }
+        long last = now - 2;
+        if (last - nextPublish >= SLOTS) {
+            // No samples for a while, only the buckets still held can have samples, the ones after are empty
+            for (long bucket = nextPublish; bucket < nextPublish + SLOTS; bucket++) {
+                publishBucket(bucket);
+            }
+            nextPublish = last + 1;
+        }
+        for (; nextPublish <= last; nextPublish++) {
+            publishBucket(nextPublish);
+        }
+    }
+
+    private void publishBucket(long bucket) {
+        Bucket slot = buckets[Math.floorMod(bucket, SLOTS)];
+        if (slot.index == bucket && slot.systems > 0) {
+            latest = slot.summarize(bucketMillis);
+        }
+    }
+
+    /**
+     * The running statistics of one bucket.
+     */
+    private static class Bucket {
+
+        private final int metrics = FleetMetric.all().length;
+        private final double[] sum = new double[metrics];
+        private final double[] max = new double[metrics];
+        private final QuantileSketch[] sketches = new QuantileSketch[metrics];
+        private long index = -1;
+        private int systems = 0;
+
+        Bucket() {
+            for (FleetMetric metric : FleetMetric.all()) {
+                sketches[metric.ordinal()] = new QuantileSketch(metric.getHighestValue());
+            }
+        }
+
+        void reset(long index) {
+            this.index = index;
+            systems = 0;
+            for (int i = 0; i < metrics; i++) {
+                sum[i] = 0;
+                max[i] = 0;
+                sketches[i].clear();
+            }
+        }
+
+        void add(DataPoint dp) {
+            systems++;
+            for (FleetMetric metric : FleetMetric.all()) {
+                int i = metric.ordinal();
+                long value = metric.get(dp);
+                sum[i] += value;
+                max[i] = Math.max(max[i], value);
+                sketches[i].add(value);
+            }
+        }
+
+        FleetSummary summarize(long bucketMillis) {
+            double[] p95 = new double[metrics];
+            for (int i = 0; i < metrics; i++) {
+                p95[i] = sketches[i].getQuantile(0.95);
+            }
+            return new FleetSummary(index * bucketMillis, bucketMillis, systems, sum.clone(), max.clone(), p95);
+        }
+    }
+
+    /**
+     * Feeds the samples of one system, remembers the bucket of its last sample.
+     */
+    class Feed implements SampleListener {
+
+        // Guarded by the lock of the aggregate
+        private long lastBucket = Long.MIN_VALUE;
+        private long bucketMillis = 0;
+        // Only used by the collector thread
+        private final DataPoint dp = new DataPoint();
+
+        @Override
+        public void sample(Collector collector, long sequence, String line) {
+            if (collector.getHistory().get(sequence, dp)) {
+                add(this, System.currentTimeMillis(), dp);
+            }
+        }
+    }
+}
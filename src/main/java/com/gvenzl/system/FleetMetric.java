@@ -0,0 +1,79 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: FleetMetric.java
+ * Description: The metrics aggregated across all systems.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+/**
+ * The metrics aggregated across all systems by the {@link FleetAggregate}.
+ */
+public enum FleetMetric {
+
+    CPU_BUSY_PERCENT("CPU busy %", 100),
+    CPU_WAIT_PERCENT("CPU wait %", 100),
+    RUN_QUEUE("Run queue", 1 << 16),
+    FREE_MEMORY_KB("Free memory KB", 1L << 42);
+
+    // values() clones the array on every call
+    private static final FleetMetric[] METRICS = values();
+
+    private final String label;
+    private final long highestValue;
+
+    FleetMetric(String label, long highestValue) {
+        this.label = label;
+        this.highestValue = highestValue;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the highest value of the metric that is told apart from higher ones, e.g. 100%.
+     * @return the highest value
+     */
+    public long getHighestValue() {
+        return highestValue;
+    }
+
+    /**
+     * Returns the value of this metric from the given {@link DataPoint}.
+     * @param dp the {@link DataPoint}
+     * @return the value of the metric
+     */
+    public long get(DataPoint dp) {
+        return switch (this) {
+            case CPU_BUSY_PERCENT -> 100 - dp.getIdleCPUPercent();
+            case CPU_WAIT_PERCENT -> dp.getWaitCPUPercent();
+            case RUN_QUEUE -> dp.getRunnableProcesses();
+            case FREE_MEMORY_KB -> dp.getFreeMemoryKB();
+        };
+    }
+
+    /**
+     * Returns all metrics without cloning the values array.
+     * The returned array must not be modified.
+     * @return all metrics
+     */
+    public static FleetMetric[] all() {
+        return METRICS;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: FleetSummary.java
+ * Description: The statistics of all systems in one time bucket.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+/**
+ * The statistics of the {@link FleetMetric}s across all systems that reported a sample in one time bucket.
+ * Immutable.
+ */
+public class FleetSummary {
+
+    private final long startMillis;
+    private final long durationMillis;
+    private final int systems;
+    private final double[] sum;
+    private final double[] max;
+    private final double[] p95;
+
+    FleetSummary(long startMillis, long durationMillis, int systems, double[] sum, double[] max, double[] p95) {
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.systems = systems;
+        this.sum = sum;
+        this.max = max;
+        this.p95 = p95;
+    }
+
+    /**
+     * Returns the start of the time bucket.
+     * @return the epoch milliseconds of the start of the bucket
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Returns the number of systems that reported a sample in the time bucket.
+     * @return the number of systems
+     */
+    public int getSystems() {
+        return systems;
+    }
+
+    public double getSum(FleetMetric metric) {
+        return sum[metric.ordinal()];
+    }
+
+    public double getMean(FleetMetric metric) {
+        return systems == 0 ? 0 : sum[metric.ordinal()] / systems;
+    }
+
+    public double getMax(FleetMetric metric) {
+        return max[metric.ordinal()];
+    }
+
+    /**
+     * Returns the 95th percentile across the systems, approximated by a {@link QuantileSketch}.
+     * @param metric the metric
+     * @return the 95th percentile
+     */
+    public double getP95(FleetMetric metric) {
+        return p95[metric.ordinal()];
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: Metric.java
+ * Description: The metrics reported by vmstat.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+/**
+ * The metrics of a {@link DataPoint}, in `vmstat` column order.
+ */
+public enum Metric {
+
+    RUNNABLE_PROCESSES("r", "runnable_processes"),
+    BLOCKED_PROCESSES("b", "blocked_processes"),
+    SWAP_MEMORY_KB("swpd", "swap_memory_kb"),
+    FREE_MEMORY_KB("free", "free_memory_kb"),
+    BUFFER_MEMORY_KB("buff", "buffer_memory_kb"),
+    CACHE_MEMORY_KB("cache", "cache_memory_kb"),
+    SWAP_FROM_DISK_KB("si", "swap_from_disk_kb"),
+    SWAP_TO_DISK_KB("so", "swap_to_disk_kb"),
+    READ_DISK_KB("bi", "read_disk_kb"),
+    WRITE_DISK_KB("bo", "write_disk_kb"),
+    INTERRUPTS("in", "interrupts"),
+    CONTEXT_SWITCHES("cs", "context_switches"),
+    USER_CPU_PERCENT("us", "user_cpu_percent"),
+    SYSTEM_CPU_PERCENT("sy", "system_cpu_percent"),
+    IDLE_CPU_PERCENT("id", "idle_cpu_percent"),
+    WAIT_CPU_PERCENT("wa", "wait_cpu_percent"),
+    STEAL_CPU_PERCENT("st", "steal_cpu_percent");
+
+    // values() clones the array on every call
+    private static final Metric[] METRICS = values();
+
+    private final String column;
+    private final String key;
+
+    Metric(String column, String key) {
+        this.column = column;
+        this.key = key;
+    }
+
+    /**
+     * Returns the column header of the metric as printed by `vmstat`.
+     * @return the vmstat column header
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns the lower case name of the metric, e.g. for configuration files and exports.
+     * @return the metric key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the value of this metric from the given {@link DataPoint}.
+     * @param dp the {@link DataPoint}
+     * @return the value of the metric
+     */
+    public long get(DataPoint dp) {
+        return switch (this) {
+            case RUNNABLE_PROCESSES -> dp.getRunnableProcesses();
+            case BLOCKED_PROCESSES -> dp.getBlockedProcesses();
+            case SWAP_MEMORY_KB -> dp.getSwapMemoryKB();
+            case FREE_MEMORY_KB -> dp.getFreeMemoryKB();
+            case BUFFER_MEMORY_KB -> dp.getBufferMemoryKB();
+            case CACHE_MEMORY_KB -> dp.getCacheMemoryKB();
+            case SWAP_FROM_DISK_KB -> dp.getSwapFromDiskKB();
+            case SWAP_TO_DISK_KB -> dp.getSwapToDiskKB();
+            case READ_DISK_KB -> dp.getReadDiskKB();
+            case WRITE_DISK_KB -> dp.getWriteDiskKB();
+            case INTERRUPTS -> dp.getInterrupts();
+            case CONTEXT_SWITCHES -> dp.getContextSwitches();
+            case USER_CPU_PERCENT -> dp.getUserCPUPercent();
+            case SYSTEM_CPU_PERCENT -> dp.getSystemCPUPercent();
+            case IDLE_CPU_PERCENT -> dp.getIdleCPUPercent();
+            case WAIT_CPU_PERCENT -> dp.getWaitCPUPercent();
+            case STEAL_CPU_PERCENT -> dp.getStealCPUPercent();
+        };
+    }
+
+    /**
+     * Sets the value of this metric on the given {@link DataPoint}.
+     * @param dp the {@link DataPoint}
+     * @param value the value of the metric
+     */
+    public void set(DataPoint dp, long value) {
+        switch (this) {
+            case RUNNABLE_PROCESSES -> dp.setRunnableProcesses((int) value);
+            case BLOCKED_PROCESSES -> dp.setBlockedProcesses((int) value);
+            case SWAP_MEMORY_KB -> dp.setSwapMemoryKB(value);
+            case FREE_MEMORY_KB -> dp.setFreeMemoryKB(value);
+            case BUFFER_MEMORY_KB -> dp.setBufferMemoryKB(value);
+            case CACHE_MEMORY_KB -> dp.setCacheMemoryKB(value);
+            case SWAP_FROM_DISK_KB -> dp.setSwapFromDiskKB(value);
+            case SWAP_TO_DISK_KB -> dp.setSwapToDiskKB(value);
+            case READ_DISK_KB -> dp.setReadDiskKB(value);
+            case WRITE_DISK_KB -> dp.setWriteDiskKB(value);
+            case INTERRUPTS -> dp.setInterrupts(value);
+            case CONTEXT_SWITCHES -> dp.setContextSwitches(value);
+            case USER_CPU_PERCENT -> dp.setUserCPUPercent((int) value);
+            case SYSTEM_CPU_PERCENT -> dp.setSystemCPUPercent((int) value);
+            case IDLE_CPU_PERCENT -> dp.setIdleCPUPercent((int) value);
+            case WAIT_CPU_PERCENT -> dp.setWaitCPUPercent((int) value);
+            case STEAL_CPU_PERCENT -> dp.setStealCPUPercent((int) value);
+        }
+    }
+
+    /**
+     * Returns all metrics without cloning the values array.
+     * The returned array must not be modified.
+     * @return all metrics
+     */
+    public static Metric[] all() {
+        return METRICS;
+    }
+
+    /**
+     * Returns the metric with the given key.
+     * @param key the metric key, see {@link #getKey()}
+     * @return the metric
+     * @throws IllegalArgumentException if no metric has the given key
+     */
+    public static Metric fromKey(String key) {
+        for (Metric metric : METRICS) {
+            if (metric.key.equals(key)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unknown metric: '%s'".formatted(key));
+    }
+}
@@ -30,6 +30,8 @@ public class OSInfo {
     private long memoryKB;
     private String kernelVersion;
     private String architecture;
+    private String bootId = "";
+    private String vmStatOutput;
     private VMStat vmStat;
 
     public String getOs() {
@@ -88,11 +90,36 @@ public class OSInfo {
         this.architecture = architecture;
     }
 
+    /**
+     * Returns the boot id of the system, which changes with every reboot.
+     * @return the content of /proc/sys/kernel/random/boot_id
+     */
+    public String getBootId() {
+        return bootId;
+    }
+
+    public void setBootId(String bootId) {
+        this.bootId = bootId;
+    }
+
+    /**
+     * Returns the `vmstat` output the {@link VMStat} has been created from.
+     * @return the vmstat output
+     */
+    public String getVMStatOutput() {
+        return vmStatOutput;
+    }
+
+    public VMStat getVMStat() {
+        return vmStat;
+    }
+
     public String getVMStatPattern() {
         return vmStat.getPattern();
     }
 
     public void createVMStatPattern(String vmStatOutput) {
+        this.vmStatOutput = vmStatOutput;
         vmStat = new VMStat(vmStatOutput);
     }
 }
@@ -0,0 +1,188 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: QuantileSketch.java
+ * Description: Fixed-size histogram for approximate quantiles.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram of non-negative values, for approximate quantiles in constant memory.
+ * <p>
+ * Values below 64 are counted exactly. Above, every power of 2 is split into 32 equally wide buckets,
+ * the same layout as an HDR histogram with 2 significant bits, so a quantile is off by less than 1/64 of its value.
+ * Adding a value is O(1) and does not allocate.
+ * <p>
+ * Sketches with the same highest value can be merged, e.g. the sketches of many systems into one for all of them.
+ * Merging, clearing and quantiles only visit the buckets between the lowest and the highest value counted,
+ * which for most metrics are a few dozen.
+ * <p>
+ * An instance is not thread-safe.
+ */
+public class QuantileSketch {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private final long highestValue;
+    // Counts per bucket, one bucket holds at most Integer.MAX_VALUE values
+    private final int[] counts;
+    private long count = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Creates an empty sketch.
+     * @param highestValue the highest value counted, higher values are counted as this value
+     */
+    public QuantileSketch(long highestValue) {
+        if (highestValue < 1) {
+            throw new IllegalArgumentException("Highest value must be at least 1, was: %d".formatted(highestValue));
+        }
+        this.highestValue = highestValue;
+        this.counts = new int[index(highestValue) + 1];
+    }
+
+    /**
+     * Returns the bucket of a value: the value itself below 64, then 32 buckets per power of 2.
+     */
+    static int index(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the lowest value counted in a bucket.
+     */
+    static long lowestValue(int index) {
+        int shift = Math.max(0, (index >>> SUB_BUCKET_BITS) - 1);
+        return (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+    }
+
+    /**
+     * Returns the width of a bucket.
+     */
+    static long width(int index) {
+        return 1L << Math.max(0, (index >>> SUB_BUCKET_BITS) - 1);
+    }
+
+    /**
+     * Counts a value. Negative values are counted as 0.
+     * @param value the value
+     */
+    public void add(long value) {
+        value = Math.min(Math.max(value, 0), highestValue);
+        counts[index(value)]++;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Returns the approximate value below which the given fraction of the values lies.
+     * @param quantile the quantile, from 0 to 1, e.g. 0.95
+     * @return the value, 0 if the sketch is empty
+     */
+    public long getQuantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(quantile * count), 1);
+        long seen = 0;
+        for (int i = index(min); i <= index(max); i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // Middle of the bucket, but never outside the values actually seen
+                long value = lowestValue(i) + width(i) / 2;
+                return Math.min(Math.max(value, min), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the approximate values of several quantiles.
+     * @param quantiles the quantiles, from 0 to 1, in ascending order
+     * @param values receives the value of each quantile
+     */
+    public void getQuantiles(double[] quantiles, long[] values) {
+        for (int q = 0; q < quantiles.length; q++) {
+            values[q] = getQuantile(quantiles[q]);
+        }
+    }
+
+    /**
+     * Adds all values of another sketch to this one.
+     * @param other the sketch to add, with the same highest value
+     * @throws IllegalArgumentException if the sketches have a different highest value
+     */
+    public void merge(QuantileSketch other) {
+        if (other.highestValue != highestValue) {
+            throw new IllegalArgumentException("Cannot merge a sketch up to %d into one up to %d"
+                    .formatted(other.highestValue, highestValue));
+        }
+        if (other.count == 0) {
+            return;
+        }
+        int last = index(other.max);
+        for (int i = index(other.min); i <= last; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getHighestValue() {
+        return highestValue;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the lowest value counted.
+     * @return the lowest value, 0 if the sketch is empty
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the highest value counted.
+     * @return the highest value, 0 if the sketch is empty
+     */
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        if (count == 0) {
+            return;
+        }
+        Arrays.fill(counts, index(min), index(max) + 1, 0);
+        count = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: Registry.java
+ * Description: Thread-safe registry of named values.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe registry of named values, ordered by name.
+ * <p>
+ * Copy-on-write: the names and values are held in two sorted arrays that are replaced as a whole on every change.
+ * Readers never lock, a lookup is a binary search, O(log n), and iterating, e.g. to broadcast to all systems,
+ * walks the registry as it was when the iteration started, no matter what is added or removed meanwhile.
+ * A change copies the arrays, O(n), which for thousands of entries is a few microseconds,
+ * changes are serialized by a {@link ReentrantLock}.
+ * @param <V> the type of the values
+ */
+public class Registry<V> implements Iterable<V> {
+
+    private static final State EMPTY = new State(new String[0], new Object[0]);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile State state = EMPTY;
+
+    /**
+     * The immutable contents of the registry, values[i] is registered under names[i].
+     */
+    private record State(String[] names, Object[] values) {}
+
+    /**
+     * Returns the value registered under a name.
+     * @param name the name
+     * @return the value, null if none is registered under the name
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String name) {
+        State current = state;
+        int index = Arrays.binarySearch(current.names(), name);
+        return index >= 0 ? (V) current.values()[index] : null;
+    }
+
+    public boolean contains(String name) {
+        return Arrays.binarySearch(state.names(), name) >= 0;
+    }
+
+    public int size() {
+        return state.names().length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Registers a value, replacing the value registered under the same name.
+     * @param name the name
+     * @param value the value
+     * @return the replaced value, null if none
+     */
+    public V put(String name, V value) {
+        return put(name, value, true);
+    }
+
+    /**
+     * Registers a value unless a value is already registered under the same name.
+     * @param name the name
+     * @param value the value
+     * @return the value already registered, null if the value was registered
+     */
+    public V putIfAbsent(String name, V value) {
+        return put(name, value, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V put(String name, V value, boolean replace) {
+        lock.lock();
+        try {
+            State current = state;
+            int index = Arrays.binarySearch(current.names(), name);
+            if (index >= 0) {
+                V previous = (V) current.values()[index];
+                if (replace) {
+                    Object[] values = current.values().clone();
+                    values[index] = value;
+                    state = new State(current.names(), values);
+                }
+                return previous;
+            }
+
+            int insert = -index - 1;
+            int size = current.names().length;
+            String[] names = new String[size + 1];
+            Object[] values = new Object[size + 1];
+            System.arraycopy(current.names(), 0, names, 0, insert);
+            System.arraycopy(current.values(), 0, values, 0, insert);
+            names[insert] = name;
+            values[insert] = value;
+            System.arraycopy(current.names(), insert, names, insert + 1, size - insert);
+            System.arraycopy(current.values(), insert, values, insert + 1, size - insert);
+            state = new State(names, values);
+            return null;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the value registered under a name.
+     * @param name the name
+     * @return the removed value, null if none was registered under the name
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(String name) {
+        lock.lock();
+        try {
+            State current = state;
+            int index = Arrays.binarySearch(current.names(), name);
+            if (index < 0) {
+                return null;
+            }
+
+            int size = current.names().length;
+            String[] names = new String[size - 1];
+            Object[] values = new Object[size - 1];
+            System.arraycopy(current.names(), 0, names, 0, index);
+            System.arraycopy(current.values(), 0, values, 0, index);
+            System.arraycopy(current.names(), index + 1, names, index, size - index - 1);
+            System.arraycopy(current.values(), index + 1, values, index, size - index - 1);
+            state = new State(names, values);
+            return (V) current.values()[index];
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the values as registered right now, ordered by name.
+     * The list is a snapshot, it does not change when values are added or removed, and cannot be modified.
+     * @return the values
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        return Collections.unmodifiableList(Arrays.asList((V[]) state.values()));
+    }
+
+    /**
+     * Returns the names as registered right now, in order.
+     * The list is a snapshot, it does not change when values are added or removed, and cannot be modified.
+     * @return the names
+     */
+    public List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(state.names()));
+    }
+
+    /**
+     * Iterates over a snapshot of the values, see {@link #values()}.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<V> iterator() {
+        return values().iterator();
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: SampleHistory.java
+ * Description: Columnar ring buffer holding the sample history of a system.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+/**
+ * Fixed-capacity sample history of a system.
+ * Every `vmstat` column is kept in its own primitive array, so that hours of samples
+ * take a predictable amount of heap instead of thousands of small objects.
+ * Appending is O(1) and evicts the oldest sample once the capacity is reached.
+ * <p>
+ * Every sample gets a sequence number, starting with 0, that stays valid until the sample is evicted.
+ * Sample {@code n} lives at slot {@code n % capacity}.
+ * Besides the columns, the anomalous metrics of each sample are kept, see {@link #setAnomalies(long, int)}.
+ * The history is written by a single collector and may be read by any thread.
+ */
+public class SampleHistory {
+
+    private int capacity;
+    // Sequence number of the next sample to be added, i.e. the number of samples added so far
+    private long nextSequence = 0;
+    private int size = 0;
+
+    private long[] dateTime;
+    private int[] runnableProcesses;
+    private int[] blockedProcesses;
+    private long[] swapMemoryKB;
+    private long[] freeMemoryKB;
+    private long[] bufferMemoryKB;
+    private long[] cacheMemoryKB;
+    private long[] swapFromDiskKB;
+    private long[] swapToDiskKB;
+    private long[] readDiskKB;
+    private long[] writeDiskKB;
+    private long[] interrupts;
+    private long[] contextSwitches;
+    private int[] userCPUPercent;
+    private int[] systemCPUPercent;
+    private int[] idleCPUPercent;
+    private int[] waitCPUPercent;
+    private int[] stealCPUPercent;
+    // Bit Metric#ordinal() set for each anomalous metric
+    private int[] anomalies;
+
+    public SampleHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1, was: %d".formatted(capacity));
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        dateTime = new long[capacity];
+        runnableProcesses = new int[capacity];
+        blockedProcesses = new int[capacity];
+        swapMemoryKB = new long[capacity];
+        freeMemoryKB = new long[capacity];
+        bufferMemoryKB = new long[capacity];
+        cacheMemoryKB = new long[capacity];
+        swapFromDiskKB = new long[capacity];
+        swapToDiskKB = new long[capacity];
+        readDiskKB = new long[capacity];
+        writeDiskKB = new long[capacity];
+        interrupts = new long[capacity];
+        contextSwitches = new long[capacity];
+        userCPUPercent = new int[capacity];
+        systemCPUPercent = new int[capacity];
+        idleCPUPercent = new int[capacity];
+        waitCPUPercent = new int[capacity];
+        stealCPUPercent = new int[capacity];
+        anomalies = new int[capacity];
+    }
+
+    /**
+     * Appends a sample, evicting the oldest one if the history is full.
+     * @param dp the sample
+     * @return the sequence number of the sample
+     */
+    public synchronized long add(DataPoint dp) {
+        long sequence = nextSequence;
+        int slot = slot(sequence);
+        dateTime[slot] = dp.getDateTimeMillis();
+        runnableProcesses[slot] = dp.getRunnableProcesses();
+        blockedProcesses[slot] = dp.getBlockedProcesses();
+        swapMemoryKB[slot] = dp.getSwapMemoryKB();
+        freeMemoryKB[slot] = dp.getFreeMemoryKB();
+        bufferMemoryKB[slot] = dp.getBufferMemoryKB();
+        cacheMemoryKB[slot] = dp.getCacheMemoryKB();
+        swapFromDiskKB[slot] = dp.getSwapFromDiskKB();
+        swapToDiskKB[slot] = dp.getSwapToDiskKB();
+        readDiskKB[slot] = dp.getReadDiskKB();
+        writeDiskKB[slot] = dp.getWriteDiskKB();
+        interrupts[slot] = dp.getInterrupts();
+        contextSwitches[slot] = dp.getContextSwitches();
+        userCPUPercent[slot] = dp.getUserCPUPercent();
+        systemCPUPercent[slot] = dp.getSystemCPUPercent();
+        idleCPUPercent[slot] = dp.getIdleCPUPercent();
+        waitCPUPercent[slot] = dp.getWaitCPUPercent();
+        stealCPUPercent[slot] = dp.getStealCPUPercent();
+        anomalies[slot] = 0;
+        nextSequence++;
+        if (size < capacity) {
+            size++;
+        }
+        return sequence;
+    }
+
+    /**
+     * Copies a sample into the given {@link DataPoint}.
+     * @param sequence the sequence number of the sample
+     * @param dp the {@link DataPoint} to fill
+     * @return false if the sample has already been evicted or does not exist yet
+     */
+    public synchronized boolean get(long sequence, DataPoint dp) {
+        if (!contains(sequence)) {
+            return false;
+        }
+        int slot = slot(sequence);
+        dp.setDateTime(dateTime[slot]);
+        dp.setRunnableProcesses(runnableProcesses[slot]);
+        dp.setBlockedProcesses(blockedProcesses[slot]);
+        dp.setSwapMemoryKB(swapMemoryKB[slot]);
+        dp.setFreeMemoryKB(freeMemoryKB[slot]);
+        dp.setBufferMemoryKB(bufferMemoryKB[slot]);
+        dp.setCacheMemoryKB(cacheMemoryKB[slot]);
+        dp.setSwapFromDiskKB(swapFromDiskKB[slot]);
+        dp.setSwapToDiskKB(swapToDiskKB[slot]);
+        dp.setReadDiskKB(readDiskKB[slot]);
+        dp.setWriteDiskKB(writeDiskKB[slot]);
+        dp.setInterrupts(interrupts[slot]);
+        dp.setContextSwitches(contextSwitches[slot]);
+        dp.setUserCPUPercent(userCPUPercent[slot]);
+        dp.setSystemCPUPercent(systemCPUPercent[slot]);
+        dp.setIdleCPUPercent(idleCPUPercent[slot]);
+        dp.setWaitCPUPercent(waitCPUPercent[slot]);
+        dp.setStealCPUPercent(stealCPUPercent[slot]);
+        return true;
+    }
+
+    /**
+     * Returns a single value of a sample.
+     * @param sequence the sequence number of the sample
+     * @param metric the metric to return
+     * @return the value
+     * @throws IndexOutOfBoundsException if the sample has already been evicted or does not exist yet
+     */
+    public synchronized long get(long sequence, Metric metric) {
+        checkContains(sequence);
+        int slot = slot(sequence);
+        return switch (metric) {
+            case RUNNABLE_PROCESSES -> runnableProcesses[slot];
+            case BLOCKED_PROCESSES -> blockedProcesses[slot];
+            case SWAP_MEMORY_KB -> swapMemoryKB[slot];
+            case FREE_MEMORY_KB -> freeMemoryKB[slot];
+            case BUFFER_MEMORY_KB -> bufferMemoryKB[slot];
+            case CACHE_MEMORY_KB -> cacheMemoryKB[slot];
+            case SWAP_FROM_DISK_KB -> swapFromDiskKB[slot];
+            case SWAP_TO_DISK_KB -> swapToDiskKB[slot];
+            case READ_DISK_KB -> readDiskKB[slot];
+            case WRITE_DISK_KB -> writeDiskKB[slot];
+            case INTERRUPTS -> interrupts[slot];
+            case CONTEXT_SWITCHES -> contextSwitches[slot];
+            case USER_CPU_PERCENT -> userCPUPercent[slot];
+            case SYSTEM_CPU_PERCENT -> systemCPUPercent[slot];
+            case IDLE_CPU_PERCENT -> idleCPUPercent[slot];
+            case WAIT_CPU_PERCENT -> waitCPUPercent[slot];
+            case STEAL_CPU_PERCENT -> stealCPUPercent[slot];
+        };
+    }
+
+    /**
+     * Returns the date and time of a sample in epoch milliseconds.
+     * @param sequence the sequence number of the sample
+     * @return the epoch milliseconds
+     * @throws IndexOutOfBoundsException if the sample has already been evicted or does not exist yet
+     */
+    public synchronized long getDateTimeMillis(long sequence) {
+        checkContains(sequence);
+        return dateTime[slot(sequence)];
+    }
+
+    /**
+     * Sets the anomalous metrics of a sample.
+     * @param sequence the sequence number of the sample
+     * @param metrics the anomalous metrics, bit {@link Metric#ordinal()} set for each
+     * @return false if the sample has already been evicted or does not exist yet
+     */
+    public synchronized boolean setAnomalies(long sequence, int metrics) {
+        if (!contains(sequence)) {
+            return false;
+        }
+        anomalies[slot(sequence)] = metrics;
+        return true;
+    }
+
+    /**
+     * Returns the anomalous metrics of a sample.
+     * @param sequence the sequence number of the sample
+     * @return the anomalous metrics, bit {@link Metric#ordinal()} set for each,
+     *         0 if none or if the sample has already been evicted or does not exist yet
+     */
+    public synchronized int getAnomalies(long sequence) {
+        return contains(sequence) ? anomalies[slot(sequence)] : 0;
+    }
+
+    /**
+     * Changes the capacity, keeping the newest samples.
+     * @param capacity the new capacity
+     */
+    public synchronized void resize(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1, was: %d".formatted(capacity));
+        }
+        if (capacity == this.capacity) {
+            return;
+        }
+
+        SampleHistory resized = new SampleHistory(capacity);
+        resized.nextSequence = Math.max(getFirstSequence(), nextSequence - capacity);
+
+        DataPoint dp = new DataPoint();
+        for (long sequence = resized.nextSequence; sequence < nextSequence; sequence++) {
+            get(sequence, dp);
+            resized.anomalies[resized.slot(resized.add(dp))] = anomalies[slot(sequence)];
+        }
+        copyArraysFrom(resized);
+    }
+
+    private void copyArraysFrom(SampleHistory other) {
+        capacity = other.capacity;
+        nextSequence = other.nextSequence;
+        size = other.size;
+        dateTime = other.dateTime;
+        runnableProcesses = other.runnableProcesses;
+        blockedProcesses = other.blockedProcesses;
+        swapMemoryKB = other.swapMemoryKB;
+        freeMemoryKB = other.freeMemoryKB;
+        bufferMemoryKB = other.bufferMemoryKB;
+        cacheMemoryKB = other.cacheMemoryKB;
+        swapFromDiskKB = other.swapFromDiskKB;
+        swapToDiskKB = other.swapToDiskKB;
+        readDiskKB = other.readDiskKB;
+        writeDiskKB = other.writeDiskKB;
+        interrupts = other.interrupts;
+        contextSwitches = other.contextSwitches;
+        userCPUPercent = other.userCPUPercent;
+        systemCPUPercent = other.systemCPUPercent;
+        idleCPUPercent = other.idleCPUPercent;
+        waitCPUPercent = other.waitCPUPercent;
+        stealCPUPercent = other.stealCPUPercent;
+        anomalies = other.anomalies;
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of samples currently held.
+     * @return the number of samples
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sequence number of the oldest sample still held.
+     * @return the sequence number of the oldest sample, equal to {@link #getNextSequence()} if the history is empty
+     */
+    public synchronized long getFirstSequence() {
+        return nextSequence - size;
+    }
+
+    /**
+     * Returns the sequence number the next sample will get.
+     * The newest sample held has the sequence number {@code getNextSequence() - 1}.
+     * @return the sequence number of the next sample
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Checks whether a sample is held by the history.
+     * @param sequence the sequence number of the sample
+     * @return true if the sample has not been evicted yet
+     */
+    public synchronized boolean contains(long sequence) {
+        return sequence < nextSequence && sequence >= nextSequence - size;
+    }
+
+    private void checkContains(long sequence) {
+        if (!contains(sequence)) {
+            throw new IndexOutOfBoundsException("Sample %d is not in the history [%d, %d)"
+                    .formatted(sequence, getFirstSequence(), nextSequence));
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+}
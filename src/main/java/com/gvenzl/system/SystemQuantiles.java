@@ -0,0 +1,157 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: SystemQuantiles.java
+ * Description: Percentiles of a system over the last hour.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Percentiles of the CPU wait and the run queue of one system over the last hour of its samples.
+ * <p>
+ * The hour is split into six 10 minute slices of one {@link QuantileSketch} per metric, the oldest slice is cleared
+ * and reused once the samples move past it, so the percentiles cover between 50 and 60 minutes.
+ * The memory is constant, about 10 KB per system,
+ * however many samples an hour has, and adding a sample does not allocate.
+ * The hour is measured on the timestamps of the samples, so that replayed recordings work the same.
+ * <p>
+ * The sketches of many systems can be merged, see {@link #mergeInto(FleetMetric, QuantileSketch)}.
+ * Samples are added by the collector thread and read by any thread, hence the {@link ReentrantLock}.
+ */
+public class SystemQuantiles {
+
+    private static final FleetMetric[] METRICS = { FleetMetric.CPU_WAIT_PERCENT, FleetMetric.RUN_QUEUE };
+    private static final long WINDOW_MILLIS = 60 * 60 * 1000;
+    private static final int SLICES = 6;
+    private static final long SLICE_MILLIS = WINDOW_MILLIS / SLICES;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Per metric and slice
+    private final QuantileSketch[][] sketches = new QuantileSketch[METRICS.length][SLICES];
+    // The slice number, time divided by the slice duration, each slot holds, -1 if none
+    private final long[] slices = new long[SLICES];
+    // The slice of the newest sample, -1 before the first sample
+    private long latestSlice = -1;
+
+    public SystemQuantiles() {
+        for (int m = 0; m < METRICS.length; m++) {
+            for (int slot = 0; slot < SLICES; slot++) {
+                sketches[m][slot] = new QuantileSketch(METRICS[m].getHighestValue());
+            }
+        }
+        Arrays.fill(slices, -1);
+    }
+
+    /**
+     * Returns the metrics of which the percentiles are kept.
+     * The returned array must not be modified.
+     * @return the metrics
+     */
+    public static FleetMetric[] getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Adds a sample.
+     * Samples older than the hour before the newest sample are ignored.
+     * @param dp the sample
+     */
+    public void add(DataPoint dp) {
+        long slice = Math.floorDiv(dp.getDateTimeMillis(), SLICE_MILLIS);
+        int slot = Math.floorMod(slice, SLICES);
+        lock.lock();
+        try {
+            if (slice <= latestSlice - SLICES) {
+                return;
+            }
+            latestSlice = Math.max(latestSlice, slice);
+            if (slices[slot] != slice) {
+                slices[slot] = slice;
+                for (QuantileSketch[] metric : sketches) {
+                    metric[slot].clear();
+                }
+            }
+            for (int m = 0; m < METRICS.length; m++) {
+                sketches[m][slot].add(METRICS[m].get(dp));
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the slice of the newest sample. Changes when the samples move into a new slice,
+     * i.e. when the oldest slice is dropped from the percentiles.
+     * @return the slice number, -1 before the first sample
+     */
+    public long getLatestSlice() {
+        lock.lock();
+        try {
+            return latestSlice;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the values of a metric over the last hour to a sketch, e.g. to combine the percentiles of many systems.
+     * @param metric one of {@link #getMetrics()}
+     * @param target the sketch to add to, with the {@link FleetMetric#getHighestValue()} of the metric
+     * @throws IllegalArgumentException if the percentiles of the metric are not kept
+     */
+    public void mergeInto(FleetMetric metric, QuantileSketch target) {
+        int m = indexOf(metric);
+        lock.lock();
+        try {
+            for (int slot = 0; slot < SLICES; slot++) {
+                // Slices from before the last hour have not been reused yet if the system stopped sampling for a while
+                if (slices[slot] > latestSlice - SLICES) {
+                    target.merge(sketches[m][slot]);
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the values of a metric over the last hour in a new sketch.
+     * @param metric one of {@link #getMetrics()}
+     * @return the sketch
+     */
+    public QuantileSketch getSketch(FleetMetric metric) {
+        QuantileSketch sketch = new QuantileSketch(metric.getHighestValue());
+        mergeInto(metric, sketch);
+        return sketch;
+    }
+
+    private static int indexOf(FleetMetric metric) {
+        for (int m = 0; m < METRICS.length; m++) {
+            if (METRICS[m] == metric) {
+                return m;
+            }
+        }
+        throw new IllegalArgumentException("No percentiles kept for %s".formatted(metric));
+    }
+}
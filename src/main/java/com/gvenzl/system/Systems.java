@@ -23,12 +23,14 @@ package com.gvenzl.system;
 
 import com.gvenzl.system.ui.MonitoredSystem;
 
-import java.util.TreeMap;
-
+/**
+ * The systems shown in the window, added and removed on the FX thread,
+ * read by any thread, see {@link Registry}.
+ */
 public class Systems {
 
     private static Systems instance = null;
-    private final TreeMap<String, MonitoredSystem> monitoredSystemControllers = new TreeMap<>();
+    private final Registry<MonitoredSystem> monitoredSystemControllers = new Registry<>();
 
     private Systems() {
         // Prevent instantiation
@@ -45,7 +47,11 @@ public class Systems {
         monitoredSystemControllers.put(monitoredSystem.getName(), monitoredSystem);
     }
 
-    public TreeMap<String, MonitoredSystem> getSystems() {
+    public void removeSystem(String name) {
+        monitoredSystemControllers.remove(name);
+    }
+
+    public Registry<MonitoredSystem> getSystems() {
         return monitoredSystemControllers;
     }
 }
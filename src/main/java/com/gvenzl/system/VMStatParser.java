@@ -0,0 +1,181 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: VMStatParser.java
+ * Description: Column parser for `vmstat -tn` sample lines.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Parses a single `vmstat -tn` sample line into a {@link DataPoint} by walking the columns
+ * detected by {@link VMStat}, reading the digits straight into primitives.
+ * The parser produces the same values as the {@link VMStat#getPattern()} regular expression
+ * but does not create any intermediate Strings or Matchers.
+ * An instance is not thread-safe; use one parser per collector.
+ */
+public class VMStatParser {
+
+    // Number of numeric columns that are always present: r b swpd free buff cache si so bi bo in cs us sy id wa st
+    private static final int BASE_COLUMNS = 17;
+
+    private final int columns;
+    private final long[] values;
+
+    // Timestamps only change their minute once every 60 samples (at 1s), cache the epoch of the current minute.
+    private final Calendar calendar = new GregorianCalendar();
+    private int cachedYear = -1;
+    private int cachedMonth = -1;
+    private int cachedDay = -1;
+    private int cachedHour = -1;
+    private int cachedMinute = -1;
+    private long cachedMinuteMillis = 0;
+
+    public VMStatParser(VMStat vmStat) {
+        this.columns = vmStat.hasGu() ? BASE_COLUMNS + 1 : BASE_COLUMNS;
+        this.values = new long[columns];
+    }
+
+    /**
+     * Parses a line into a new {@link DataPoint}.
+     * If the line does not match the expected layout, an empty {@link DataPoint} is returned.
+     * @param line the sample line as printed by `vmstat -tn`
+     * @return the parsed {@link DataPoint}
+     */
+    public DataPoint parse(CharSequence line) {
+        DataPoint dp = new DataPoint();
+        parse(line, dp);
+        return dp;
+    }
+
+    /**
+     * Parses a line into the given {@link DataPoint}.
+     * The {@link DataPoint} is only modified if the entire line could be parsed.
+     * @param line the sample line as printed by `vmstat -tn`
+     * @param dp the {@link DataPoint} to fill
+     * @return true if the line was parsed, false if it did not match the expected layout
+     */
+    public boolean parse(CharSequence line, DataPoint dp) {
+        if (null == line) {
+            return false;
+        }
+
+        int len = line.length();
+        int pos = 0;
+
+        for (int col = 0; col < columns; col++) {
+            pos = skipSpaces(line, pos, len);
+            int start = pos;
+            long value = 0;
+            while (pos < len) {
+                int digit = line.charAt(pos) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+                pos++;
+            }
+            // Column must have at least one digit and be terminated by a space
+            if (pos == start || pos == len || line.charAt(pos) != ' ') {
+                return false;
+            }
+            values[col] = value;
+        }
+
+        // Timestamp: yyyy-MM-dd HH:mm:ss
+        pos = skipSpaces(line, pos, len);
+        if (len - pos != 19
+                || line.charAt(pos + 4) != '-' || line.charAt(pos + 7) != '-'
+                || line.charAt(pos + 10) != ' '
+                || line.charAt(pos + 13) != ':' || line.charAt(pos + 16) != ':') {
+            return false;
+        }
+
+        int year = digits(line, pos, 4);
+        int month = digits(line, pos + 5, 2);
+        int day = digits(line, pos + 8, 2);
+        int hour = digits(line, pos + 11, 2);
+        int minute = digits(line, pos + 14, 2);
+        int second = digits(line, pos + 17, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return false;
+        }
+
+        dp.setRunnableProcesses((int) values[0]);
+        dp.setBlockedProcesses((int) values[1]);
+        dp.setSwapMemoryKB(values[2]);
+        dp.setFreeMemoryKB(values[3]);
+        dp.setBufferMemoryKB(values[4]);
+        dp.setCacheMemoryKB(values[5]);
+        dp.setSwapFromDiskKB(values[6]);
+        dp.setSwapToDiskKB(values[7]);
+        dp.setReadDiskKB(values[8]);
+        dp.setWriteDiskKB(values[9]);
+        dp.setInterrupts(values[10]);
+        dp.setContextSwitches(values[11]);
+        dp.setUserCPUPercent((int) values[12]);
+        dp.setSystemCPUPercent((int) values[13]);
+        dp.setIdleCPUPercent((int) values[14]);
+        dp.setWaitCPUPercent((int) values[15]);
+        dp.setStealCPUPercent((int) values[16]);
+        dp.setDateTime(toEpochMillis(year, month, day, hour, minute) + second * 1000L);
+
+        return true;
+    }
+
+    private static int skipSpaces(CharSequence line, int pos, int len) {
+        while (pos < len && line.charAt(pos) == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int digits(CharSequence line, int pos, int count) {
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the epoch milliseconds of the given minute in the default time zone.
+     * Uses a lenient {@link GregorianCalendar}, the same as {@link java.text.SimpleDateFormat} does,
+     * so that the result is identical to {@link DataPoint#setDateTime(String)}.
+     */
+    private long toEpochMillis(int year, int month, int day, int hour, int minute) {
+        if (minute != cachedMinute || hour != cachedHour || day != cachedDay
+                || month != cachedMonth || year != cachedYear) {
+            calendar.clear();
+            calendar.set(year, month - 1, day, hour, minute, 0);
+            cachedMinuteMillis = calendar.getTimeInMillis();
+            cachedYear = year;
+            cachedMonth = month;
+            cachedDay = day;
+            cachedHour = hour;
+            cachedMinute = minute;
+        }
+        return cachedMinuteMillis;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: FleetPanel.java
+ * Description: Summary of all monitored systems.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system.ui;
+
+import com.gvenzl.system.FleetAggregate;
+import com.gvenzl.system.FleetMetric;
+import com.gvenzl.system.FleetSummary;
+import com.gvenzl.system.QuantileSketch;
+import com.gvenzl.system.SystemQuantiles;
+import com.gvenzl.system.Systems;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.HPos;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+
+import java.text.SimpleDateFormat;
+
+/**
+ * Shows the sum, mean, max and 95th percentile of the {@link FleetMetric}s across all systems,
+ * as published by the {@link FleetAggregate}, and the percentiles over the last hour across all systems,
+ * merged from their {@link SystemQuantiles}. Only updated when a new bucket has been published.
+ */
+public final class FleetPanel extends GridPane {
+
+    private static final String[] COLUMNS = { "Sum", "Mean", "Max", "p95", "p50 1h", "p95 1h", "p99 1h" };
+    private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+    private static final double KB_PER_GB = 1000 * 1000;
+
+    private final Label title = new Label("Fleet");
+    private final Label[][] cells = new Label[FleetMetric.all().length][COLUMNS.length];
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+    private FleetSummary shown = null;
+    // Reused for merging the sketches of all systems
+    private final QuantileSketch[] sketches = new QuantileSketch[SystemQuantiles.getMetrics().length];
+    private final long[] quantileValues = new long[QUANTILES.length];
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            // The aggregate only publishes on new samples otherwise, which stop when the systems become unreachable
+            FleetAggregate.getInstance().tick(System.currentTimeMillis());
+            update();
+        }
+    };
+
+    public FleetPanel() {
+        getStyleClass().add("fleet-panel");
+        setHgap(12);
+        setPadding(new Insets(2, 5, 2, 5));
+        getColumnConstraints().add(new ColumnConstraints(110));
+        add(title, 0, 0, COLUMNS.length + 1, 1);
+        for (int column = 0; column < COLUMNS.length; column++) {
+            ColumnConstraints constraints = new ColumnConstraints(60);
+            constraints.setHalignment(HPos.RIGHT);
+            getColumnConstraints().add(constraints);
+            add(new Label(COLUMNS[column]), column + 1, 1);
+        }
+        for (int m = 0; m < sketches.length; m++) {
+            sketches[m] = new QuantileSketch(SystemQuantiles.getMetrics()[m].getHighestValue());
+        }
+        for (FleetMetric metric : FleetMetric.all()) {
+            int row = metric.ordinal();
+            add(new Label(metric == FleetMetric.FREE_MEMORY_KB ? "Free memory GB" : metric.getLabel()), 0, row + 2);
+            for (int column = 0; column < COLUMNS.length; column++) {
+                cells[row][column] = new Label(column < 4 || isTracked(metric) ? "-" : "");
+                add(cells[row][column], column + 1, row + 2);
+            }
+        }
+    }
+
+    /**
+     * Starts following the {@link FleetAggregate}. Must be called on the FX thread.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stops following the {@link FleetAggregate}. Must be called on the FX thread.
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    private void update() {
+        FleetSummary summary = FleetAggregate.getInstance().getLatest();
+        if (null == summary || summary == shown) {
+            return;
+        }
+        shown = summary;
+
+        title.setText("Fleet: %d systems at %s".formatted(summary.getSystems(), timeFormat.format(summary.getStartMillis())));
+        for (FleetMetric metric : FleetMetric.all()) {
+            Label[] row = cells[metric.ordinal()];
+            row[0].setText(format(metric, summary.getSum(metric)));
+            row[1].setText(format(metric, summary.getMean(metric)));
+            row[2].setText(format(metric, summary.getMax(metric)));
+            row[3].setText(format(metric, summary.getP95(metric)));
+        }
+
+        FleetMetric[] tracked = SystemQuantiles.getMetrics();
+        for (int m = 0; m < tracked.length; m++) {
+            sketches[m].clear();
+            for (MonitoredSystem system : Systems.getInstance().getSystems()) {
+                system.getQuantiles().mergeInto(tracked[m], sketches[m]);
+            }
+            sketches[m].getQuantiles(QUANTILES, quantileValues);
+            Label[] row = cells[tracked[m].ordinal()];
+            for (int q = 0; q < QUANTILES.length; q++) {
+                row[4 + q].setText(format(tracked[m], quantileValues[q]));
+            }
+        }
+    }
+
+    private static boolean isTracked(FleetMetric metric) {
+        for (FleetMetric tracked : SystemQuantiles.getMetrics()) {
+            if (tracked == metric) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String format(FleetMetric metric, double value) {
+        if (metric == FleetMetric.FREE_MEMORY_KB) {
+            return "%.1f".formatted(value / KB_PER_GB);
+        }
+        return value >= 100 || value == Math.rint(value) ? String.valueOf(Math.round(value)) : "%.1f".formatted(value);
+    }
+}
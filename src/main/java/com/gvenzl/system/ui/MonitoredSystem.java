@@ -21,378 +21,419 @@
 
 package com.gvenzl.system.ui;
 
-import com.gvenzl.SysMonitor;
+import com.gvenzl.alert.AlertListener;
+import com.gvenzl.alert.AlertRule;
+import com.gvenzl.alert.AnomalyListener;
+import com.gvenzl.collect.Collector;
+import com.gvenzl.collect.CollectorEngine;
+import com.gvenzl.collect.SampleListener;
 import com.gvenzl.config.Config;
+import com.gvenzl.config.OSInfoCache;
 import com.gvenzl.connect.Connection;
-import com.gvenzl.log.SysLogger;
+import com.gvenzl.connect.SampleSource;
+import com.gvenzl.record.RecordFormat;
+import com.gvenzl.record.Recorder;
 import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.FleetMetric;
+import com.gvenzl.system.Metric;
+import com.gvenzl.system.OSInfo;
+import com.gvenzl.system.QuantileSketch;
+import com.gvenzl.system.SampleHistory;
+import com.gvenzl.system.SystemQuantiles;
+import com.gvenzl.system.Systems;
 import javafx.application.Platform;
-import javafx.event.ActionEvent;
-import javafx.fxml.FXML;
-import javafx.scene.Node;
-import javafx.scene.chart.StackedAreaChart;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
-import javafx.scene.layout.AnchorPane;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.text.Text;
+import javafx.scene.control.ListView;
 import javafx.stage.Stage;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.text.SimpleDateFormat;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-public class MonitoredSystem extends Thread {
-
-    private static final String COMMAND = "vmstat -tn "; // Space at the end is needed
-    private Connection conn;
-    private BufferedReader reader;
-    private BufferedWriter recordFileWriter;
-    private String vmstatHeaders = "";
-    private volatile boolean run = true;
-    private Integer dataPoints = 30;
-    private Integer connectTimeoutMs = 5000;
-    private Integer timeInterval = 1;
-    private int maxRetries = 0;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss");
-    private Pattern pattern;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class MonitoredSystem implements SampleListener, AlertListener, AnomalyListener {
+
+    private static final double UNREACHABLE_OPACITY = 0.5;
+    // The anomalous metrics shown on each chart
+    private static final int CPU_METRICS = bits(Metric.USER_CPU_PERCENT, Metric.SYSTEM_CPU_PERCENT,
+            Metric.IDLE_CPU_PERCENT, Metric.WAIT_CPU_PERCENT, Metric.STEAL_CPU_PERCENT);
+    private static final int MEMORY_METRICS = bits(Metric.FREE_MEMORY_KB, Metric.BUFFER_MEMORY_KB, Metric.CACHE_MEMORY_KB);
+    private static final int DISK_METRICS = bits(Metric.READ_DISK_KB, Metric.WRITE_DISK_KB);
+    private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+    // The percentiles cover the last hour, a single sample hardly changes them
+    private static final long QUANTILES_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final SampleSource source;
+    private Collector collector;
+    private Recorder recorder;
+    private volatile int dataPoints = 30;
+    // Read into by the FX thread
+    private final DataPoint chartPoint = new DataPoint();
+    // Read into by the collector thread
+    private final DataPoint samplePoint = new DataPoint();
+    private final SystemQuantiles quantiles = new SystemQuantiles();
+    // Only used by the FX thread
+    private final QuantileSketch[] quantileSketches = new QuantileSketch[SystemQuantiles.getMetrics().length];
+    private final long[] quantileValues = new long[QUANTILES.length];
+    // When and for which slice the percentiles were last shown, and whether the cell shows them at all
+    private long quantilesShownNanos = 0;
+    private long quantilesShownSlice = -1;
+    private boolean quantilesShown = false;
+    // The latest sample and whether the system is queued for the next pulse, see UIUpdateCoordinator
+    private volatile long latestSequence = -1;
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+    // Only accessed by the FX thread
+    private long appliedSequence = -1;
     private String name;
-
-    @FXML
-    public AnchorPane monSystemPane;
-    @FXML
-    public Rectangle runQueueRunnableBar;
-    @FXML
-    public Text runQueueRunnableValueField;
-    @FXML
-    public Rectangle runQueueBlockedBar;
-    @FXML
-    public Text runQueueBlockedValueField;
-    @FXML
-    public Text systemNameField;
-    @FXML
-    public Text osNameField;
-    @FXML
-    public Text systemCPUsField;
-    @FXML
-    public Text systemMemoryField;
-    @FXML
-    public Text osArchField;
-    @FXML
-    public Text osVersionField;
-    @FXML
-    public Rectangle swapToDiskBar;
-    @FXML
-    public Text swapToDiskField;
-    @FXML
-    public Rectangle swapFromDiskBar;
-    @FXML
-    public Text swapFromDiskField;
-
-    @FXML
-    public StackedAreaChart<String, Number> cpuChart;
-    private final XYChart.Series<String, Number> stealCPUSeries = new XYChart.Series<>();
-    private final XYChart.Series<String, Number> waitCPUSeries = new XYChart.Series<>();
-    private final XYChart.Series<String, Number> systemCPUSeries = new XYChart.Series<>();
-    private final XYChart.Series<String, Number> userCPUSeries = new XYChart.Series<>();
-
-    @FXML
-    public StackedAreaChart<String, Number> memoryChart;
-    private final XYChart.Series<String, Number> usedMemorySeries = new XYChart.Series<>();
-    private final XYChart.Series<String, Number> bufferMemorySeries = new XYChart.Series<>();
-    private final XYChart.Series<String, Number> cacheMemorySeries = new XYChart.Series<>();
-
-    @FXML
-    public StackedAreaChart<String, Number> diskChart;
-    private final XYChart.Series<String, Number> diskReadSeries = new XYChart.Series<>();
-    private final XYChart.Series<String, Number> diskWriteSeries = new XYChart.Series<>();
-
-    @Override
-    public void start() {
-        this.setDaemon(true);
-        super.start();
-    }
-
-    @FXML
-    public void initialize() {
-        monSystemPane.setVisible(false);
-        runQueueRunnableBar.setWidth(1);
-        runQueueBlockedBar.setWidth(1);
-        swapFromDiskBar.setWidth(1);
-        swapToDiskBar.setWidth(1);
-        initCPUChart();
-        initMemoryChart();
-        initDiskChart();
-    }
-
-    public void resetRefreshCycle(int interval) throws IOException {
-        if (this.timeInterval != interval) {
-            this.timeInterval = interval;
-            // Get new reader with updated TIME interval
-            if (null != reader) {
-                reader.close();
-                reader = null;
-            }
+    // The names of the raised alerts, only accessed by the FX thread
+    private final Set<String> alerts = new TreeSet<>();
+    // The state of the connection, only accessed by the FX thread
+    private OSInfo osInfo = null;
+    private String failure = null;
+    // The cell showing this system, null while the system is scrolled out of view, only accessed by the FX thread
+    private MonitoredSystemCell view = null;
+    // Steal, wait, system, user
+    private final double[] cpuValues = new double[4];
+    // Buffers, cache, used
+    private final double[] memoryValues = new double[3];
+    // Read, write
+    private final double[] diskValues = new double[2];
+
+    public MonitoredSystem(SampleSource source) {
+        this.source = source;
+        this.name = source.getName();
+        for (int m = 0; m < quantileSketches.length; m++) {
+            quantileSketches[m] = new QuantileSketch(SystemQuantiles.getMetrics()[m].getHighestValue());
         }
     }
 
+    /**
+     * Starts collecting the samples of the system.
+     * @throws IOException if the configuration cannot be read
+     */
+    public void start() throws IOException {
+        setDataPoints(Config.getInstance().getDataPoints());
+        collector = CollectorEngine.getInstance().start(source, this);
+    }
+
     public void setDataPoints(int dataPoints) {
         if (this.dataPoints != dataPoints) {
             this.dataPoints = dataPoints;
+            if (null != view) {
+                view.setCapacity(dataPoints + 1);
+            }
+        }
+        // The history has to hold at least all data points shown
+        if (null != collector && collector.getHistory().getCapacity() < dataPoints + 1) {
+            collector.getHistory().resize(dataPoints + 1);
         }
     }
 
     /**
-     * Sets the connect timeout in milliseconds.
-     * @param timeoutMs connect timeout defined in milliseconds.
+     * Returns the percentiles of this system over the last hour.
+     * @return the {@link SystemQuantiles}
      */
-    public void setConnectTimeoutMilliSeconds(int timeoutMs) {
-        if (this.connectTimeoutMs != timeoutMs) {
-            this.connectTimeoutMs = timeoutMs;
-        }
+    public SystemQuantiles getQuantiles() {
+        return quantiles;
     }
 
     /**
-     * Sets the connect timeout in seconds.
-     * @param timeoutSec connect timeout defined in seconds.
+     * Returns the sample history of this system.
+     * @return the {@link SampleHistory}
      */
-    public void setConnectTimeoutSeconds(int timeoutSec) {
-        int timeoutMs = timeoutSec * 1000;
-        if (this.connectTimeoutMs != timeoutMs) {
-            this.connectTimeoutMs = timeoutMs;
-        }
+    public SampleHistory getHistory() {
+        return collector.getHistory();
     }
 
-    public void setReconnectRetries(int retries) {
-        this.maxRetries = retries;
+    public String getName() {
+        return name;
     }
 
-    private void initCPUChart() {
-        cpuChart.getData().addAll(stealCPUSeries, waitCPUSeries, systemCPUSeries, userCPUSeries);
-        stealCPUSeries.setName("Steal");
-        waitCPUSeries.setName("Wait");
-        systemCPUSeries.setName("System");
-        userCPUSeries.setName("User");
-        stealCPUSeries.getNode().setId("steal-cpu-series");
-        waitCPUSeries.getNode().setId("wait-cpu-series");
-        systemCPUSeries.getNode().setId("system-cpu-series");
-        userCPUSeries.getNode().setId("user-cpu-series");
+    public SampleSource getSource() {
+        return source;
     }
 
-    private void initMemoryChart() {
-        memoryChart.getData().addAll(bufferMemorySeries, cacheMemorySeries, usedMemorySeries);
-        bufferMemorySeries.setName("Buffers");
-        cacheMemorySeries.setName("Cache");
-        usedMemorySeries.setName("Used");
-        bufferMemorySeries.getNode().setId("buffer-memory-series");
-        cacheMemorySeries.getNode().setId("cache-memory-series");
-        usedMemorySeries.getNode().setId("used-memory-series");
+    @Override
+    public void connected(Collector collector, OSInfo osInfo) {
+        Platform.runLater(() -> {
+            this.osInfo = osInfo;
+            this.failure = null;
+            if (null != view) {
+                showStatus(view);
+            }
+        });
     }
 
-    private void initDiskChart() {
-        diskChart.getData().addAll(diskReadSeries, diskWriteSeries);
-        diskReadSeries.setName("Read");
-        diskWriteSeries.setName("Write");
-        diskReadSeries.getNode().setId("disk-read-series");
-        diskWriteSeries.getNode().setId("disk-write-series");
+    @Override
+    public void sample(Collector collector, long sequence, String line) {
+        if (collector.getHistory().get(sequence, samplePoint)) {
+            quantiles.add(samplePoint);
+        }
+        latestSequence = sequence;
+        if (updateScheduled.compareAndSet(false, true)) {
+            UIUpdateCoordinator.getInstance().schedule(this);
+        }
     }
 
-    public void setConnection(Connection conn) {
-        this.conn = conn;
-        this.name = conn.getName();
+    @Override
+    public void failed(Collector collector, String reason) {
+        // The collector keeps trying in the background, show the state instead of interrupting the user
+        Platform.runLater(() -> {
+            this.failure = reason;
+            if (null != view) {
+                showStatus(view);
+            }
+        });
     }
 
-    @Override
-    public void run() {
+    private void showStatus(MonitoredSystemCell cell) {
+        if (null != osInfo) {
+            cell.monSystemPane.setOpacity(1);
+            cell.systemNameField.setText(osInfo.getHostName());
+            cell.systemCPUsField.setText(String.valueOf(osInfo.getCpus()));
+            cell.systemMemoryField.setText(Recorder.getMemoryGB(osInfo));
 
-        try {
-            Config config = Config.getInstance();
-            setDataPoints(config.getDataPoints());
-            resetRefreshCycle(config.getRefreshCycle());
-            setConnectTimeoutMilliSeconds(config.getConnectTimeoutMilliSeconds());
-            setReconnectRetries(config.getReconnectRetries());
+            cell.osNameField.setText(osInfo.getOs());
+            cell.osVersionField.setText(osInfo.getKernelVersion());
+            cell.osArchField.setText(osInfo.getArchitecture());
         }
-        catch (IOException e) {
-            // Ignore, if we cannot get it then let's just have no retries, aka 0 remains per initialization
+        if (null != failure) {
+            cell.systemNameField.setText("%s (unreachable, retrying: %s)".formatted(source.getHostName(), failure));
+            cell.monSystemPane.setOpacity(UNREACHABLE_OPACITY);
         }
 
-        int retries = 0;
+        // Fields have all been initialized, make the pane visible
+        if (!cell.monSystemPane.isVisible() && (null != osInfo || null != failure)) {
+            cell.monSystemPane.setVisible(true);
+        }
+    }
 
-        // if for whatever reason we get terminated, except when demanded, we reestablish the connection to N retries
-        while (run && retries < maxRetries) {
-            if (retries > 0) {
-                SysLogger.getInstance().log(this.name + ": Connection lost, reconnecting...");
+    @Override
+    public void raised(Collector collector, AlertRule rule, long value) {
+        Platform.runLater(() -> {
+            alerts.add(rule.getName());
+            if (null != view) {
+                showAlerts(view);
             }
+        });
+    }
 
-            try {
-                conn.connect(this.connectTimeoutMs);
-
-                pattern = Pattern.compile(conn.getOsInfo().getVMStatPattern());
-
-                systemNameField.setText(conn.getOsInfo().getHostName());
-                this.setName("MonitoredSystem: %s".formatted(conn.getName()));
-                systemCPUsField.setText(String.valueOf(conn.getOsInfo().getCpus()));
-                systemMemoryField.setText(String.valueOf(
-                        (float) Math.round(
-                                (conn.getOsInfo().getMemoryKB() / 1000f / 1000f)
-                            // Rounds to 3 digits automagically
-                            * 1000f) / 1000f)
-                );
+    @Override
+    public void cleared(Collector collector, AlertRule rule, long value) {
+        Platform.runLater(() -> {
+            alerts.remove(rule.getName());
+            if (null != view) {
+                showAlerts(view);
+            }
+        });
+    }
 
-                osNameField.setText(conn.getOsInfo().getOs());
-                osVersionField.setText(conn.getOsInfo().getKernelVersion());
-                osArchField.setText(conn.getOsInfo().getArchitecture());
+    private void showAlerts(MonitoredSystemCell cell) {
+        cell.alertField.setText(alerts.isEmpty() ? "" : "Alert: " + String.join(", ", alerts));
+    }
 
-                // Fields have all been initialized, make the pane visible
-                if (!monSystemPane.isVisible()) {
-                    monSystemPane.setVisible(true);
-                }
+    @Override
+    public void anomaly(Collector collector, long sequence, int metrics) {
+        // Kept with the sample, so that they are marked again for as long as the sample is shown
+        collector.getHistory().setAnomalies(sequence, metrics);
+    }
 
-                try {
-                    while (run) {
-
-                        // If reader is null or has been closed, get a new reader
-                        if (null == reader) {
-                            getNewReader();
-                        }
-
-                        String line;
-                        // Reader might have been closed due to SSH disconnect, etc.
-                        try {
-                            line = reader.readLine();
-                        }
-                        catch (IOException e) {
-                            // reader might have been closed, try getting a new reader
-                            getNewReader();
-                            // Will trigger another IO exception, if something is wrong completely wrong, breaking the loop
-                            line = reader.readLine();
-                        }
-
-                        updateCharts(line);
-
-                        try {
-                            recordLine(line);
-                        }
-                        catch (IOException e) {
-                            SysLogger.getInstance().error(this.name + ": Cannot record line due to: %s".formatted(e.getMessage()));
-                        }
-                    }
-                    SysLogger.getInstance().log(this.name + ": Stop request, stopping thread.");
-                    reader.close();
-                }
-                finally {
-                    conn.close();
-                }
-            }
-            // Cannot communicate with the server, abort.
-            catch (IOException e) {
-                SysLogger.getInstance().error(this.name + ": " + e.getMessage());
-            }
-            retries++;
+    private static int bits(Metric... metrics) {
+        int bits = 0;
+        for (Metric metric : metrics) {
+            bits |= 1 << metric.ordinal();
         }
+        return bits;
+    }
 
-        if (retries == maxRetries) {
-            Platform.runLater(() -> new Alert(Alert.AlertType.WARNING,
-                    "Connection establishment to '%s' failed and exceeded maximum number of retires.".formatted(name),
-                    ButtonType.OK).show());
+    /**
+     * Tells the collector to close the connection and terminate.
+     */
+    public void terminate() {
+        CollectorEngine.getInstance().stop(name);
+        if (null != recorder) {
+            recorder.close();
+            recorder = null;
         }
     }
 
-    private void getNewReader() throws IOException {
-        BufferedReader newReader = conn.executeCommandAndRead(COMMAND + this.timeInterval);
-        // Preserve first two lines for recording file.
-        vmstatHeaders = newReader.readLine() + "\n" + newReader.readLine();
-        reader = newReader;
+    /**
+     * Shows this system in a cell of the system list, drawing the samples that are still in its history.
+     * Called on the FX thread when the system scrolls into view.
+     * @param cell the cell to show this system in
+     */
+    void show(MonitoredSystemCell cell) {
+        view = cell;
+        cell.reset();
+        cell.setCapacity(dataPoints + 1);
+        showStatus(cell);
+        showAlerts(cell);
+        quantilesShown = false;
+
+        // The samples received while hidden are in the history, it holds at least all data points shown
+        long latest = latestSequence;
+        draw(cell, Math.max(0, latest - dataPoints), latest);
+        appliedSequence = latest;
     }
 
     /**
-     * Tells the thread to close the connection and terminate.
+     * Stops showing this system in a cell of the system list. Called on the FX thread.
+     * @param cell the cell that showed this system
      */
-    public void terminate() {
-        run = false;
-        if (null != recordFileWriter) {
-            try {
-                recordFileWriter.flush();
-                recordFileWriter.close();
-            }
-            catch (IOException e) {
-                // Ignore exceptions, we are terminating
-            }
-            recordFileWriter = null;
+    void hide(MonitoredSystemCell cell) {
+        // The system may already be shown by another cell
+        if (view == cell) {
+            view = null;
         }
     }
 
     /**
-     * Updates the charts.
-     * @param values string of the output from the remote server
+     * Draws all samples received since the last update. Called once per pulse on the FX thread.
      */
-    private void updateCharts(String values) {
-        DataPoint dp = parseLine(values);
-        String timeSlice = dateFormat.format(dp.getDateTime());
-        updateRunQueues(dp);
-        updateSwap(dp);
-        updateCPUChart(timeSlice, dp);
-        updateMemoryChart(timeSlice, dp);
-        updateDiskChart(timeSlice, dp);
+    void applyUpdate() {
+        // Clear the flag first, so that a sample arriving from here on queues the system again
+        updateScheduled.set(false);
+        long latest = latestSequence;
+        if (latest <= appliedSequence) {
+            return;
+        }
+        // Hidden systems only keep collecting into their history, they are drawn from it once shown again
+        if (null == view) {
+            appliedSequence = latest;
+            return;
+        }
+
+        UIUpdateCoordinator coordinator = UIUpdateCoordinator.getInstance();
+        // Samples older than the data points shown would be removed from the charts right away
+        long from = Math.max(appliedSequence + 1, latest - dataPoints);
+        coordinator.dropped(from - appliedSequence - 1);
+        coordinator.coalesced(latest - from);
+
+        draw(view, from, latest);
+        appliedSequence = latest;
     }
 
-    private float getPercent(int total, int portion) {
-        return (float) portion / (float) total * 100f;
+    private void draw(MonitoredSystemCell cell, long from, long latest) {
+        SampleHistory history = collector.getHistory();
+        boolean drawn = false;
+        for (long sequence = from; sequence <= latest; sequence++) {
+            // The sample may already be evicted if the FX thread fell far behind
+            if (history.get(sequence, chartPoint)) {
+                updateCPUChart(cell, chartPoint);
+                updateMemoryChart(cell, chartPoint);
+                updateDiskChart(cell, chartPoint);
+                markAnomalies(cell, history.getAnomalies(sequence), chartPoint.getDateTimeMillis());
+                drawn = true;
+            }
+            else {
+                UIUpdateCoordinator.getInstance().dropped(1);
+            }
+        }
+        // The bars only show the latest sample
+        if (drawn) {
+            updateRunQueues(cell, chartPoint);
+            updateSwap(cell, chartPoint);
+            updateQuantiles(cell);
+            cell.cpuChart.redraw();
+            cell.memoryChart.redraw();
+            cell.diskChart.redraw();
+        }
     }
 
-    private void updateRunQueues(DataPoint dp) {
-        Platform.runLater(() -> {
-            Integer runQueueRunnableValue = dp.getRunnableProcesses();
-            runQueueRunnableBar.setWidth(getBarScale(runQueueRunnableValue, 150));
-            runQueueRunnableValueField.setText(runQueueRunnableValue > 0 ? runQueueRunnableValue.toString() : "");
+    private void markAnomalies(MonitoredSystemCell cell, int metrics, long timeMillis) {
+        if ((metrics & CPU_METRICS) != 0) {
+            cell.cpuChart.mark(timeMillis);
+        }
+        if ((metrics & MEMORY_METRICS) != 0) {
+            cell.memoryChart.mark(timeMillis);
+        }
+        if ((metrics & DISK_METRICS) != 0) {
+            cell.diskChart.mark(timeMillis);
+        }
+    }
 
-            Integer runQueueBlockedValue = dp.getBlockedProcesses();
-            runQueueBlockedBar.setWidth(getBarScale(runQueueBlockedValue, 150));
-            runQueueBlockedValueField.setText(runQueueBlockedValue > 0 ? runQueueBlockedValue.toString() : "");
-        });
+    private static float getPercent(int total, int portion) {
+        return (float) portion / (float) total * 100f;
     }
 
-    private void updateSwap(DataPoint dp) {
-        Platform.runLater(() -> {
-            int swapToDiskMB = Math.round((float) dp.getSwapToDiskKB() / 1000f);
-            swapToDiskBar.setWidth(getBarScale(swapToDiskMB, 150));
-            swapToDiskField.setText(swapToDiskMB > 0 ? String.valueOf(swapToDiskMB) : "");
+    /**
+     * Shows the percentiles when the slice of the samples changed, a new cell shows the system,
+     * or at most every {@link #QUANTILES_REFRESH_NANOS} otherwise.
+     */
+    private void updateQuantiles(MonitoredSystemCell cell) {
+        long now = System.nanoTime();
+        long slice = quantiles.getLatestSlice();
+        if (quantilesShown && slice == quantilesShownSlice && now - quantilesShownNanos < QUANTILES_REFRESH_NANOS) {
+            return;
+        }
+        quantilesShown = true;
+        quantilesShownSlice = slice;
+        quantilesShownNanos = now;
+
+        StringBuilder text = new StringBuilder("Last hour p50 / p95 / p99");
+        for (int m = 0; m < quantileSketches.length; m++) {
+            FleetMetric metric = SystemQuantiles.getMetrics()[m];
+            quantileSketches[m].clear();
+            quantiles.mergeInto(metric, quantileSketches[m]);
+            quantileSketches[m].getQuantiles(QUANTILES, quantileValues);
+            text.append("\n%s: %d / %d / %d".formatted(metric.getLabel(), quantileValues[0], quantileValues[1], quantileValues[2]));
+        }
+        cell.quantilesField.setText(text.toString());
+    }
 
-            int swapFromDiskMB = Math.round((float) dp.getSwapFromDiskKB() / 1000f);
-            swapFromDiskBar.setWidth(getBarScale(swapFromDiskMB, 150));
-            swapFromDiskField.setText(swapFromDiskMB > 0 ? String.valueOf(swapFromDiskMB) : "");
+    private void updateRunQueues(MonitoredSystemCell cell, DataPoint dp) {
+        Integer runQueueRunnableValue = dp.getRunnableProcesses();
+        cell.runQueueRunnableBar.setWidth(getBarScale(runQueueRunnableValue, 150));
+        cell.runQueueRunnableValueField.setText(runQueueRunnableValue > 0 ? runQueueRunnableValue.toString() : "");
 
-        });
+        Integer runQueueBlockedValue = dp.getBlockedProcesses();
+        cell.runQueueBlockedBar.setWidth(getBarScale(runQueueBlockedValue, 150));
+        cell.runQueueBlockedValueField.setText(runQueueBlockedValue > 0 ? runQueueBlockedValue.toString() : "");
     }
 
-    private void updateCPUChart(String timeSlice, DataPoint dp) {
+    private void updateSwap(MonitoredSystemCell cell, DataPoint dp) {
+        int swapToDiskMB = Math.round((float) dp.getSwapToDiskKB() / 1000f);
+        cell.swapToDiskBar.setWidth(getBarScale(swapToDiskMB, 150));
+        cell.swapToDiskField.setText(swapToDiskMB > 0 ? String.valueOf(swapToDiskMB) : "");
 
-        Platform.runLater(() -> {
+        int swapFromDiskMB = Math.round((float) dp.getSwapFromDiskKB() / 1000f);
+        cell.swapFromDiskBar.setWidth(getBarScale(swapFromDiskMB, 150));
+        cell.swapFromDiskField.setText(swapFromDiskMB > 0 ? String.valueOf(swapFromDiskMB) : "");
+    }
 
-            userCPUSeries.getData().add(new XYChart.Data<>(timeSlice, dp.getUserCPUPercent()));
-            systemCPUSeries.getData().add(new XYChart.Data<>(timeSlice, dp.getSystemCPUPercent()));
-            waitCPUSeries.getData().add(new XYChart.Data<>(timeSlice, dp.getWaitCPUPercent()));
-            stealCPUSeries.getData().add(new XYChart.Data<>(timeSlice, dp.getStealCPUPercent()));
-
-            // Data points can be dynamically adjusted, make sure they get updated if user reduces them
-            while (cpuChart.getData().getFirst().getData().size() > dataPoints+1) {
-                userCPUSeries.getData().removeFirst();
-                systemCPUSeries.getData().removeFirst();
-                waitCPUSeries.getData().removeFirst();
-                stealCPUSeries.getData().removeFirst();
-            }
-        });
+    private void updateCPUChart(MonitoredSystemCell cell, DataPoint dp) {
+        cpuChartData(dp, cpuValues);
+        cell.cpuChart.add(dp.getDateTimeMillis(), cpuValues);
+    }
+
+    /**
+     * Computes the CPU chart values.
+     * @param dp the {@link DataPoint}
+     * @param values receives the steal, wait, system and user percentages
+     */
+    static void cpuChartData(DataPoint dp, double[] values) {
+        values[0] = dp.getStealCPUPercent();
+        values[1] = dp.getWaitCPUPercent();
+        values[2] = dp.getSystemCPUPercent();
+        values[3] = dp.getUserCPUPercent();
+    }
+
+    private void updateMemoryChart(MonitoredSystemCell cell, DataPoint dp) {
+        memoryChartData(dp, source.getOsInfo().getMemoryKB(), memoryValues);
+        cell.memoryChart.add(dp.getDateTimeMillis(), memoryValues);
     }
 
-    private void updateMemoryChart(String timeSlice, DataPoint dp) {
+    /**
+     * Computes the memory chart values.
+     * @param dp the {@link DataPoint}
+     * @param totalMemoryKB the total memory of the system
+     * @param values receives the buffer, cache and used percentages
+     */
+    static void memoryChartData(DataPoint dp, long totalMemoryKB, double[] values) {
 
-        int totalMemoryMB = Math.round((float) conn.getOsInfo().getMemoryKB() / 1000f);
+        int totalMemoryMB = Math.round((float) totalMemoryKB / 1000f);
         int bufferMemoryMB = Math.round((float) dp.getBufferMemoryKB() / 1000f);
         int cacheMemoryMB = Math.round((float) dp.getCacheMemoryKB() / 1000f);
         int freeMemoryMB = Math.round((float) dp.getFreeMemoryKB() / 1000f);
@@ -401,39 +442,24 @@ public class MonitoredSystem extends Thread {
         // Used = total - (buffer+cache+free)
         int usedMemoryMB = totalMemoryMB - (bufferMemoryMB+cacheMemoryMB+freeMemoryMB);
 
-        float usedMemoryPercent = getPercent(totalMemoryMB, usedMemoryMB);
-        float bufferMemoryPercent = getPercent(totalMemoryMB, bufferMemoryMB);
-        float cacheMemoryPercent = getPercent(totalMemoryMB, cacheMemoryMB);
-
-        Platform.runLater(() -> {
-            usedMemorySeries.getData().add(new XYChart.Data<>(timeSlice, usedMemoryPercent));
-            bufferMemorySeries.getData().add(new XYChart.Data<>(timeSlice, bufferMemoryPercent));
-            cacheMemorySeries.getData().add(new XYChart.Data<>(timeSlice, cacheMemoryPercent));
-
-            // Data points can be dynamically adjusted, make sure they get updated if user reduces them
-            while (memoryChart.getData().getFirst().getData().size() > dataPoints+1) {
-                usedMemorySeries.getData().removeFirst();
-                bufferMemorySeries.getData().removeFirst();
-                cacheMemorySeries.getData().removeFirst();
-            }
-        });
+        values[0] = getPercent(totalMemoryMB, bufferMemoryMB);
+        values[1] = getPercent(totalMemoryMB, cacheMemoryMB);
+        values[2] = getPercent(totalMemoryMB, usedMemoryMB);
     }
 
-    private void updateDiskChart(String timeSlice, DataPoint dp) {
-
-        int readDiskMB = Math.round((float) dp.getReadDiskKB() / 1000f);
-        int writeDiskMB = Math.round((float) dp.getWriteDiskKB() / 1000f);
-
-        Platform.runLater(() -> {
-            diskReadSeries.getData().add(new XYChart.Data<>(timeSlice, readDiskMB));
-            diskWriteSeries.getData().add(new XYChart.Data<>(timeSlice, writeDiskMB));
-
-            while (diskChart.getData().getFirst().getData().size() > dataPoints+1) {
-                diskReadSeries.getData().removeFirst();
-                diskWriteSeries.getData().removeFirst();
-            }
-        });
+    private void updateDiskChart(MonitoredSystemCell cell, DataPoint dp) {
+        diskChartData(dp, diskValues);
+        cell.diskChart.add(dp.getDateTimeMillis(), diskValues);
+    }
 
+    /**
+     * Computes the disk chart values.
+     * @param dp the {@link DataPoint}
+     * @param values receives the read and write MB
+     */
+    static void diskChartData(DataPoint dp, double[] values) {
+        values[0] = Math.round((float) dp.getReadDiskKB() / 1000f);
+        values[1] = Math.round((float) dp.getWriteDiskKB() / 1000f);
     }
 
     private int getBarScale(int value, int max) {
@@ -451,128 +477,60 @@ public class MonitoredSystem extends Thread {
         return pixels;
     }
 
-    private DataPoint parseLine(String line) {
-        if (conn.getOsInfo().getOs().equalsIgnoreCase("Linux")) {
-            return parseLineLinux(line);
-        }
-        else {
-            return new DataPoint();
-        }
-    }
-
-    private DataPoint parseLineLinux(String line) {
-
-        DataPoint dp = new DataPoint();
-
-        Matcher matcher = pattern.matcher(line);
-
-        if (matcher.matches()) {
-            dp.setRunnableProcesses(Integer.valueOf(matcher.group("runQueue")));
-            dp.setBlockedProcesses(Integer.valueOf(matcher.group("blockedQueue")));
-            dp.setSwapMemoryKB(Long.valueOf(matcher.group("swapMemory")));
-            dp.setFreeMemoryKB(Long.valueOf(matcher.group("freeMemory")));
-            dp.setBufferMemoryKB(Long.valueOf(matcher.group("buffersMemory")));
-            dp.setCacheMemoryKB(Long.valueOf(matcher.group("cacheMemory")));
-            dp.setSwapFromDiskKB(Long.valueOf(matcher.group("swappedFromDisk")));
-            dp.setSwapToDiskKB(Long.valueOf(matcher.group("swappedToDisk")));
-            dp.setReadDiskKB(Long.valueOf(matcher.group("kbFromDisk")));
-            dp.setWriteDiskKB(Long.valueOf(matcher.group("kbToDisk")));
-            dp.setInterrupts(Long.valueOf(matcher.group("interruptsPerSec")));
-            dp.setContextSwitches(Long.valueOf(matcher.group("contextSwitchesPerSec")));
-            dp.setUserCPUPercent(Integer.valueOf(matcher.group("userCPU")));
-            dp.setSystemCPUPercent(Integer.valueOf(matcher.group("systemCPU")));
-            dp.setIdleCPUPercent(Integer.valueOf(matcher.group("idleCPU")));
-            dp.setWaitCPUPercent(Integer.valueOf(matcher.group("waitCPU")));
-            dp.setStealCPUPercent(Integer.valueOf(matcher.group("stealCPU")));
-            dp.setDateTime(matcher.group("tms"));
-        }
-
-        return dp;
-    }
-
-    private String getRecordPath() throws IOException {
-        String path = Config.getInstance().getRecordDirPath();
-        if (path.isEmpty()) {
-            path = System.getProperty("user.home");
-        }
-        return path;
-    }
-
     public void startRecording() throws IOException {
 
-        startRecording(getRecordPath(), "");
+        startRecording(Recorder.getRecordPath(), "", Recorder.getRecordFormat());
     }
 
-    public void startRecording(String path, String prefix) throws IOException {
-
-        String fileName = conn.getName() + ".log";
-
-        String fullFilePath = path + File.separator;
-        if (prefix.trim().isEmpty()) {
-            fullFilePath = fullFilePath + fileName;
-        }
-        else {
-            fullFilePath = fullFilePath + prefix + fileName;
-        }
-
-        boolean newRecording = !Files.exists(Path.of(fullFilePath));
-
-        BufferedWriter writer = new BufferedWriter(new FileWriter(fullFilePath, true));
-
-        if (newRecording) {
-            writer.write("Name: %s    System: %s    CPUs: %s    Memory(GBs): %s\nOS: %s    Architecture: %s    OSVersion: %s\n"
-                    .formatted(
-                            this.conn.getName(),
-                            this.systemNameField.getText(),
-                            this.systemCPUsField.getText(),
-                            this.systemMemoryField.getText(),
-                            this.osNameField.getText(),
-                            this.osArchField.getText(),
-                            this.osVersionField.getText()
-                    )
-            );
-            writer.write(vmstatHeaders);
-            writer.write("\n");
-        }
-        // Triggers recording once not null
-        recordFileWriter = writer;
+    public void startRecording(String path, String prefix, RecordFormat format) throws IOException {
+        startRecording(Recorder.open(Recorder.getRecordFile(path, prefix, source.getName(), format), format));
     }
 
-    public void stopRecording() throws IOException {
-        recordFileWriter.close();
-        recordFileWriter = null;
+    /**
+     * Starts recording the samples of this system with the given {@link Recorder}.
+     * @param recorder the recorder to record the samples with
+     */
+    void startRecording(Recorder recorder) {
+        this.recorder = recorder;
+        collector.addListener(recorder);
     }
 
-    private void recordLine(String line) throws IOException {
-        if (null != recordFileWriter) {
-            recordFileWriter.write(line);
-            recordFileWriter.write("\n");
+    public void stopRecording() {
+        if (null != recorder) {
+            collector.removeListener(recorder);
+            recorder.close();
+            recorder = null;
         }
     }
 
-    public void removeSystem(ActionEvent actionEvent) {
+    /**
+     * Removes this system from the configuration and the window and terminates its collector.
+     */
+    @SuppressWarnings("unchecked")
+    public void removeSystem() {
 
         // Remove system from the configuration
         try {
             Config.getInstance().removeSystem(name);
             Config.getInstance().store();
+            // Other systems may monitor the same host, e.g. as another user, and still use its cache entry
+            if (source instanceof Connection conn) {
+                String identity = conn.getHostIdentity();
+                if (Config.getInstance().getSystems().values().stream().noneMatch(other -> other.getHostIdentity().equals(identity))) {
+                    OSInfoCache.getInstance().remove(identity);
+                }
+            }
         }
-        catch (IOException | ParserConfigurationException | TransformerException e) {
+        catch (IOException e) {
             new Alert(Alert.AlertType.ERROR, String.format("Cannot remove system from configuration: %s", e.getMessage()), ButtonType.OK).show();
             return;
         }
 
-        // Remove system from the window
-        AnchorPane mainPane = (AnchorPane) Stage.getWindows().getFirst().getScene().lookup("#mainPane");
-        Node monitoredSystem = Stage.getWindows().getFirst().getScene().lookup("#"+ name);
-        mainPane.getChildren().remove(monitoredSystem);
+        Systems.getInstance().removeSystem(name);
 
-        // Redraw the windows
-        int nodeIdx = 0;
-        for (Node node : mainPane.getChildren()) {
-            AnchorPane.setTopAnchor(node, nodeIdx * SysMonitor.MONITORED_SYSTEM_HEIGHT);
-            nodeIdx++;
-        }
+        // Remove system from the window, the list lays out the remaining systems
+        ListView<MonitoredSystem> systemList = (ListView<MonitoredSystem>) Stage.getWindows().getFirst().getScene().lookup("#systemList");
+        systemList.getItems().remove(this);
 
         // Terminate yourself (close the connection, etc.)
         this.terminate();
@@ -0,0 +1,178 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: MonitoredSystemCell.java
+ * Description: A cell of the system list, showing the charts of a monitored system.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system.ui;
+
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+/**
+ * A cell of the system list, showing the {@link MonitoredSystem} scrolled into it.
+ * <p>
+ * The list only creates cells for the visible systems and reuses them while scrolling,
+ * so the charts of MonitoredSystem.fxml are loaded once per cell, not once per system.
+ * Cells that scroll out of view are hidden by the list but keep their item, hence the cell
+ * only shows its system while it is visible.
+ */
+public final class MonitoredSystemCell extends ListCell<MonitoredSystem> {
+
+    // The system shown, null while the cell is empty or hidden
+    private MonitoredSystem system = null;
+
+    @FXML
+    public AnchorPane monSystemPane;
+    @FXML
+    public Text alertField;
+    @FXML
+    public Text quantilesField;
+    @FXML
+    public Rectangle runQueueRunnableBar;
+    @FXML
+    public Text runQueueRunnableValueField;
+    @FXML
+    public Rectangle runQueueBlockedBar;
+    @FXML
+    public Text runQueueBlockedValueField;
+    @FXML
+    public Text systemNameField;
+    @FXML
+    public Text osNameField;
+    @FXML
+    public Text systemCPUsField;
+    @FXML
+    public Text systemMemoryField;
+    @FXML
+    public Text osArchField;
+    @FXML
+    public Text osVersionField;
+    @FXML
+    public Rectangle swapToDiskBar;
+    @FXML
+    public Text swapToDiskField;
+    @FXML
+    public Rectangle swapFromDiskBar;
+    @FXML
+    public Text swapFromDiskField;
+    @FXML
+    public TimeSeriesChart cpuChart;
+    @FXML
+    public TimeSeriesChart memoryChart;
+    @FXML
+    public TimeSeriesChart diskChart;
+
+    public MonitoredSystemCell() {
+        FXMLLoader loader = new FXMLLoader(Objects.requireNonNull(
+                getClass().getClassLoader().getResource("MonitoredSystem.fxml")));
+        loader.setController(this);
+        try {
+            loader.load();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot load MonitoredSystem.fxml", e);
+        }
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+        visibleProperty().addListener((observable, wasVisible, isVisible) -> show());
+    }
+
+    @FXML
+    public void initialize() {
+        cpuChart.setSeries(new String[] { "Steal", "Wait", "System", "User" },
+                new String[] { "steal-cpu-series", "wait-cpu-series", "system-cpu-series", "user-cpu-series" }, 1);
+        memoryChart.setSeries(new String[] { "Buffers", "Cache", "Used" },
+                new String[] { "buffer-memory-series", "cache-memory-series", "used-memory-series" }, 1);
+        diskChart.setSeries(new String[] { "Read", "Write" },
+                new String[] { "disk-read-series", "disk-write-series" }, 1);
+        reset();
+    }
+
+    @Override
+    protected void updateItem(MonitoredSystem item, boolean empty) {
+        super.updateItem(item, empty);
+        show();
+    }
+
+    /**
+     * Shows the item of the cell if the cell is visible, handing the charts over from the system shown before.
+     */
+    private void show() {
+        MonitoredSystem shown = isVisible() && !isEmpty() ? getItem() : null;
+        if (shown == system) {
+            return;
+        }
+        if (null != system) {
+            system.hide(this);
+        }
+        system = shown;
+        if (null != system) {
+            system.show(this);
+            setGraphic(monSystemPane);
+        }
+        else {
+            setGraphic(null);
+        }
+    }
+
+    /**
+     * Removes all samples and values of the system shown before.
+     */
+    void reset() {
+        monSystemPane.setVisible(false);
+        monSystemPane.setOpacity(1);
+        for (Text field : new Text[] { alertField, quantilesField, runQueueRunnableValueField, runQueueBlockedValueField,
+                systemNameField, osNameField, systemCPUsField, systemMemoryField, osArchField, osVersionField,
+                swapToDiskField, swapFromDiskField }) {
+            field.setText("");
+        }
+        runQueueRunnableBar.setWidth(1);
+        runQueueBlockedBar.setWidth(1);
+        swapFromDiskBar.setWidth(1);
+        swapToDiskBar.setWidth(1);
+        cpuChart.clear();
+        memoryChart.clear();
+        diskChart.clear();
+    }
+
+    /**
+     * Changes the number of samples shown by the charts.
+     * @param capacity the number of samples
+     */
+    void setCapacity(int capacity) {
+        cpuChart.setCapacity(capacity);
+        memoryChart.setCapacity(capacity);
+        diskChart.setCapacity(capacity);
+    }
+
+    public void removeSystem(ActionEvent actionEvent) {
+        if (null != system) {
+            system.removeSystem();
+        }
+    }
+}
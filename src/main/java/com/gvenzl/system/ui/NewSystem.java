@@ -34,8 +34,6 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import net.schmizz.sshj.userauth.UserAuthException;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
 import java.io.File;
 import java.io.IOException;
 import java.net.UnknownHostException;
@@ -108,12 +106,7 @@ public class NewSystem {
         try {
             Config config = Config.getInstance();
             config.addSystem(conn);
-            try {
-                Config.getInstance().store();
-            }
-            catch (IOException | ParserConfigurationException | TransformerException e) {
-                new Alert(Alert.AlertType.ERROR, String.format("Cannot store config: %s", e.getMessage()), ButtonType.OK).show();
-            }
+            config.store();
         }
         catch (IOException e) {
             new Alert(Alert.AlertType.ERROR, String.format("Cannot retrieve configuration: %s", e.getMessage()), ButtonType.OK).show();
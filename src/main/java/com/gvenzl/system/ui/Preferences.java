@@ -21,8 +21,10 @@
 
 package com.gvenzl.system.ui;
 
+import com.gvenzl.collect.CollectorEngine;
 import com.gvenzl.config.Config;
 import com.gvenzl.log.SysLogger;
+import com.gvenzl.record.RecordFormat;
 import com.gvenzl.system.Systems;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -30,18 +32,16 @@ import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.TextField;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Map;
 
 public class Preferences {
 
@@ -57,6 +57,8 @@ public class Preferences {
     public TextField recordPath;
     @FXML
     public TextField logPath;
+    @FXML
+    public CheckBox binaryRecording;
 
     @FXML
     public void initialize() {
@@ -67,6 +69,7 @@ public class Preferences {
             dataPoints.getValueFactory().setValue(config.getDataPoints());
             connectTimeout.getValueFactory().setValue(config.getConnectTimeoutSeconds());
             recordPath.setText(Config.getInstance().getRecordDirPath());
+            binaryRecording.setSelected(RecordFormat.BINARY.getName().equals(config.getRecordFormat()));
             logPath.setText(Config.getInstance().getLogDirPath());
         }
         catch (IOException e) {
@@ -123,14 +126,9 @@ public class Preferences {
             // If not, still try to set the log path
             try {
                 Config config = Config.getInstance();
-                // Try to update/store the configuration threads
-                try {
-                    updateConfig(config);
-                    configSaved = true;
-                }
-                catch (IOException | ParserConfigurationException | TransformerException e) {
-                    new Alert(Alert.AlertType.ERROR, "Cannot update configuration due to :%s\n".formatted(e.getMessage()), ButtonType.OK).show();
-                }
+                // Update the configuration, it is stored in the background
+                updateConfig(config);
+                configSaved = true;
                 // Try to update threads regardless.
                 try {
                     updateSystems();
@@ -199,24 +197,24 @@ public class Preferences {
         return true;
     }
 
-    private void updateConfig(Config config)
-            throws ParserConfigurationException, TransformerException, IOException {
+    private void updateConfig(Config config) {
         config.setRefreshCycle(refreshCycle.getValue());
         config.setReconnectRetries(reconnectRetries.getValue());
         config.setDataPoints(dataPoints.getValue());
         config.setConnectTimeoutSeconds(connectTimeout.getValue());
         config.setRecordDirPath(recordPath.getText());
+        config.setRecordFormat(binaryRecording.isSelected() ? RecordFormat.BINARY.getName() : RecordFormat.TEXT.getName());
         config.setLogDirPath(logPath.getText());
         config.store();
     }
 
     private void updateSystems() throws IOException {
 
-        for (Map.Entry<String, MonitoredSystem> sys : Systems.getInstance().getSystems().entrySet()) {
-            sys.getValue().resetRefreshCycle(refreshCycle.getValue());
-            sys.getValue().setReconnectRetries(reconnectRetries.getValue());
-            sys.getValue().setDataPoints(dataPoints.getValue());
-            sys.getValue().setConnectTimeoutSeconds(connectTimeout.getValue());
+        CollectorEngine.getInstance().updateSettings(
+                refreshCycle.getValue(), reconnectRetries.getValue(), connectTimeout.getValue());
+
+        for (MonitoredSystem system : Systems.getInstance().getSystems()) {
+            system.setDataPoints(dataPoints.getValue());
         }
     }
 
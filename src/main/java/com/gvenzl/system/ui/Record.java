@@ -21,11 +21,14 @@
 
 package com.gvenzl.system.ui;
 
+import com.gvenzl.config.Config;
+import com.gvenzl.record.RecordFormat;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextField;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
@@ -41,8 +44,20 @@ public class Record {
     public TextField path;
     @FXML
     public TextField prefix;
+    @FXML
+    public CheckBox binary;
     private boolean abort = false;
 
+    @FXML
+    public void initialize() {
+        try {
+            binary.setSelected(RecordFormat.BINARY.getName().equals(Config.getInstance().getRecordFormat()));
+        }
+        catch (IOException e) {
+            // Default to text recordings
+        }
+    }
+
     @FXML
     public void openDirectoryChooser(ActionEvent actionEvent) {
 
@@ -72,6 +87,10 @@ public class Record {
         return abort;
     }
 
+    public RecordFormat getFormat() {
+        return binary.isSelected() ? RecordFormat.BINARY : RecordFormat.TEXT;
+    }
+
     public boolean validateRecordAndClose(ActionEvent actionEvent) {
 
         Path dirPath = Path.of(path.getText());
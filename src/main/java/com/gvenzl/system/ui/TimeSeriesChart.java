@@ -0,0 +1,405 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: TimeSeriesChart.java
+ * Description: A stacked area chart drawn on a Canvas.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system.ui;
+
+import javafx.geometry.HPos;
+import javafx.geometry.Insets;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+/**
+ * A stacked area chart over a numeric time axis, drawn directly on a {@link Canvas}.
+ * Unlike a {@link javafx.scene.chart.StackedAreaChart}, the samples are not scene graph nodes
+ * but held in the primitive arrays of a {@link TimeSeriesData}, so thousands of samples do not slow down layout and CSS.
+ * <p>
+ * The series colors are taken from the legend, whose entries carry the series ids and the
+ * `chart-series-area-fill` and `chart-series-area-line` style classes, the same as the series of a
+ * {@link javafx.scene.chart.StackedAreaChart}, so that the colors can be set in the style sheet.
+ * <p>
+ * If there are more samples than pixels, the samples are reduced by a {@link TimeSeriesDecimator} before drawing.
+ * <p>
+ * Samples can be marked, e.g. as anomalous, the marks are drawn as small triangles above the plot.
+ */
+public final class TimeSeriesChart extends Region {
+
+    // Room for the axis label and the tick labels
+    private static final double VALUE_AXIS_WIDTH = 46;
+    private static final double TIME_AXIS_HEIGHT = 16;
+    private static final double PADDING = 5;
+    private static final double MIN_TICK_SPACING = 70;
+    private static final int VALUE_TICKS = 4;
+    private static final long[] TIME_TICK_SECONDS = { 1, 2, 5, 10, 15, 30, 60, 120, 300, 600, 900, 1800, 3600, 7200, 21600, 43200, 86400 };
+    private static final Font TICK_FONT = Font.font(10);
+    private static final Color AXIS_COLOR = Color.GRAY;
+    private static final Color GRID_COLOR = Color.rgb(0, 0, 0, 0.1);
+    private static final Color MARK_COLOR = Color.CRIMSON;
+    private static final double MARK_SIZE = 4;
+
+    private final Canvas canvas = new Canvas();
+    private final VBox legend = new VBox(2);
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+    private String label = "";
+    private Rectangle[] swatches = new Rectangle[0];
+    private TimeSeriesData data = new TimeSeriesData(1, 1);
+    private TimeSeriesDecimator decimator = new TimeSeriesDecimator(data);
+    private boolean dirty = true;
+    // Ring of the times of the marked samples, sized to the capacity as each sample is marked at most once
+    private long[] marks = new long[1];
+    private int markCount = 0;
+    private int nextMark = 0;
+
+    // Reused between redraws
+    private final double[] markX = new double[3];
+    private final double[] markY = new double[3];
+    private double[] xs = new double[0];
+    private double[][] ys = new double[1][0];
+    private double[] polygonX = new double[0];
+    private double[] polygonY = new double[0];
+
+    public TimeSeriesChart() {
+        getStyleClass().add("time-series-chart");
+        legend.setPadding(new Insets(0, 5, 0, 5));
+        legend.setFillWidth(false);
+        getChildren().addAll(legend, canvas);
+    }
+
+    /**
+     * Sets the series of the chart, removing all samples.
+     * @param names the names shown in the legend, from the bottom to the top of the stack
+     * @param ids the ids of the legend entries, used to style the series
+     * @param capacity the maximum number of samples shown
+     */
+    public void setSeries(String[] names, String[] ids, int capacity) {
+        if (names.length != ids.length) {
+            throw new IllegalArgumentException("Expected %d ids, got %d".formatted(names.length, ids.length));
+        }
+        data = new TimeSeriesData(names.length, capacity);
+        decimator = new TimeSeriesDecimator(data);
+        decimator.setTargetBuckets(getPlotWidth(canvas.getWidth()));
+        // Reallocated together on the next redraw, see drawSeries
+        xs = new double[0];
+        ys = new double[names.length][0];
+        swatches = new Rectangle[names.length];
+        legend.getChildren().clear();
+        for (int series = 0; series < names.length; series++) {
+            swatches[series] = new Rectangle(10, 10);
+            swatches[series].getStyleClass().addAll("chart-series-area-fill", "chart-series-area-line");
+            Label entry = new Label(names[series], swatches[series]);
+            entry.setId(ids[series]);
+            legend.getChildren().add(entry);
+        }
+        marks = new long[capacity];
+        clearMarks();
+        markDirty();
+    }
+
+    /**
+     * Adds a sample. The chart is only drawn again on {@link #redraw()}.
+     * @param timeMillis the epoch milliseconds of the sample
+     * @param values the values of the sample, one per series
+     */
+    public void add(long timeMillis, double... values) {
+        data.add(timeMillis, values);
+        decimator.add(timeMillis, values);
+        dirty = true;
+    }
+
+    /**
+     * Changes the maximum number of samples shown, keeping the newest ones.
+     * @param capacity the maximum number of samples
+     */
+    public void setCapacity(int capacity) {
+        data.setCapacity(capacity);
+        decimator.rebuild();
+        resizeMarks(capacity);
+        markDirty();
+    }
+
+    /**
+     * Marks the sample at the given time. The chart is only drawn again on {@link #redraw()}.
+     * @param timeMillis the epoch milliseconds of the sample
+     */
+    public void mark(long timeMillis) {
+        marks[nextMark] = timeMillis;
+        nextMark = (nextMark + 1) % marks.length;
+        markCount = Math.min(markCount + 1, marks.length);
+        dirty = true;
+    }
+
+    /**
+     * Keeps the newest marks that fit the new capacity.
+     */
+    private void resizeMarks(int capacity) {
+        if (capacity == marks.length) {
+            return;
+        }
+        long[] resized = new long[capacity];
+        int count = Math.min(markCount, capacity);
+        for (int i = 0; i < count; i++) {
+            resized[i] = marks[Math.floorMod(nextMark - count + i, marks.length)];
+        }
+        marks = resized;
+        markCount = count;
+        nextMark = count % capacity;
+    }
+
+    private void clearMarks() {
+        markCount = 0;
+        nextMark = 0;
+    }
+
+    public void clear() {
+        data.clear();
+        clearMarks();
+        decimator.rebuild();
+        markDirty();
+    }
+
+    public TimeSeriesData getData() {
+        return data;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Sets the label of the value axis.
+     * @param label the label
+     */
+    public void setLabel(String label) {
+        this.label = null == label ? "" : label;
+        markDirty();
+    }
+
+    private void markDirty() {
+        dirty = true;
+        requestLayout();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        double legendWidth = snapSizeX(legend.prefWidth(-1));
+        layoutInArea(legend, 0, 0, legendWidth, height, 0, HPos.LEFT, VPos.CENTER);
+
+        double canvasWidth = snapSizeX(Math.max(width - legendWidth, 0));
+        double canvasHeight = snapSizeY(height);
+        if (canvas.getWidth() != canvasWidth || canvas.getHeight() != canvasHeight) {
+            canvas.setWidth(canvasWidth);
+            canvas.setHeight(canvasHeight);
+            decimator.setTargetBuckets(getPlotWidth(canvasWidth));
+            dirty = true;
+        }
+        canvas.relocate(legendWidth, 0);
+        redraw();
+    }
+
+    /**
+     * Returns the width of the plot area in whole pixels, i.e. the number of samples that can be told apart.
+     */
+    private static int getPlotWidth(double canvasWidth) {
+        return (int) Math.max(canvasWidth - VALUE_AXIS_WIDTH - PADDING, 0);
+    }
+
+    /**
+     * Draws the chart if samples have been added since it was last drawn.
+     */
+    public void redraw() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.clearRect(0, 0, width, height);
+
+        double left = VALUE_AXIS_WIDTH;
+        double top = PADDING;
+        double bottom = height - TIME_AXIS_HEIGHT;
+        double plotWidth = width - PADDING - left;
+        double plotHeight = bottom - top;
+        if (plotWidth <= 0 || plotHeight <= 0) {
+            return;
+        }
+
+        // Only draw as many points as there are pixels
+        TimeSeriesData points = decimator.getPoints();
+        gc.setFont(TICK_FONT);
+        gc.setLineWidth(1);
+        double maxStacked = points.getMaxStacked();
+        double tickUnit = getTickUnit(maxStacked / VALUE_TICKS);
+        double upperBound = Math.max(Math.ceil(maxStacked / tickUnit), 1) * tickUnit;
+        drawValueAxis(gc, left, bottom, plotWidth, plotHeight, upperBound, tickUnit);
+
+        if (points.size() > 0) {
+            drawSeries(gc, points, left, bottom, plotWidth, plotHeight, upperBound);
+            drawTimeAxis(gc, points, left, bottom, plotWidth, height);
+            drawMarks(gc, points, left, top, plotWidth);
+        }
+
+        gc.setStroke(AXIS_COLOR);
+        gc.strokeLine(left + 0.5, top, left + 0.5, bottom + 0.5);
+        gc.strokeLine(left, bottom + 0.5, left + plotWidth, bottom + 0.5);
+    }
+
+    private void drawValueAxis(GraphicsContext gc, double left, double bottom, double plotWidth, double plotHeight,
+                               double upperBound, double tickUnit) {
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.setTextBaseline(VPos.CENTER);
+        for (int tick = 0; tick * tickUnit <= upperBound * 1.0001; tick++) {
+            double value = tick * tickUnit;
+            double y = Math.round(bottom - value / upperBound * plotHeight) + 0.5;
+            gc.setStroke(GRID_COLOR);
+            gc.strokeLine(left, y, left + plotWidth, y);
+            gc.setFill(Color.BLACK);
+            gc.fillText(tickUnit >= 1 ? String.valueOf(Math.round(value)) : "%.1f".formatted(value), left - 3, y);
+        }
+
+        // Axis label, rotated along the axis
+        gc.save();
+        gc.translate(8, bottom - plotHeight / 2);
+        gc.rotate(-90);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.fillText(label, 0, 0);
+        gc.restore();
+    }
+
+    private void drawSeries(GraphicsContext gc, TimeSeriesData points, double left, double bottom,
+                            double plotWidth, double plotHeight, double upperBound) {
+        int size = points.size();
+        if (xs.length < size) {
+            xs = new double[size];
+            for (int series = 0; series < ys.length; series++) {
+                ys[series] = new double[size];
+            }
+            polygonX = new double[size * 2];
+            polygonY = new double[size * 2];
+        }
+        points.stack(left, plotWidth, bottom, plotHeight, upperBound, xs, ys);
+
+        for (int series = 0; series < points.getSeriesCount(); series++) {
+            // Top edge of the series from left to right, then the top edge of the series below from right to left
+            double[] top = ys[series];
+            double[] below = series > 0 ? ys[series - 1] : null;
+            for (int i = 0; i < size; i++) {
+                polygonX[i] = xs[i];
+                polygonY[i] = top[i];
+                int j = size * 2 - 1 - i;
+                polygonX[j] = xs[i];
+                polygonY[j] = null != below ? below[i] : bottom;
+            }
+
+            Paint fill = swatches[series].getFill();
+            Paint stroke = swatches[series].getStroke();
+            gc.setFill(fill);
+            gc.fillPolygon(polygonX, polygonY, size * 2);
+            gc.setStroke(null != stroke ? stroke : fill);
+            gc.strokePolyline(xs, top, size);
+        }
+    }
+
+    private void drawTimeAxis(GraphicsContext gc, TimeSeriesData points, double left, double bottom,
+                              double plotWidth, double height) {
+        long from = points.getTime(0);
+        long range = Math.max(points.getTime(points.size() - 1) - from, 1);
+
+        long tickMillis = TIME_TICK_SECONDS[TIME_TICK_SECONDS.length - 1] * 1000;
+        for (long seconds : TIME_TICK_SECONDS) {
+            if (seconds * 1000 * plotWidth / range >= MIN_TICK_SPACING) {
+                tickMillis = seconds * 1000;
+                break;
+            }
+        }
+
+        // Align the ticks to the local time, e.g. full hours
+        long offset = TimeZone.getDefault().getOffset(from);
+        long first = Math.floorDiv(from + offset + tickMillis - 1, tickMillis) * tickMillis - offset;
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.BOTTOM);
+        for (long time = first; time <= from + range; time += tickMillis) {
+            double x = Math.round(left + (double) (time - from) / range * plotWidth) + 0.5;
+            gc.setStroke(AXIS_COLOR);
+            gc.strokeLine(x, bottom, x, bottom + 3);
+            gc.setFill(Color.BLACK);
+            gc.fillText(timeFormat.format(time), x, height);
+        }
+    }
+
+    private void drawMarks(GraphicsContext gc, TimeSeriesData points, double left, double top, double plotWidth) {
+        long from = points.getTime(0);
+        long to = points.getTime(points.size() - 1);
+        long range = Math.max(to - from, 1);
+        gc.setFill(MARK_COLOR);
+        for (int i = 0; i < markCount; i++) {
+            long time = marks[i];
+            if (time < from || time > to) {
+                continue;
+            }
+            // Pointing down onto the marked sample
+            double x = left + (double) (time - from) / range * plotWidth;
+            markX[0] = x - MARK_SIZE;
+            markY[0] = top - PADDING;
+            markX[1] = x + MARK_SIZE;
+            markY[1] = top - PADDING;
+            markX[2] = x;
+            markY[2] = top + MARK_SIZE;
+            gc.fillPolygon(markX, markY, 3);
+        }
+    }
+
+    /**
+     * Rounds the given tick unit up to 1, 2 or 5 times a power of 10.
+     */
+    static double getTickUnit(double unit) {
+        if (!(unit > 0)) {
+            return 1;
+        }
+        double magnitude = Math.pow(10, Math.floor(Math.log10(unit)));
+        double fraction = unit / magnitude;
+        if (fraction <= 1) {
+            return magnitude;
+        }
+        else if (fraction <= 2) {
+            return 2 * magnitude;
+        }
+        else if (fraction <= 5) {
+            return 5 * magnitude;
+        }
+        return 10 * magnitude;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: TimeSeriesData.java
+ * Description: The samples shown by a TimeSeriesChart.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system.ui;
+
+/**
+ * The samples shown by a {@link TimeSeriesChart}, held in primitive ring buffers.
+ * Each sample has a timestamp and one value per series, the series are stacked in the order given.
+ * Adding a sample beyond the capacity evicts the oldest one.
+ * An instance is not thread-safe, it is only accessed on the FX thread.
+ */
+public class TimeSeriesData {
+
+    private final int seriesCount;
+    private long[] times;
+    // [series][slot]
+    private double[][] values;
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * Creates the ring buffers.
+     * @param seriesCount the number of series
+     * @param capacity the maximum number of samples held
+     */
+    public TimeSeriesData(int seriesCount, int capacity) {
+        if (seriesCount < 1 || capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Series count and capacity must be positive, were %d and %d".formatted(seriesCount, capacity));
+        }
+        this.seriesCount = seriesCount;
+        this.times = new long[capacity];
+        this.values = new double[seriesCount][capacity];
+    }
+
+    /**
+     * Adds a sample, evicting the oldest one if the buffers are full.
+     * @param timeMillis the epoch milliseconds of the sample
+     * @param sample the values of the sample, one per series
+     */
+    public void add(long timeMillis, double... sample) {
+        if (sample.length != seriesCount) {
+            throw new IllegalArgumentException("Expected %d values, got %d".formatted(seriesCount, sample.length));
+        }
+        int capacity = times.length;
+        int slot;
+        if (size == capacity) {
+            slot = head;
+            head = (head + 1) % capacity;
+        }
+        else {
+            slot = (head + size) % capacity;
+            size++;
+        }
+        times[slot] = timeMillis;
+        for (int series = 0; series < seriesCount; series++) {
+            values[series][slot] = sample[series];
+        }
+    }
+
+    /**
+     * Replaces a sample.
+     * @param index the index of the sample, 0 being the oldest
+     * @param timeMillis the epoch milliseconds of the sample
+     * @param sample the values of the sample, one per series
+     */
+    public void set(int index, long timeMillis, double[] sample) {
+        int slot = slot(index);
+        times[slot] = timeMillis;
+        for (int series = 0; series < seriesCount; series++) {
+            values[series][slot] = sample[series];
+        }
+    }
+
+    /**
+     * Changes the capacity, keeping the newest samples.
+     * @param capacity the maximum number of samples held
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, was %d".formatted(capacity));
+        }
+        if (capacity == times.length) {
+            return;
+        }
+        int keep = Math.min(size, capacity);
+        long[] newTimes = new long[capacity];
+        double[][] newValues = new double[seriesCount][capacity];
+        for (int i = 0; i < keep; i++) {
+            int slot = slot(size - keep + i);
+            newTimes[i] = times[slot];
+            for (int series = 0; series < seriesCount; series++) {
+                newValues[series][i] = values[series][slot];
+            }
+        }
+        times = newTimes;
+        values = newValues;
+        head = 0;
+        size = keep;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private int slot(int index) {
+        return (head + index) % times.length;
+    }
+
+    /**
+     * Returns the time of a sample.
+     * @param index the index of the sample, 0 being the oldest
+     * @return the epoch milliseconds of the sample
+     */
+    public long getTime(int index) {
+        return times[slot(index)];
+    }
+
+    /**
+     * Returns a value of a sample.
+     * @param series the series
+     * @param index the index of the sample, 0 being the oldest
+     * @return the value
+     */
+    public double getValue(int series, int index) {
+        return values[series][slot(index)];
+    }
+
+    /**
+     * Returns the highest sum of the values of a sample, i.e. the top of the stacked series.
+     * @return the highest stacked value, 0 if there are no samples
+     */
+    public double getMaxStacked() {
+        double max = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = slot(i);
+            double total = 0;
+            for (int series = 0; series < seriesCount; series++) {
+                total += values[series][slot];
+            }
+            max = Math.max(max, total);
+        }
+        return max;
+    }
+
+    /**
+     * Computes the screen coordinates of the stacked series.
+     * The time range of the samples is mapped onto the width, 0 to the upper bound onto the height.
+     * @param left the x coordinate of the oldest sample
+     * @param width the width of the plot area
+     * @param bottom the y coordinate of 0
+     * @param height the height of the plot area
+     * @param upperBound the value at the top of the plot area
+     * @param xs receives the x coordinate of each sample, must hold {@link #size()} values
+     * @param ys receives per series the y coordinate of its top edge for each sample, must hold {@link #size()} values each
+     */
+    public void stack(double left, double width, double bottom, double height, double upperBound,
+                      double[] xs, double[][] ys) {
+        if (size == 0) {
+            return;
+        }
+        long from = getTime(0);
+        long range = Math.max(getTime(size - 1) - from, 1);
+        double xScale = width / range;
+        double yScale = height / upperBound;
+        for (int i = 0; i < size; i++) {
+            int slot = slot(i);
+            xs[i] = left + (times[slot] - from) * xScale;
+            double total = 0;
+            for (int series = 0; series < seriesCount; series++) {
+                total += values[series][slot];
+                ys[series][i] = bottom - total * yScale;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return times.length;
+    }
+
+    public int getSeriesCount() {
+        return seriesCount;
+    }
+}
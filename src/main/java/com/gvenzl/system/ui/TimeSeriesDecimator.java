@@ -0,0 +1,138 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: TimeSeriesDecimator.java
+ * Description: Reduces the samples of a chart to the points that can be shown.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system.ui;
+
+/**
+ * Reduces the samples of a {@link TimeSeriesData} to about two points per pixel column of the chart.
+ * <p>
+ * The samples are grouped into buckets of consecutive samples, each bucket becomes two points:
+ * the minimum of each series at the time of the first sample and the maximum of each series at the time of the last one.
+ * Unlike averaging or Largest-Triangle-Three-Buckets, which pick one sample for all series of a stacked chart,
+ * this keeps the spikes of every series, e.g. CPU wait or disk writes, visible.
+ * <p>
+ * The buckets are updated incrementally as samples are added, only the last, still open bucket changes.
+ * The buckets are only recomputed from the samples if the width of the chart or the number of samples shown changes.
+ */
+public class TimeSeriesDecimator {
+
+    private final TimeSeriesData samples;
+    private TimeSeriesData points = null;
+    private int targetBuckets = 0;
+    private int bucketSize = 1;
+
+    // The open bucket
+    private int bucketCount = 0;
+    private long bucketStart = 0;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sample;
+
+    /**
+     * Creates a decimator for the given samples. It does not decimate until {@link #setTargetBuckets(int)} is called.
+     * @param samples the samples of the chart
+     */
+    public TimeSeriesDecimator(TimeSeriesData samples) {
+        this.samples = samples;
+        this.min = new double[samples.getSeriesCount()];
+        this.max = new double[samples.getSeriesCount()];
+        this.sample = new double[samples.getSeriesCount()];
+    }
+
+    /**
+     * Sets the number of buckets the samples are reduced to, usually the width of the chart in pixels.
+     * @param buckets the number of buckets, 0 to not decimate
+     */
+    public void setTargetBuckets(int buckets) {
+        if (buckets != targetBuckets) {
+            targetBuckets = Math.max(buckets, 0);
+            rebuild();
+        }
+    }
+
+    /**
+     * Recomputes all buckets from the samples, e.g. after their capacity changed.
+     */
+    public void rebuild() {
+        int capacity = samples.getCapacity();
+        bucketSize = targetBuckets > 0 ? (capacity + targetBuckets - 1) / targetBuckets : 1;
+        bucketCount = 0;
+        if (bucketSize < 2) {
+            // Every sample has a pixel of its own
+            points = null;
+            return;
+        }
+
+        // The oldest bucket may still hold samples that already got evicted, hence one more
+        int buckets = (capacity + bucketSize - 1) / bucketSize + 1;
+        points = new TimeSeriesData(samples.getSeriesCount(), buckets * 2);
+        for (int i = 0; i < samples.size(); i++) {
+            for (int series = 0; series < sample.length; series++) {
+                sample[series] = samples.getValue(series, i);
+            }
+            add(samples.getTime(i), sample);
+        }
+    }
+
+    /**
+     * Adds a sample that has just been added to the samples.
+     * @param timeMillis the epoch milliseconds of the sample
+     * @param values the values of the sample, one per series
+     */
+    public void add(long timeMillis, double[] values) {
+        if (null == points) {
+            return;
+        }
+
+        if (bucketCount == bucketSize) {
+            bucketCount = 0;
+        }
+        if (bucketCount == 0) {
+            bucketStart = timeMillis;
+            System.arraycopy(values, 0, min, 0, min.length);
+            System.arraycopy(values, 0, max, 0, max.length);
+            points.add(timeMillis, min);
+            points.add(timeMillis, max);
+        }
+        else {
+            for (int series = 0; series < values.length; series++) {
+                min[series] = Math.min(min[series], values[series]);
+                max[series] = Math.max(max[series], values[series]);
+            }
+            int last = points.size() - 1;
+            points.set(last - 1, bucketStart, min);
+            points.set(last, timeMillis, max);
+        }
+        bucketCount++;
+    }
+
+    /**
+     * Returns the points to draw.
+     * @return the decimated samples, or the samples themselves if there are no more than the target buckets
+     */
+    public TimeSeriesData getPoints() {
+        return null != points ? points : samples;
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: UIUpdateCoordinator.java
+ * Description: Applies the pending chart updates of all systems once per pulse.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system.ui;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces the UI updates of all {@link MonitoredSystem}s into one pass per JavaFX pulse.
+ * <p>
+ * Collectors only note the latest sample of a system and queue the system once until its update is applied,
+ * so the queue never holds more than one entry per system, no matter how far the FX thread falls behind.
+ * On each pulse the queued systems draw all samples they received since their last update in one go.
+ */
+public class UIUpdateCoordinator {
+
+    private static UIUpdateCoordinator instance = null;
+
+    private final ConcurrentLinkedQueue<MonitoredSystem> pending = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() traverses the queue
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong pulses = new AtomicLong();
+    private final AtomicLong appliedUpdates = new AtomicLong();
+    private final AtomicLong coalescedSamples = new AtomicLong();
+    private final AtomicLong droppedSamples = new AtomicLong();
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            applyPending();
+        }
+    };
+
+    private UIUpdateCoordinator() {
+        // Prevent instantiation
+    }
+
+    public static synchronized UIUpdateCoordinator getInstance() {
+        if (instance == null) {
+            instance = new UIUpdateCoordinator();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts applying the updates on every pulse. Must be called on the FX thread.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stops applying the updates. Must be called on the FX thread.
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Queues a system for the next pulse.
+     * The system has to make sure that it is only queued once until its update has been applied.
+     * @param system the system with a pending update
+     */
+    void schedule(MonitoredSystem system) {
+        queueDepth.incrementAndGet();
+        pending.add(system);
+    }
+
+    private void applyPending() {
+        pulses.incrementAndGet();
+        // Only apply the systems queued before this pulse, systems queued meanwhile are applied on the next one
+        for (int i = queueDepth.get(); i > 0; i--) {
+            MonitoredSystem system = pending.poll();
+            if (null == system) {
+                break;
+            }
+            queueDepth.decrementAndGet();
+            system.applyUpdate();
+            appliedUpdates.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the samples that were drawn in the same pulse as a newer sample of the same system.
+     */
+    void coalesced(long samples) {
+        coalescedSamples.addAndGet(samples);
+    }
+
+    /**
+     * Counts the samples that were never drawn, as they fell out of the chart or the history before the next pulse.
+     */
+    void dropped(long samples) {
+        droppedSamples.addAndGet(samples);
+    }
+
+    /**
+     * Returns the number of systems waiting for the next pulse.
+     * @return the number of queued systems
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getPulses() {
+        return pulses.get();
+    }
+
+    public long getAppliedUpdates() {
+        return appliedUpdates.get();
+    }
+
+    public long getCoalescedSamples() {
+        return coalescedSamples.get();
+    }
+
+    public long getDroppedSamples() {
+        return droppedSamples.get();
+    }
+}
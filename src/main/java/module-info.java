@@ -6,9 +6,14 @@ module com.gvenzl.sysmonitor {
     requires java.xml;
     requires com.hierynomus.sshj;
     requires java.desktop;
+    requires jdk.httpserver;
 
     exports com.gvenzl;
+    exports com.gvenzl.alert;
+    exports com.gvenzl.collect;
     exports com.gvenzl.connect;
+    exports com.gvenzl.metrics;
+    exports com.gvenzl.record;
     exports com.gvenzl.system;
     exports com.gvenzl.system.ui;
     opens com.gvenzl;
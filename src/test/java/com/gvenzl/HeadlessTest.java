@@ -0,0 +1,103 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: HeadlessTest.java
+ * Description: Checks that headless mode runs without loading JavaFX.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class HeadlessTest {
+
+    // A system that refuses the connection, so that the collector goes through connect and reconnect
+    private static final String CONFIG = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <configuration>
+                <preferences refresh="1" reconnectRetries="1" connectTimeout="1" dataPoints="30" recordDir="" logDir="%s"/>
+                <systems>
+                    <system name="unreachable" hostname="127.0.0.1" port="1" username="sysmonitor"/>
+                </systems>
+            </configuration>
+            """;
+
+    /**
+     * Runs the headless entry point in a forked JVM with {@code -verbose:class}
+     * and checks that no {@code javafx.*} class is loaded while it collects, records and serves metrics.
+     */
+    @Test
+    void loadsNoJavaFXClasses(@TempDir Path home) throws IOException, InterruptedException {
+        Path configDir = Files.createDirectories(home.resolve(".sysmonitor"));
+        Files.writeString(configDir.resolve("config.xml"), CONFIG.formatted(configDir), StandardCharsets.UTF_8);
+        Path recordings = Files.createDirectories(home.resolve("recordings"));
+        Path output = home.resolve("output.txt");
+
+        // The application classes are on the module path when tests run on it, the forked JVM takes all as class path
+        String classPath = System.getProperty("java.class.path") + File.pathSeparator + System.getProperty("jdk.module.path", "");
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-verbose:class",
+                "-Duser.home=" + home,
+                "-cp", classPath,
+                AppLauncher.class.getName(),
+                "--headless", "--record-dir", recordings.toString(), "--metrics-port", "0")
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+
+        try {
+            // Up and collecting, then give the collector time for a few connection attempts
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!Files.readString(output, StandardCharsets.UTF_8).contains("Collecting from unreachable")) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    fail("Headless mode did not start:%n%s".formatted(Files.readString(output, StandardCharsets.UTF_8)));
+                }
+                Thread.sleep(100);
+            }
+            Thread.sleep(2000);
+        }
+        finally {
+            // Runs the shutdown hook, which stops the collectors and closes the recordings
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+
+        List<String> loaded = Files.readAllLines(output, StandardCharsets.UTF_8).stream()
+                .filter(line -> line.contains("[class,load]"))
+                .toList();
+        assertTrue(loaded.stream().anyMatch(line -> line.contains(" com.gvenzl.Headless ")), "Class loading not logged");
+        assertTrue(loaded.stream().anyMatch(line -> line.contains(" com.gvenzl.collect.Collector ")), "No collector started");
+        assertTrue(loaded.stream().anyMatch(line -> line.contains(" net.schmizz.sshj.SSHClient ")), "No connection attempted");
+        assertEquals(List.of(), loaded.stream().filter(line -> line.contains(" javafx.")).toList());
+    }
+}
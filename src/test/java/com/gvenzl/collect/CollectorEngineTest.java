@@ -0,0 +1,253 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: CollectorEngineTest.java
+ * Description: Runs thousands of simulated connections through the collector engine.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.collect;
+
+import com.gvenzl.connect.SampleSource;
+import com.gvenzl.system.OSInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectorEngineTest {
+
+    private static final int CONNECTIONS = 2_000;
+    private static final int SAMPLES = 5;
+    private static final long INTERVAL_MILLIS = 50;
+
+    private static final String HEADERS = """
+            procs -----------memory---------- ---swap-- -----io---- -system-- ------cpu----- -----timestamp-----
+             r  b   swpd   free   buff  cache   si   so    bi    bo   in   cs us sy id wa st                 UTC""";
+
+    /**
+     * A simulated host that prints a `vmstat` line every {@link #INTERVAL_MILLIS}.
+     */
+    private static class FakeSource implements SampleSource {
+
+        private final String name;
+        private volatile OSInfo osInfo;
+        private volatile VMStatOutput output;
+
+        FakeSource(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getHostName() {
+            return name;
+        }
+
+        @Override
+        public OSInfo getOsInfo() {
+            return osInfo;
+        }
+
+        @Override
+        public void connect(int timeoutMilliSeconds) {
+            OSInfo info = new OSInfo();
+            info.setOs("Linux");
+            info.setHostName(name);
+            info.setCpus(4);
+            info.setMemoryKB(8_000_000L);
+            info.createVMStatPattern(HEADERS);
+            osInfo = info;
+        }
+
+        @Override
+        public BufferedReader executeCommandAndRead(String command) {
+            output = new VMStatOutput();
+            // Same readers as an SSH connection, which must not pin the virtual thread either
+            return new BufferedReader(new InputStreamReader(output, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+            VMStatOutput current = output;
+            if (null != current) {
+                current.close();
+            }
+        }
+    }
+
+    /**
+     * The output of a simulated `vmstat`: the headers, then a new line every {@link #INTERVAL_MILLIS} until closed.
+     * Waits with {@link Thread#sleep(long)}, which unmounts the virtual thread the same as a blocked socket read.
+     */
+    private static class VMStatOutput extends InputStream {
+
+        private volatile boolean closed = false;
+        private byte[] pending = (HEADERS + "\n").getBytes(StandardCharsets.UTF_8);
+        private int pos = 0;
+        private int second = 0;
+
+        @Override
+        public int read() {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0];
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) {
+            if (pos == pending.length) {
+                try {
+                    Thread.sleep(INTERVAL_MILLIS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+                pending = " 1  0      0 5339884  37138 579456    0    0 20480 65536 1474 19449 27  1 72  0  0 2025-03-17 09:00:%02d\n"
+                        .formatted(second++ % 60).getBytes(StandardCharsets.UTF_8);
+                pos = 0;
+            }
+            if (closed) {
+                return -1;
+            }
+            int n = Math.min(len, pending.length - pos);
+            System.arraycopy(pending, pos, buf, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * A host that never gets its turn to connect, the same as waiting for a free handshake slot.
+     */
+    private static class WaitingSource implements SampleSource {
+
+        private final Semaphore turn = new Semaphore(0, true);
+        private final CountDownLatch waiting = new CountDownLatch(1);
+
+        @Override
+        public String getName() {
+            return "waiting";
+        }
+
+        @Override
+        public String getHostName() {
+            return "waiting";
+        }
+
+        @Override
+        public OSInfo getOsInfo() {
+            return null;
+        }
+
+        @Override
+        public void connect(int timeoutMilliSeconds) throws IOException {
+            waiting.countDown();
+            try {
+                turn.acquire();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to connect");
+            }
+            throw new IOException("Connected although never given a turn");
+        }
+
+        @Override
+        public BufferedReader executeCommandAndRead(String command) throws IOException {
+            throw new IOException("Not connected");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void stopsWhileWaitingToConnect() throws InterruptedException {
+        WaitingSource source = new WaitingSource();
+        Collector collector = new Collector(source, SAMPLES);
+        collector.start();
+        assertTrue(source.waiting.await(10, TimeUnit.SECONDS), "collector did not connect");
+
+        collector.stop();
+        assertTrue(collector.join(Duration.ofSeconds(10)), "collector did not stop while waiting to connect");
+        assertEquals(0, collector.getFailedConnects());
+    }
+
+    @Test
+    void collectsFromThousandsOfConnections() throws InterruptedException {
+        CollectorEngine engine = CollectorEngine.getInstance();
+        Map<String, AtomicInteger> samples = new ConcurrentHashMap<>();
+        CountDownLatch complete = new CountDownLatch(CONNECTIONS);
+        SampleListener listener = (collector, sequence, line) -> {
+            if (samples.computeIfAbsent(collector.getName(), k -> new AtomicInteger()).incrementAndGet() == SAMPLES) {
+                complete.countDown();
+            }
+        };
+
+        List<Collector> collectors = new ArrayList<>(CONNECTIONS);
+        try {
+            for (int i = 0; i < CONNECTIONS; i++) {
+                Collector collector = new Collector(new FakeSource("fake-" + i), SAMPLES * 2);
+                collector.addListener(listener);
+                collectors.add(engine.start(collector));
+            }
+
+            // Read one after the other, the samples alone would take CONNECTIONS * SAMPLES * INTERVAL_MILLIS = 500s
+            assertTrue(complete.await(60, TimeUnit.SECONDS),
+                    "%d of %d connections delivered %d samples".formatted(CONNECTIONS - complete.getCount(), CONNECTIONS, SAMPLES));
+            for (Collector collector : collectors) {
+                assertTrue(collector.isConnected(), collector.getName());
+                assertTrue(collector.getHistory().size() >= SAMPLES, collector.getName());
+                assertEquals(0, collector.getParseErrors(), collector.getName());
+            }
+        }
+        finally {
+            engine.stopAll(Duration.ofSeconds(30));
+        }
+
+        assertTrue(engine.getCollectors().isEmpty());
+        for (Collector collector : collectors) {
+            assertTrue(collector.join(Duration.ofSeconds(1)), collector.getName() + " did not stop");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: MetricsExporterTest.java
+ * Description: Scrapes the metrics endpoint over HTTP.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.metrics;
+
+import com.gvenzl.collect.Collector;
+import com.gvenzl.collect.CollectorEngine;
+import com.gvenzl.connect.SampleSource;
+import com.gvenzl.system.OSInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsExporterTest {
+
+    // Quotes, a backslash and a line break, all of which have to be escaped in label values
+    private static final String NAME = "web \"01\"\\eu\nwest";
+    private static final String ESCAPED = "web \\\"01\\\"\\\\eu\\nwest";
+
+    /**
+     * A system that cannot be reached, so that the collector only reports its state.
+     */
+    private static class UnreachableSource implements SampleSource {
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public String getHostName() {
+            return "unreachable";
+        }
+
+        @Override
+        public void connect(int timeoutMilliSeconds) throws IOException {
+            throw new IOException("unreachable");
+        }
+
+        @Override
+        public OSInfo getOsInfo() {
+            return null;
+        }
+
+        @Override
+        public BufferedReader executeCommandAndRead(String command) throws IOException {
+            throw new IOException("unreachable");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void servesOpenMetrics() throws IOException {
+        CollectorEngine engine = CollectorEngine.getInstance();
+        engine.start(new Collector(new UnreachableSource(), 2));
+        MetricsExporter exporter = new MetricsExporter(new InetSocketAddress(0), Duration.ofSeconds(1));
+        try {
+            exporter.start();
+            int port = exporter.getAddress().getPort();
+            assertTrue(port > 0, "port %d".formatted(port));
+
+            HttpURLConnection http = (HttpURLConnection) URI.create("http://localhost:%d%s".formatted(port, MetricsExporter.PATH))
+                    .toURL().openConnection();
+            try {
+                assertEquals(HttpURLConnection.HTTP_OK, http.getResponseCode());
+                assertEquals(MetricsExporter.CONTENT_TYPE, http.getContentType());
+                String body;
+                try (InputStream in = http.getInputStream()) {
+                    body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                assertTrue(body.endsWith("\n# EOF\n"), body);
+                assertEquals(body.indexOf("# EOF"), body.lastIndexOf("# EOF"), body);
+                assertTrue(body.startsWith("# TYPE sysmonitor_up gauge\n"), body);
+                assertTrue(body.contains("\nsysmonitor_up{system=\"%s\"} 0\n".formatted(ESCAPED)), body);
+                assertTrue(body.contains("\nsysmonitor_collector_samples_total{system=\"%s\"} 0\n".formatted(ESCAPED)), body);
+            }
+            finally {
+                http.disconnect();
+            }
+        }
+        finally {
+            exporter.stop();
+            engine.stop(NAME);
+        }
+    }
+}
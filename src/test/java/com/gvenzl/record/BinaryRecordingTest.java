@@ -0,0 +1,265 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: BinaryRecordingTest.java
+ * Description: Round trips of the binary recording format, including appending to a cut off recording.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.record;
+
+import com.gvenzl.system.DataPoint;
+import com.gvenzl.system.Metric;
+import com.gvenzl.system.OSInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryRecordingTest {
+
+    private static final long START = 1_742_202_000_000L;
+    private static final int BLOCK = BinaryRecordingWriter.DEFAULT_BLOCK_SIZE;
+
+    private static RecordingHeader header(String name) {
+        OSInfo osInfo = new OSInfo();
+        osInfo.setHostName(name + ".example.com");
+        osInfo.setOs("Linux");
+        osInfo.setCpus(8);
+        osInfo.setMemoryKB(16_000_000L);
+        return new RecordingHeader(name, osInfo, " r  b   swpd   free");
+    }
+
+    private static DataPoint sample(int i) {
+        DataPoint dp = new DataPoint();
+        dp.setDateTime(START + i * 1000L);
+        Metric[] metrics = Metric.all();
+        for (int m = 0; m < metrics.length; m++) {
+            metrics[m].set(dp, (long) i * (m + 1) % 100);
+        }
+        return dp;
+    }
+
+    /**
+     * Writes a segment of samples {@code first} to {@code first + count - 1}.
+     */
+    private static void writeSegment(BinaryRecordingWriter writer, String name, int first, int count) throws IOException {
+        writer.writeHeader(header(name));
+        for (int i = first; i < first + count; i++) {
+            writer.write(sample(i));
+        }
+    }
+
+    private record Read(String segment, DataPoint dp) {}
+
+    private static List<Read> readAll(Path file) throws IOException {
+        List<Read> read = new ArrayList<>();
+        try (BinaryRecordingReader reader = new BinaryRecordingReader(file)) {
+            DataPoint dp = new DataPoint();
+            while (reader.next(dp)) {
+                read.add(new Read(reader.getHeader().getName(), dp));
+                dp = new DataPoint();
+            }
+        }
+        return read;
+    }
+
+    private static void assertSample(int expected, String segment, Read actual) {
+        assertEquals(segment, actual.segment());
+        DataPoint dp = sample(expected);
+        assertEquals(dp.getDateTimeMillis(), actual.dp().getDateTimeMillis());
+        for (Metric metric : Metric.all()) {
+            assertEquals(metric.get(dp), metric.get(actual.dp()), metric.getKey());
+        }
+    }
+
+    @Test
+    void roundTrip(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("system.smr");
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "first", 0, BLOCK + 50);
+            writeSegment(writer, "second", 1000, 10);
+        }
+        assertEquals(Files.size(file), BinaryRecordingReader.completeLength(file));
+
+        List<Read> read = readAll(file);
+        assertEquals(BLOCK + 60, read.size());
+        for (int i = 0; i < BLOCK + 50; i++) {
+            assertSample(i, "first", read.get(i));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertSample(1000 + i, "second", read.get(BLOCK + 50 + i));
+        }
+    }
+
+    @Test
+    void appendsAfterTheLastCompleteBlockOfACutOffRecording(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("system.smr");
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "first", 0, 20);
+        }
+        long firstSegment = Files.size(file);
+
+        // A recorder that got killed: one complete block of the second segment, the next one cut off
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "crashed", 100, BLOCK + 40);
+        }
+        long cut = Files.size(file) - 7;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(cut);
+        }
+        long complete = BinaryRecordingReader.completeLength(file);
+        assertTrue(complete > firstSegment && complete < cut, "complete length %d".formatted(complete));
+
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "after", 1000, 30);
+        }
+        assertEquals(Files.size(file), BinaryRecordingReader.completeLength(file));
+
+        List<Read> read = readAll(file);
+        assertEquals(20 + BLOCK + 30, read.size());
+        for (int i = 0; i < 20; i++) {
+            assertSample(i, "first", read.get(i));
+        }
+        for (int i = 0; i < BLOCK; i++) {
+            assertSample(100 + i, "crashed", read.get(20 + i));
+        }
+        for (int i = 0; i < 30; i++) {
+            assertSample(1000 + i, "after", read.get(20 + BLOCK + i));
+        }
+    }
+
+    @Test
+    void appendsAfterAHeaderWithoutSamples(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("system.smr");
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "first", 0, 5);
+            writeSegment(writer, "empty", 0, 0);
+        }
+        // Cut into the empty segment's header
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "after", 10, 5);
+        }
+
+        List<Read> read = readAll(file);
+        assertEquals(10, read.size());
+        for (int i = 0; i < 5; i++) {
+            assertSample(i, "first", read.get(i));
+            assertSample(10 + i, "after", read.get(5 + i));
+        }
+    }
+
+    @Test
+    void cutsBackATornLastBlock(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("system.smr");
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "first", 0, BLOCK);
+        }
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "torn", 100, 10);
+        }
+        // All bytes of the last block are there, but not the ones written, e.g. after a power loss
+        flipByte(file, Files.size(file) - 1);
+
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "after", 1000, 5);
+        }
+
+        List<Read> read = readAll(file);
+        assertEquals(BLOCK + 5, read.size());
+        for (int i = 0; i < BLOCK; i++) {
+            assertSample(i, "first", read.get(i));
+        }
+        for (int i = 0; i < 5; i++) {
+            assertSample(1000 + i, "after", read.get(BLOCK + i));
+        }
+    }
+
+    @Test
+    void keepsTheBlocksAfterABlockCorruptInTheMiddle(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("system.smr");
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "first", 0, BLOCK * 3);
+        }
+        // The middle of the first block's payload
+        flipByte(file, Files.size(file) / 6);
+        byte[] corrupt = Files.readAllBytes(file);
+
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "after", 1000, 5);
+        }
+        byte[] appended = Files.readAllBytes(file);
+        assertTrue(appended.length > corrupt.length);
+        assertArrayEquals(corrupt, Arrays.copyOf(appended, corrupt.length));
+    }
+
+    @Test
+    void doesNotAppendToARecordingCorruptBeforeItsEnd(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("system.smr");
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "first", 0, BLOCK + 10);
+        }
+        long firstSegment = Files.size(file);
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "second", 1000, BLOCK * 2);
+        }
+        // The record type of the second segment's header
+        flipByte(file, firstSegment);
+        byte[] corrupt = Files.readAllBytes(file);
+
+        assertThrows(IOException.class, () -> BinaryRecordingWriter.open(file));
+        assertArrayEquals(corrupt, Files.readAllBytes(file));
+    }
+
+    private static void flipByte(Path file, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, offset);
+            b.put(0, (byte) ~b.get(0));
+            channel.write(b.rewind(), offset);
+        }
+    }
+
+    @Test
+    void startsANewRecordingInAnEmptyFile(@TempDir Path dir) throws IOException {
+        Path file = Files.createFile(dir.resolve("system.smr"));
+        try (BinaryRecordingWriter writer = BinaryRecordingWriter.open(file)) {
+            writeSegment(writer, "first", 0, 3);
+        }
+        List<Read> read = readAll(file);
+        assertEquals(3, read.size());
+        for (int i = 0; i < 3; i++) {
+            assertSample(i, "first", read.get(i));
+        }
+    }
+}
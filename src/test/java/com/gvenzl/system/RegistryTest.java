@@ -0,0 +1,170 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: RegistryTest.java
+ * Description: Concurrent changes to and reads of the Registry.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegistryTest {
+
+    private static final int SYSTEMS = 500;
+    private static final int WRITERS = 2;
+    private static final int READERS = 3;
+    private static final int CHANGES = 20_000;
+
+    private static String name(int i) {
+        return "system-%05d".formatted(i);
+    }
+
+    @Test
+    void keepsSnapshotsConsistentWhileChanged() throws InterruptedException {
+        // The even systems are always registered, each writer adds and removes its own share of the odd ones
+        Registry<String> registry = new Registry<>();
+        for (int i = 0; i < SYSTEMS; i += 2) {
+            registry.put(name(i), name(i));
+        }
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<TreeSet<String>> registered = new ArrayList<>();
+        List<Thread> writers = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            TreeSet<String> own = new TreeSet<>();
+            registered.add(own);
+            writers.add(Thread.ofPlatform().name("writer-" + w).unstarted(() -> run(failure, start, () -> {
+                for (int c = 0; c < CHANGES; c++) {
+                    int i = 1 + 2 * (writer + WRITERS * (c % (SYSTEMS / 2 / WRITERS)));
+                    String name = name(i);
+                    if (own.remove(name)) {
+                        assertEquals(name, registry.remove(name));
+                    }
+                    else if (c % 3 == 0) {
+                        assertNull(registry.putIfAbsent(name, name));
+                        own.add(name);
+                    }
+                    else {
+                        assertNull(registry.put(name, name));
+                        assertEquals(name, registry.put(name, name));
+                        own.add(name);
+                    }
+                }
+            })));
+        }
+
+        for (int r = 0; r < READERS; r++) {
+            readers.add(Thread.ofPlatform().name("reader-" + r).unstarted(() -> run(failure, start, () -> {
+                while (writing.get()) {
+                    List<String> snapshot = registry.values();
+                    int size = snapshot.size();
+                    checkSnapshot(registry, snapshot);
+                    checkSnapshot(registry, registry.names());
+                    // A snapshot does not change with the registry
+                    assertEquals(size, snapshot.size());
+                    checkSnapshot(registry, snapshot);
+                }
+            })));
+        }
+
+        writers.forEach(Thread::start);
+        readers.forEach(Thread::start);
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (null != failure.get()) {
+            throw new AssertionError("Concurrent access failed", failure.get());
+        }
+
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < SYSTEMS; i += 2) {
+            expected.add(name(i));
+        }
+        registered.forEach(expected::addAll);
+        assertEquals(List.copyOf(expected), registry.names());
+        assertEquals(List.copyOf(expected), registry.values());
+        assertEquals(expected.size(), registry.size());
+    }
+
+    /**
+     * Checks that a snapshot is ordered, has all systems that are always registered and only known systems.
+     */
+    private static void checkSnapshot(Registry<String> registry, List<String> snapshot) {
+        String previous = "";
+        int even = 0;
+        for (String value : snapshot) {
+            assertTrue(value.compareTo(previous) > 0, "'%s' after '%s'".formatted(value, previous));
+            int i = Integer.parseInt(value.substring("system-".length()));
+            assertTrue(i < SYSTEMS, value);
+            if (i % 2 == 0) {
+                even++;
+                assertEquals(value, registry.get(value));
+                assertTrue(registry.contains(value), value);
+            }
+            previous = value;
+        }
+        assertEquals(SYSTEMS / 2, even);
+        assertTrue(snapshot.size() <= SYSTEMS, "size %d".formatted(snapshot.size()));
+    }
+
+    private static void run(AtomicReference<Throwable> failure, CountDownLatch start, Runnable task) {
+        try {
+            start.await();
+            task.run();
+        }
+        catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+    }
+
+    @Test
+    void snapshotsCannotBeModified() {
+        Registry<String> registry = new Registry<>();
+        registry.put("b", "2");
+        registry.put("a", "1");
+        List<String> values = registry.values();
+        assertThrows(UnsupportedOperationException.class, () -> values.set(0, "x"));
+        assertThrows(UnsupportedOperationException.class, () -> registry.names().add("c"));
+
+        registry.remove("a");
+        assertEquals(List.of("1", "2"), values);
+        assertEquals(List.of("2"), registry.values());
+    }
+}
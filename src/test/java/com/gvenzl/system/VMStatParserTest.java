@@ -0,0 +1,168 @@
+/*
+ * Since: October 2026
+ * Author: gvenzl
+ * Name: VMStatParserTest.java
+ * Description: Tests of the vmstat column parser against the recorded vmstat fixtures.
+ *
+ * Copyright 2025 Gerald Venzl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gvenzl.system;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VMStatParserTest {
+
+    private static final String PROCPS3 = "vmstat-procps3.txt";
+    private static final String PROCPS4 = "vmstat-procps4.txt";
+
+    private static List<String> load(String name) throws IOException {
+        try (InputStream in = Objects.requireNonNull(
+                VMStatParserTest.class.getResourceAsStream("/vmstat/" + name), "Fixture not found: " + name);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+
+    /**
+     * Parses a line the way the collector did before the column parser, with the {@link VMStat} pattern.
+     */
+    private static DataPoint parseWithPattern(Pattern pattern, String line) {
+        DataPoint dp = new DataPoint();
+        Matcher matcher = pattern.matcher(line);
+        assertTrue(matcher.matches(), "Pattern does not match: " + line);
+        dp.setRunnableProcesses(Integer.parseInt(matcher.group("runQueue")));
+        dp.setBlockedProcesses(Integer.parseInt(matcher.group("blockedQueue")));
+        dp.setSwapMemoryKB(Long.parseLong(matcher.group("swapMemory")));
+        dp.setFreeMemoryKB(Long.parseLong(matcher.group("freeMemory")));
+        dp.setBufferMemoryKB(Long.parseLong(matcher.group("buffersMemory")));
+        dp.setCacheMemoryKB(Long.parseLong(matcher.group("cacheMemory")));
+        dp.setSwapFromDiskKB(Long.parseLong(matcher.group("swappedFromDisk")));
+        dp.setSwapToDiskKB(Long.parseLong(matcher.group("swappedToDisk")));
+        dp.setReadDiskKB(Long.parseLong(matcher.group("kbFromDisk")));
+        dp.setWriteDiskKB(Long.parseLong(matcher.group("kbToDisk")));
+        dp.setInterrupts(Long.parseLong(matcher.group("interruptsPerSec")));
+        dp.setContextSwitches(Long.parseLong(matcher.group("contextSwitchesPerSec")));
+        dp.setUserCPUPercent(Integer.parseInt(matcher.group("userCPU")));
+        dp.setSystemCPUPercent(Integer.parseInt(matcher.group("systemCPU")));
+        dp.setIdleCPUPercent(Integer.parseInt(matcher.group("idleCPU")));
+        dp.setWaitCPUPercent(Integer.parseInt(matcher.group("waitCPU")));
+        dp.setStealCPUPercent(Integer.parseInt(matcher.group("stealCPU")));
+        dp.setDateTime(matcher.group("tms"));
+        return dp;
+    }
+
+    private static void assertSameValues(DataPoint expected, DataPoint actual, String line) {
+        assertEquals(expected.getRunnableProcesses(), actual.getRunnableProcesses(), line);
+        assertEquals(expected.getBlockedProcesses(), actual.getBlockedProcesses(), line);
+        assertEquals(expected.getSwapMemoryKB(), actual.getSwapMemoryKB(), line);
+        assertEquals(expected.getFreeMemoryKB(), actual.getFreeMemoryKB(), line);
+        assertEquals(expected.getBufferMemoryKB(), actual.getBufferMemoryKB(), line);
+        assertEquals(expected.getCacheMemoryKB(), actual.getCacheMemoryKB(), line);
+        assertEquals(expected.getSwapFromDiskKB(), actual.getSwapFromDiskKB(), line);
+        assertEquals(expected.getSwapToDiskKB(), actual.getSwapToDiskKB(), line);
+        assertEquals(expected.getReadDiskKB(), actual.getReadDiskKB(), line);
+        assertEquals(expected.getWriteDiskKB(), actual.getWriteDiskKB(), line);
+        assertEquals(expected.getInterrupts(), actual.getInterrupts(), line);
+        assertEquals(expected.getContextSwitches(), actual.getContextSwitches(), line);
+        assertEquals(expected.getUserCPUPercent(), actual.getUserCPUPercent(), line);
+        assertEquals(expected.getSystemCPUPercent(), actual.getSystemCPUPercent(), line);
+        assertEquals(expected.getIdleCPUPercent(), actual.getIdleCPUPercent(), line);
+        assertEquals(expected.getWaitCPUPercent(), actual.getWaitCPUPercent(), line);
+        assertEquals(expected.getStealCPUPercent(), actual.getStealCPUPercent(), line);
+        assertEquals(expected.getDateTimeMillis(), actual.getDateTimeMillis(), line);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {PROCPS3, PROCPS4})
+    void parsesFixtureLikeThePattern(String fixture) throws IOException {
+        List<String> all = load(fixture);
+        VMStat vmStat = new VMStat(all.get(0) + "\n" + all.get(1));
+        Pattern pattern = Pattern.compile(vmStat.getPattern());
+        VMStatParser parser = new VMStatParser(vmStat);
+
+        DataPoint dp = new DataPoint();
+        for (String line : all.subList(2, all.size())) {
+            assertTrue(parser.parse(line, dp), "Not parsed: " + line);
+            assertSameValues(parseWithPattern(pattern, line), dp, line);
+        }
+    }
+
+    @Test
+    void detectsGuColumn() throws IOException {
+        List<String> procps3 = load(PROCPS3);
+        List<String> procps4 = load(PROCPS4);
+        assertFalse(new VMStat(procps3.get(0) + "\n" + procps3.get(1)).hasGu());
+        assertTrue(new VMStat(procps4.get(0) + "\n" + procps4.get(1)).hasGu());
+    }
+
+    @Test
+    void parsesFirstProcps4Line() throws IOException {
+        List<String> all = load(PROCPS4);
+        VMStatParser parser = new VMStatParser(new VMStat(all.get(0) + "\n" + all.get(1)));
+
+        DataPoint dp = parser.parse(all.get(2));
+        assertEquals(3, dp.getRunnableProcesses());
+        assertEquals(0, dp.getBlockedProcesses());
+        assertEquals(5330218, dp.getFreeMemoryKB());
+        assertEquals(65536, dp.getWriteDiskKB());
+        assertEquals(2255, dp.getContextSwitches());
+        assertEquals(63, dp.getIdleCPUPercent());
+        assertEquals(30, dp.getWaitCPUPercent());
+    }
+
+    @Test
+    void rejectsMalformedLinesWithoutTouchingDataPoint() throws IOException {
+        List<String> all = load(PROCPS3);
+        VMStatParser parser = new VMStatParser(new VMStat(all.get(0) + "\n" + all.get(1)));
+        DataPoint dp = new DataPoint();
+        assertTrue(parser.parse(all.get(2), dp));
+        long millis = dp.getDateTimeMillis();
+
+        // Header lines, a missing column, a gu column too many, a broken timestamp, a trailing character
+        String line = all.get(3);
+        String[] malformed = {
+                all.get(0),
+                all.get(1),
+                "",
+                line.replaceFirst(" +\\d+ ", " "),
+                line.replace(" 2025-", " 0 2025-"),
+                line.replace("2025-03-17 ", "2025-03-17T"),
+                line.replace(":01", ":0x"),
+                line + " ",
+                null
+        };
+        for (String bad : malformed) {
+            assertFalse(parser.parse(bad, dp), "Parsed: " + bad);
+            assertEquals(millis, dp.getDateTimeMillis());
+        }
+    }
+}